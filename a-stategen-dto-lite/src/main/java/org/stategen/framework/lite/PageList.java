@@ -4,6 +4,8 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.stategen.framework.lite.enums.CountStrategy;
+
 /**
  * 包含“分页”信息的List
  * 
@@ -28,6 +30,15 @@ public class PageList<E> implements IPageList, Serializable {
 
     private List<E> items;
 
+    /** 按游标(keyset)分页时下一页的游标，没有下一页时为null */
+    private String nextCursor;
+
+    /** 是否有下一页 */
+    private boolean hasNextPage;
+
+    /** 总数由哪种方式得出，SKIP时totalCount只是已知的下限 */
+    private CountStrategy countStrategy;
+
 
     public PageList() {
         items = new ArrayList<>(0);
@@ -94,6 +105,30 @@ public class PageList<E> implements IPageList, Serializable {
         this.totalPages = totalPages;
     }
 
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNextPage() {
+        return hasNextPage;
+    }
+
+    public void setHasNextPage(boolean hasNextPage) {
+        this.hasNextPage = hasNextPage;
+    }
+
+    public CountStrategy getCountStrategy() {
+        return countStrategy;
+    }
+
+    public void setCountStrategy(CountStrategy countStrategy) {
+        this.countStrategy = countStrategy;
+    }
+
     public Pagination getPagination() {
         return new Pagination(this);
     }
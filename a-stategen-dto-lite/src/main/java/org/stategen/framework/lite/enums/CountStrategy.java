@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.lite.enums;
+
+/**
+ * 分页查询时总数(count)的取得方式.
+ */
+public enum CountStrategy {
+    /***先执行count再查询数据，总数准确*/
+    EXACT,
+    /***不执行count，多查一行判断是否有下一页，totalCount为已知的下限*/
+    SKIP,
+    /***count按(statement,参数)在本地缓存一段时间，总数可能滞后*/
+    CACHED,
+    /***count与数据查询在不同线程(不同连接)上并发执行*/
+    PARALLEL,
+
+    ;
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.util;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+
+/**
+ * 用 LambdaMetafactory 把 getter/setter/无参构造 生成为 Function/BiConsumer/Supplier，调用时与直接调用相同，
+ * 不能生成时(如类不是public、类加载器不可见)退回反射调用.
+ *
+ * @author XiaZhengsheng
+ */
+public class BeanAccessorUtil {
+
+    private static final MethodHandles.Lookup                              LOOKUP        = MethodHandles.lookup();
+
+    private static final ClassLoader                                       CLASS_LOADER  = BeanAccessorUtil.class.getClassLoader();
+
+    private static final ClassValue<Supplier<?>>                           instantiators = new ClassValue<Supplier<?>>() {
+        @Override
+        protected Supplier<?> computeValue(Class<?> type) {
+            return createInstantiator(type);
+        }
+    };
+
+    /***每个类所有可读属性的 getter，第一次使用时生成*/
+    private static final ClassValue<Map<String, Function<Object, Object>>> readers       = new ClassValue<Map<String, Function<Object, Object>>>() {
+        @Override
+        protected Map<String, Function<Object, Object>> computeValue(Class<?> type) {
+            PropertyDescriptor[] pds = BeanUtils.getPropertyDescriptors(type);
+            Map<String, Function<Object, Object>> getters = new HashMap<String, Function<Object, Object>>(pds.length * 2);
+            for (PropertyDescriptor pd : pds) {
+                Method readMethod = pd.getReadMethod();
+                if (readMethod != null) {
+                    getters.put(pd.getName(), getter(readMethod));
+                }
+            }
+            return Collections.unmodifiableMap(getters);
+        }
+    };
+
+    /***类的所有可读属性，key为属性名*/
+    public static Map<String, Function<Object, Object>> getReaders(Class<?> type) {
+        return readers.get(type);
+    }
+
+    /***读取属性值，没有这个可读属性时返回null*/
+    public static Object getPropertyValue(Object bean, String propertyName) {
+        Function<Object, Object> getter = readers.get(bean.getClass()).get(propertyName);
+        return getter != null ? getter.apply(bean) : null;
+    }
+
+    /***返回缓存的无参构造调用，public类的public构造用 LambdaMetafactory 生成，否则退回 BeanUtils.instantiateClass*/
+    @SuppressWarnings("unchecked")
+    public static <T> Supplier<T> instantiator(Class<T> targetClass) {
+        return (Supplier<T>) instantiators.get(targetClass);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Function<Object, Object> getter(final Method readMethod) {
+        if (isPublic(readMethod) && isVisible(readMethod.getDeclaringClass(), readMethod.getReturnType())) {
+            try {
+                MethodHandle methodHandle = LOOKUP.unreflect(readMethod);
+                CallSite callSite = LambdaMetafactory.metafactory(LOOKUP, "apply", MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class), methodHandle,
+                    MethodType.methodType(ClassUtils.resolvePrimitiveIfNecessary(readMethod.getReturnType()), readMethod.getDeclaringClass()));
+                return (Function<Object, Object>) callSite.getTarget().invoke();
+            } catch (Throwable e) {
+                //类加载器不可见等原因不能生成时，退回反射
+            }
+        }
+        readMethod.setAccessible(true);
+        return source -> {
+            try {
+                return readMethod.invoke(source);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    public static BiConsumer<Object, Object> setter(final Method writeMethod) {
+        if (isPublic(writeMethod) && isVisible(writeMethod.getDeclaringClass(), writeMethod.getParameterTypes()[0])) {
+            try {
+                MethodHandle methodHandle = LOOKUP.unreflect(writeMethod);
+                CallSite callSite = LambdaMetafactory.metafactory(LOOKUP, "accept", MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class), methodHandle, MethodType.methodType(void.class,
+                        writeMethod.getDeclaringClass(), ClassUtils.resolvePrimitiveIfNecessary(writeMethod.getParameterTypes()[0])));
+                return (BiConsumer<Object, Object>) callSite.getTarget().invoke();
+            } catch (Throwable e) {
+                //类加载器不可见等原因不能生成时，退回反射
+            }
+        }
+        writeMethod.setAccessible(true);
+        return (target, value) -> {
+            try {
+                writeMethod.invoke(target, value);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> createInstantiator(final Class<T> targetClass) {
+        if (Modifier.isPublic(targetClass.getModifiers()) && !Modifier.isAbstract(targetClass.getModifiers()) && isVisible(targetClass)) {
+            try {
+                MethodHandle methodHandle = LOOKUP.findConstructor(targetClass, MethodType.methodType(void.class));
+                CallSite callSite = LambdaMetafactory.metafactory(LOOKUP, "get", MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class), methodHandle, MethodType.methodType(targetClass));
+                return (Supplier<T>) callSite.getTarget().invoke();
+            } catch (Throwable e) {
+                //没有public无参构造等原因不能生成时，退回反射
+            }
+        }
+        return () -> BeanUtils.instantiateClass(targetClass);
+    }
+
+    /***
+     * 生成的类由本类的类加载器定义，bean的类(如devtools的restart加载器、webapp中的类)对它不可见时，
+     * metafactory 可以成功，但第一次调用才抛 NoClassDefFoundError，所以事先检查，不可见的走反射
+     */
+    private static boolean isVisible(Class<?>... types) {
+        for (Class<?> type : types) {
+            while (type.isArray()) {
+                type = type.getComponentType();
+            }
+            if (!type.isPrimitive() && !ClassUtils.isVisible(type, CLASS_LOADER)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPublic(Method method) {
+        return Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(method.getDeclaringClass().getModifiers());
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.util;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.FatalBeanException;
+import org.springframework.util.ClassUtils;
+
+/**
+ * 按 (源类型, 目标类型, 忽略的属性) 缓存的属性复制器.
+ * 第一次使用时找出可以复制的属性，由 BeanAccessorUtil 把 getter/setter 生成为 Function/BiConsumer，
+ * 以后每次复制都是直接调用，不再查找 PropertyDescriptor 也不再 Method.invoke.
+ *
+ * @author XiaZhengsheng
+ */
+public final class BeanCopier {
+
+    private static final ConcurrentHashMap<Class<?>, ConcurrentHashMap<Class<?>, BeanCopier>> copiers         = new ConcurrentHashMap<Class<?>, ConcurrentHashMap<Class<?>, BeanCopier>>();
+
+    private static final ConcurrentHashMap<CopierKey, BeanCopier>                             ignoringCopiers = new ConcurrentHashMap<CopierKey, BeanCopier>();
+
+    private final PropertyCopier[]                                                            propertyCopiers;
+
+    static final class PropertyCopier {
+        final String                     name;
+        final Function<Object, Object>   getter;
+        final BiConsumer<Object, Object> setter;
+
+        PropertyCopier(String name, Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+            this.name = name;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    static final class CopierKey {
+        final Class<?> sourceClass;
+        final Class<?> targetClass;
+        final String[] ignoreProperties;
+        final int      hash;
+
+        CopierKey(Class<?> sourceClass, Class<?> targetClass, String[] ignoreProperties) {
+            this.sourceClass = sourceClass;
+            this.targetClass = targetClass;
+            this.ignoreProperties = ignoreProperties.clone();
+            Arrays.sort(this.ignoreProperties);
+            this.hash = (sourceClass.hashCode() * 31 + targetClass.hashCode()) * 31 + Arrays.hashCode(this.ignoreProperties);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CopierKey)) {
+                return false;
+            }
+            CopierKey other = (CopierKey) obj;
+            return sourceClass == other.sourceClass && targetClass == other.targetClass && Arrays.equals(ignoreProperties, other.ignoreProperties);
+        }
+    }
+
+    private BeanCopier(Class<?> sourceClass, Class<?> targetClass, String[] ignoreProperties) {
+        List<String> ignoreList = ignoreProperties != null ? Arrays.asList(ignoreProperties) : null;
+        List<PropertyCopier> propertyCopierList = new ArrayList<PropertyCopier>();
+        for (PropertyDescriptor targetPd : BeanUtils.getPropertyDescriptors(targetClass)) {
+            Method targetWriteMethod = targetPd.getWriteMethod();
+            if (targetWriteMethod == null || (ignoreList != null && ignoreList.contains(targetPd.getName()))) {
+                continue;
+            }
+            PropertyDescriptor sourcePd = BeanUtils.getPropertyDescriptor(sourceClass, targetPd.getName());
+            if (sourcePd == null) {
+                continue;
+            }
+            Method sourceReadMethod = sourcePd.getReadMethod();
+            if (sourceReadMethod != null && ClassUtils.isAssignable(targetWriteMethod.getParameterTypes()[0], sourceReadMethod.getReturnType())) {
+                propertyCopierList.add(new PropertyCopier(targetPd.getName(), BeanAccessorUtil.getter(sourceReadMethod), BeanAccessorUtil.setter(targetWriteMethod)));
+            }
+        }
+        this.propertyCopiers = propertyCopierList.toArray(new PropertyCopier[propertyCopierList.size()]);
+    }
+
+    public static BeanCopier get(Class<?> sourceClass, Class<?> targetClass, String... ignoreProperties) {
+        if (ignoreProperties == null || ignoreProperties.length == 0) {
+            ConcurrentHashMap<Class<?>, BeanCopier> targetCopiers = copiers.get(sourceClass);
+            if (targetCopiers == null) {
+                targetCopiers = copiers.computeIfAbsent(sourceClass, k -> new ConcurrentHashMap<Class<?>, BeanCopier>());
+            }
+            BeanCopier copier = targetCopiers.get(targetClass);
+            if (copier == null) {
+                copier = targetCopiers.computeIfAbsent(targetClass, k -> new BeanCopier(sourceClass, targetClass, null));
+            }
+            return copier;
+        }
+        CopierKey key = new CopierKey(sourceClass, targetClass, ignoreProperties);
+        BeanCopier copier = ignoringCopiers.get(key);
+        if (copier == null) {
+            copier = ignoringCopiers.computeIfAbsent(key, k -> new BeanCopier(sourceClass, targetClass, ignoreProperties));
+        }
+        return copier;
+    }
+
+    /***复制所有可复制的属性，包括null值，与 BeanUtils.copyProperties 相同*/
+    public void copy(Object source, Object target) {
+        for (PropertyCopier propertyCopier : propertyCopiers) {
+            try {
+                propertyCopier.setter.accept(target, propertyCopier.getter.apply(source));
+            } catch (Throwable ex) {
+                throw new FatalBeanException("Could not copy property '" + propertyCopier.name + "' from source to target", ex);
+            }
+        }
+    }
+
+    /***只复制不为null的属性*/
+    public void merge(Object source, Object target) {
+        for (PropertyCopier propertyCopier : propertyCopiers) {
+            try {
+                Object value = propertyCopier.getter.apply(source);
+                if (value != null) {
+                    propertyCopier.setter.accept(target, value);
+                }
+            } catch (Throwable ex) {
+                throw new FatalBeanException("Could not copy property '" + propertyCopier.name + "' from source to target", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.util;
+
+/***
+ * 按大小分级的线程内 byte[] 缓存，分 4K/16K/64K 三级，每个线程每级最多缓存一个
+ * acquire 取走后用完要 release 放回，大于 MAX_SIZE 的直接创建，不缓存
+ * 不注册到 ThreadLocalUtil，请求结束后不清空，在同一个线程的后续请求中复用
+ */
+public final class BytesPool {
+
+    public static final int                  MIN_SIZE    = 1 << 12;
+
+    public static final int                  MAX_SIZE    = 1 << 16;
+
+    private static final int                 LEVEL_COUNT = 3;
+
+    private static final ThreadLocal<byte[][]> POOL      = ThreadLocal.withInitial(() -> new byte[LEVEL_COUNT][]);
+
+    private BytesPool() {
+    }
+
+    /***能放下size的级别，每级是上一级的4倍*/
+    static int level(int size) {
+        if (size <= MIN_SIZE) {
+            return 0;
+        }
+        int bits = 32 - Integer.numberOfLeadingZeros(size - 1);
+        return (bits - 11) >> 1;
+    }
+
+    static int levelSize(int level) {
+        return MIN_SIZE << (level << 1);
+    }
+
+    /***返回长度不小于minSize的数组，内容不清零*/
+    public static byte[] acquire(int minSize) {
+        if (minSize > MAX_SIZE) {
+            return new byte[minSize];
+        }
+        int level = level(minSize);
+        byte[][] levels = POOL.get();
+        byte[] bytes = levels[level];
+        if (bytes != null) {
+            levels[level] = null;
+            return bytes;
+        }
+        return new byte[levelSize(level)];
+    }
+
+    public static void release(byte[] bytes) {
+        if (bytes == null || bytes.length > MAX_SIZE) {
+            return;
+        }
+        int level = level(bytes.length);
+        if (levelSize(level) == bytes.length) {
+            POOL.get()[level] = bytes;
+        }
+    }
+
+}
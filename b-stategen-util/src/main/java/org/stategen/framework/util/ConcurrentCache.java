@@ -1,48 +1,163 @@
 package org.stategen.framework.util;
 
-
-//package org.apache.el.util;
-
-import java.util.Map;
-import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /***
- * copy from tomcat
+ * 线程安全的有界缓存，get/put 与原来 copy from tomcat 的版本相同.
+ * 原版本的 longterm 为非线程安全的 WeakHashMap，且 put 时整体 putAll+clear，并发下会破坏 map.
+ * 现在按 key 的 hash 分段，每段用 CLOCK(second chance) 近似LRU淘汰：
+ * get 不加锁，只设置访问标记；put 新 key 时只锁所在的段，满了淘汰一个未被访问的条目，没有整体搬迁.
  * 
  * @author XiaZhengsheng
  * @version $Id: ConcurrentCache.java, v 0.1 2020年6月5日 上午2:31:56 XiaZhengsheng Exp $
  */
-public final class ConcurrentCache<K,V> {
-
-    private final int size;
-    
-    private final Map<K,V> eden;
-    
-    private final Map<K,V> longterm;
-    
+public final class ConcurrentCache<K, V> {
+
+    private static final int                   MAX_SEGMENTS  = 16;
+
+    /***每段至少的容量，段太小时 CLOCK 退化为 FIFO*/
+    private static final int                   MIN_SEGMENT_SIZE = 16;
+
+    private final int                          size;
+
+    private final ConcurrentHashMap<K, Node<K, V>> map;
+
+    private final Segment<K, V>[]              segments;
+
+    private final int                          segmentMask;
+
+    private final LongAdder                    hitCount      = new LongAdder();
+
+    private final LongAdder                    missCount     = new LongAdder();
+
+    private final LongAdder                    evictionCount = new LongAdder();
+
+    @SuppressWarnings("unchecked")
     public ConcurrentCache(int size) {
+        AssertUtil.mustTrue(size > 0, "size must great than 0");
         this.size = size;
-        this.eden = new ConcurrentHashMap<K,V>(size);
-        this.longterm = new WeakHashMap<K,V>(size);
+        this.map = new ConcurrentHashMap<K, Node<K, V>>(size);
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && (segmentCount << 1) * MIN_SEGMENT_SIZE <= size) {
+            segmentCount <<= 1;
+        }
+        this.segmentMask = segmentCount - 1;
+        this.segments = new Segment[segmentCount];
+        //各段容量之和正好等于 size
+        int segmentCapacity = size / segmentCount;
+        int remainder = size % segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<K, V>(i < remainder ? segmentCapacity + 1 : segmentCapacity);
+        }
     }
-    
+
     public V get(K k) {
-        V v = this.eden.get(k);
-        if (v == null) {
-            v = this.longterm.get(k);
-            if (v != null) {
-                this.eden.put(k, v);
-            }
+        Node<K, V> node = this.map.get(k);
+        if (node == null) {
+            missCount.increment();
+            return null;
+        }
+        if (!node.referenced) {
+            node.referenced = true;
         }
-        return v;
+        hitCount.increment();
+        return node.value;
     }
-    
+
     public void put(K k, V v) {
-        if (this.eden.size() >= size) {
-            this.longterm.putAll(this.eden);
-            this.eden.clear();
+        Node<K, V> node = this.map.get(k);
+        if (node != null) {
+            node.value = v;
+            node.referenced = true;
+            return;
+        }
+        Segment<K, V> segment = segments[spread(k.hashCode()) & segmentMask];
+        synchronized (segment) {
+            node = this.map.get(k);
+            if (node != null) {
+                node.value = v;
+                node.referenced = true;
+                return;
+            }
+            node = new Node<K, V>(k, v);
+            Node<K, V> victim = segment.add(node);
+            if (victim != null) {
+                this.map.remove(victim.key, victim);
+                evictionCount.increment();
+            }
+            this.map.put(k, node);
+        }
+    }
+
+    public int size() {
+        return this.map.size();
+    }
+
+    public int getMaxSize() {
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    private static int spread(int h) {
+        return (h ^ (h >>> 16)) & 0x7fffffff;
+    }
+
+    /***
+     * 缓存条目，referenced 为 CLOCK 的访问标记
+     */
+    static final class Node<K, V> {
+        final K          key;
+        volatile V       value;
+        volatile boolean referenced;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /***
+     * 一个分段的 CLOCK 环，只在持有该段的锁时访问
+     */
+    static final class Segment<K, V> {
+        private final Node<K, V>[] ring;
+        private int                count;
+        private int                hand;
+
+        @SuppressWarnings("unchecked")
+        Segment(int capacity) {
+            this.ring = new Node[capacity];
+        }
+
+        /***放入新条目，环已满时返回被淘汰的条目*/
+        Node<K, V> add(Node<K, V> node) {
+            if (count < ring.length) {
+                ring[count++] = node;
+                return null;
+            }
+            while (true) {
+                Node<K, V> candidate = ring[hand];
+                if (candidate.referenced) {
+                    candidate.referenced = false;
+                    hand = (hand + 1) % ring.length;
+                    continue;
+                }
+                ring[hand] = node;
+                hand = (hand + 1) % ring.length;
+                return candidate;
+            }
         }
-        this.eden.put(k, v);
     }
-}
\ No newline at end of file
+}
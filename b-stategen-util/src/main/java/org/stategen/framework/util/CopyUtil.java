@@ -16,29 +16,27 @@
  */
 package org.stategen.framework.util;
 
-import java.beans.PropertyDescriptor;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
-import org.springframework.beans.FatalBeanException;
 import org.springframework.util.Assert;
-import org.springframework.util.ClassUtils;
-
-import com.esotericsoftware.kryo.Kryo;
-import com.esotericsoftware.kryo.io.Input;
-import com.esotericsoftware.kryo.io.Output;
 
 import lombok.Cleanup;
 
@@ -49,11 +47,95 @@ public class CopyUtil {
 
     final static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CopyUtil.class);
     
+    /***parallelCopy 时元素数量达到这个值才并行，每个子任务至少复制 parallelCopyThreshold/8 个元素*/
+    private static volatile int parallelCopyThreshold = 10000;
+    
+    public static void setParallelCopyThreshold(int parallelCopyThreshold) {
+        Assert.isTrue(parallelCopyThreshold > 0, "parallelCopyThreshold must great than 0");
+        CopyUtil.parallelCopyThreshold = parallelCopyThreshold;
+    }
+    
+    /***
+     * 把元素复制为 targetCls 的实例，构造方法和属性复制器都只查找一次；
+     * 相邻元素类型相同时直接使用上一个复制器，不再查缓存.
+     * 多线程共用时 last 只是一个不可变的缓存，读到旧值也只是多查一次缓存
+     */
+    static final class ElementCopier<T> implements Function<Object, T> {
+        final Class<T>    targetCls;
+        final Supplier<T> instantiator;
+        final String[]    ignoreProperties;
+        SourceCopier      last;
+
+        static final class SourceCopier {
+            final Class<?>   sourceCls;
+            final BeanCopier beanCopier;
+
+            SourceCopier(Class<?> sourceCls, BeanCopier beanCopier) {
+                this.sourceCls = sourceCls;
+                this.beanCopier = beanCopier;
+            }
+        }
+
+        ElementCopier(Class<T> targetCls, String[] ignoreProperties) {
+            this.targetCls = targetCls;
+            this.instantiator = BeanAccessorUtil.instantiator(targetCls);
+            this.ignoreProperties = ignoreProperties;
+        }
+
+        @Override
+        public T apply(Object source) {
+            if (source == null) {
+                return null;
+            }
+            SourceCopier sourceCopier = last;
+            if (sourceCopier == null || sourceCopier.sourceCls != source.getClass()) {
+                sourceCopier = new SourceCopier(source.getClass(), BeanCopier.get(source.getClass(), targetCls, ignoreProperties));
+                last = sourceCopier;
+            }
+            T target = instantiator.get();
+            sourceCopier.beanCopier.copy(source, target);
+            return target;
+        }
+    }
+    
+    /***fork-join 复制，每个子任务写入结果数组中自己的区间*/
+    static final class CopyTask<T> extends RecursiveAction {
+        private static final long        serialVersionUID = 1L;
+        final Object[]                   sources;
+        final Object[]                   targets;
+        final int                        from;
+        final int                        to;
+        final int                        batchSize;
+        final transient ElementCopier<T> elementCopier;
+
+        CopyTask(Object[] sources, Object[] targets, int from, int to, int batchSize, ElementCopier<T> elementCopier) {
+            this.sources = sources;
+            this.targets = targets;
+            this.from = from;
+            this.to = to;
+            this.batchSize = batchSize;
+            this.elementCopier = elementCopier;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= batchSize) {
+                for (int i = from; i < to; i++) {
+                    targets[i] = elementCopier.apply(sources[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new CopyTask<T>(sources, targets, from, middle, batchSize, elementCopier),
+                new CopyTask<T>(sources, targets, middle, to, batchSize, elementCopier));
+        }
+    }
+    
     public static <T> T copy(Object source,Class<T> targetCls, String... ignoreProperties) {
         if(targetCls == null){
             return null;
         }
-        T instance = BeanUtils.instantiateClass(targetCls);
+        T instance = BeanAccessorUtil.instantiator(targetCls).get();
         return copy(source, instance, ignoreProperties);
     }
     
@@ -61,7 +143,7 @@ public class CopyUtil {
         if(source == null){
             return null;
         }
-        BeanUtils.copyProperties(source,instance,ignoreProperties);
+        BeanCopier.get(source.getClass(), instance.getClass(), ignoreProperties).copy(source, instance);
         return instance;
     }
 
@@ -72,16 +154,45 @@ public class CopyUtil {
         
         if(CollectionUtil.isNotEmpty(sourceList)){
             List<T> targetList = new ArrayList<T>(sourceList.size());
+            ElementCopier<T> elementCopier = new ElementCopier<T>(targetCls, ignoreProperties);
             for(Object o:sourceList){
-                T targetObj = BeanUtils.instantiateClass(targetCls);
-                BeanUtils.copyProperties(o,targetObj,ignoreProperties);
-                targetList.add(targetObj);
+                targetList.add(elementCopier.apply(o));
             }
             return targetList;
         }
         return new ArrayList<T>(0);
     }
 
+    /***
+     * 流式复制，每个元素在被消费时才复制，不会生成完整的目标列表，适合导出等大结果集
+     * 为null的元素复制后仍为null
+     */
+    public static <T> Stream<T> copyStream(Stream<?> sources, Class<T> targetCls, String... ignoreProperties) {
+        return sources.map(new ElementCopier<T>(targetCls, ignoreProperties));
+    }
+
+    public static <T> Stream<T> copyStream(Iterator<?> sources, Class<T> targetCls, String... ignoreProperties) {
+        return copyStream(StreamSupport.stream(Spliterators.spliteratorUnknownSize(sources, Spliterator.ORDERED), false), targetCls,
+            ignoreProperties);
+    }
+
+    /***
+     * 元素数量达到 parallelCopyThreshold 时在 ForkJoinPool.commonPool() 中并行复制，否则与 copy 相同
+     * 返回列表的顺序与 sourceList 相同
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> parallelCopy(List<?> sourceList, Class<T> targetCls, String... ignoreProperties) {
+        int threshold = parallelCopyThreshold;
+        if (sourceList == null || sourceList.size() < threshold) {
+            return copy(sourceList, targetCls, ignoreProperties);
+        }
+        Object[] sources = sourceList.toArray();
+        Object[] targets = new Object[sources.length];
+        int batchSize = Math.max(threshold >>> 3, 1);
+        ForkJoinPool.commonPool().invoke(new CopyTask<T>(sources, targets, 0, sources.length, batchSize, new ElementCopier<T>(targetCls, ignoreProperties)));
+        return new ArrayList<T>((List<T>) Arrays.asList(targets));
+    }
+
     public static <T> T deepCopy(T dest) throws IOException {
         T result =null;
         result = KryoDeepCopy(dest);
@@ -89,27 +200,9 @@ public class CopyUtil {
     }
     
 
-    @SuppressWarnings("unchecked")
+    /***使用 KryoUtil 中线程内重用的 Kryo 和缓冲区，不再每次创建*/
     public static <T> T KryoDeepCopy(T dest) throws IOException {
-        if (dest == null) {
-            return null;
-        }
-        
-        Kryo kryo =new Kryo();
-
-        T result = null;
-        @Cleanup
-        ByteArrayOutputStream fileOut = new ByteArrayOutputStream();
-        fileOut = new ByteArrayOutputStream();
-        @Cleanup
-        Output output = new Output(fileOut);
-        kryo.writeObject(output, dest);
-        
-        byte[] buf = fileOut.toByteArray();
-        @Cleanup
-        Input input = new Input(buf);
-        result = (T) kryo.readObject(input, dest.getClass());
-        return result;
+        return KryoUtil.deepCopy(dest);
     }    
 
     @SuppressWarnings("unchecked")
@@ -183,37 +276,7 @@ public class CopyUtil {
             }
             actualEditable = editable;
         }
-        PropertyDescriptor[] targetPds = BeanUtils.getPropertyDescriptors(actualEditable);
-        List<String> ignoreList = (ignoreProperties != null ? Arrays.asList(ignoreProperties) : null);
-
-        for (PropertyDescriptor targetPd : targetPds) {
-            Method targetWriteMethod = targetPd.getWriteMethod();
-            if (targetWriteMethod != null && (ignoreList == null || !ignoreList.contains(targetPd.getName()))) {
-                PropertyDescriptor sourcePd = BeanUtils.getPropertyDescriptor(source.getClass(), targetPd.getName());
-                if (sourcePd != null) {
-                    Method sourceReadMethod = sourcePd.getReadMethod();
-                    if (sourceReadMethod != null &&
-                            ClassUtils.isAssignable(targetWriteMethod.getParameterTypes()[0], sourceReadMethod.getReturnType())) {
-                        try {
-                            if (!Modifier.isPublic(sourceReadMethod.getDeclaringClass().getModifiers())) {
-                                sourceReadMethod.setAccessible(true);
-                            }
-                            Object value = sourceReadMethod.invoke(source);
-                            if (!Modifier.isPublic(targetWriteMethod.getDeclaringClass().getModifiers())) {
-                                targetWriteMethod.setAccessible(true);
-                            }
-                            //只有当值不为空时，才copy
-                            if (value!=null){
-                                targetWriteMethod.invoke(target, value);
-                            }
-                        }
-                        catch (Throwable ex) {
-                            throw new FatalBeanException(
-                                    "Could not copy property '" + targetPd.getName() + "' from source to target", ex);
-                        }
-                    }
-                }
-            }
-        }
+        //属性的查找和访问方法在第一次时生成并缓存，只复制不为空的值
+        BeanCopier.get(source.getClass(), actualEditable, ignoreProperties).merge(source, target);
     }
 }
@@ -0,0 +1,367 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.util;
+
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DatetimeUtil 的 java.time 实现，直接对 unix毫秒 计算，不创建 DateTime/Calendar
+ * 时区为类加载时的缺省时区(与joda的DateTimeZone.getDefault()一样只取一次)
+ * 年月日按公历计算，本地时间不存在(夏令时切换)时向后推，重叠时优先保持原来的偏移
+ * format 的 DateTimeFormatter 按pattern缓存，线程安全，不含毫秒的pattern缓存同一秒的结果
+ */
+public final class DatetimeMillis {
+
+    public static final long                               MILLIS_PER_SECOND    = 1000L;
+    public static final long                               MILLIS_PER_MINUTE    = 60 * MILLIS_PER_SECOND;
+    public static final long                               MILLIS_PER_HOUR      = 60 * MILLIS_PER_MINUTE;
+    public static final long                               MILLIS_PER_DAY       = 24 * MILLIS_PER_HOUR;
+    public static final long                               MILLIS_PER_WEEK      = 7 * MILLIS_PER_DAY;
+
+    private static final TimeZone                          TIME_ZONE            = TimeZone.getDefault();
+    private static final ZoneId                            ZONE_ID              = TIME_ZONE.toZoneId();
+
+    /** 0000-03-01 至 1970-01-01 的天数 */
+    private static final long                              DAYS_0000_TO_1970    = 719468L;
+    /** 1970-01-01 为星期四 */
+    private static final int                               EPOCH_DAY_OF_WEEK    = 3;
+
+    /** 缓存的pattern数超过时不再缓存，防止传入的pattern无限增长 */
+    private static final int                               MAX_CACHED_PATTERNS  = 256;
+    private static final ConcurrentHashMap<String, PatternFormat> patternFormats = new ConcurrentHashMap<String, PatternFormat>();
+
+    private DatetimeMillis() {
+    }
+
+    /***某一秒格式化后的文本*/
+    static final class SecondText {
+        final long   second;
+        final String text;
+
+        SecondText(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
+    }
+
+    /***一个pattern的formatter，DateTimeFormatter与SimpleDateFormat含义不同的pattern为null，退回SimpleDateFormat*/
+    static final class PatternFormat {
+        final String             pattern;
+        final DateTimeFormatter  formatter;
+        final boolean            secondCacheable;
+        volatile SecondText      lastSecondText;
+
+        PatternFormat(String pattern) {
+            this.pattern = pattern;
+            boolean javaTimeCompatible = isJavaTimeCompatible(pattern);
+            this.formatter = javaTimeCompatible ? DateTimeFormatter.ofPattern(pattern).withZone(ZONE_ID) : null;
+            this.secondCacheable = javaTimeCompatible && pattern.indexOf('S') < 0;
+        }
+
+        String format(long millis) {
+            if (formatter == null) {
+                return new SimpleDateFormat(pattern).format(new Date(millis));
+            }
+            if (!secondCacheable) {
+                return formatter.format(Instant.ofEpochMilli(millis));
+            }
+            long second = Math.floorDiv(millis, MILLIS_PER_SECOND);
+            SecondText secondText = lastSecondText;
+            if (secondText != null && secondText.second == second) {
+                return secondText.text;
+            }
+            String text = formatter.format(Instant.ofEpochMilli(millis));
+            lastSecondText = new SecondText(second, text);
+            return text;
+        }
+    }
+
+    /***只含 y M(最多2个) d H m s SSS 及引号中的文本时，DateTimeFormatter 与 SimpleDateFormat 结果相同*/
+    static boolean isJavaTimeCompatible(String pattern) {
+        boolean quoted = false;
+        int length = pattern.length();
+        for (int i = 0; i < length; i++) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+                continue;
+            }
+            if (quoted || !((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                if (!quoted && (c == '[' || c == ']' || c == '{' || c == '}' || c == '#')) {
+                    return false;
+                }
+                continue;
+            }
+            int run = 1;
+            while (i + run < length && pattern.charAt(i + run) == c) {
+                run++;
+            }
+            switch (c) {
+                case 'y':
+                case 'd':
+                case 'H':
+                case 'm':
+                case 's':
+                    break;
+                case 'M':
+                    if (run > 2) {
+                        return false;
+                    }
+                    break;
+                case 'S':
+                    if (run != 3) {
+                        return false;
+                    }
+                    break;
+                default:
+                    return false;
+            }
+            i += run - 1;
+        }
+        return !quoted;
+    }
+
+    public static String format(long millis, String pattern) {
+        PatternFormat patternFormat = patternFormats.get(pattern);
+        if (patternFormat == null) {
+            patternFormat = new PatternFormat(pattern);
+            if (patternFormats.size() < MAX_CACHED_PATTERNS) {
+                PatternFormat old = patternFormats.putIfAbsent(pattern, patternFormat);
+                if (old != null) {
+                    patternFormat = old;
+                }
+            }
+        }
+        return patternFormat.format(millis);
+    }
+
+    public static long toLocal(long millis) {
+        return millis + TIME_ZONE.getOffset(millis);
+    }
+
+    /***本地时间转为utc毫秒，与ZonedDateTime一致：重叠时取切换前的偏移，不存在的时间按切换前的偏移向后推*/
+    public static long toUtc(long localMillis) {
+        int earlyOffset = TIME_ZONE.getOffset(localMillis - MILLIS_PER_DAY);
+        long earlyMillis = localMillis - earlyOffset;
+        if (TIME_ZONE.getOffset(earlyMillis) == earlyOffset) {
+            return earlyMillis;
+        }
+        int lateOffset = TIME_ZONE.getOffset(localMillis + MILLIS_PER_DAY);
+        long lateMillis = localMillis - lateOffset;
+        if (TIME_ZONE.getOffset(lateMillis) == lateOffset) {
+            return lateMillis;
+        }
+        return earlyMillis;
+    }
+
+    /***本地时间转为utc毫秒，原偏移仍然有效时(如夏令时重叠的第二个小时)保持原偏移*/
+    private static long toUtc(long localMillis, int preferredOffset) {
+        long utcMillis = localMillis - preferredOffset;
+        if (TIME_ZONE.getOffset(utcMillis) == preferredOffset) {
+            return utcMillis;
+        }
+        return toUtc(localMillis);
+    }
+
+    /***公历日期距1970-01-01的天数，月份、日期超出范围时进位*/
+    public static long epochDay(long year, int month, int day) {
+        long monthIndex = year * 12 + month - 1;
+        long y = Math.floorDiv(monthIndex, 12);
+        int m = (int) Math.floorMod(monthIndex, 12) + 1;
+        if (m <= 2) {
+            y--;
+        }
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (m > 2 ? m - 3 : m + 9) + 2) / 5;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - DAYS_0000_TO_1970 + day - 1;
+    }
+
+    /***epochDay 转为年月日，压缩在一个long中: year&lt;&lt;9 | month&lt;&lt;5 | day，不创建对象*/
+    static long civil(long epochDay) {
+        long z = epochDay + DAYS_0000_TO_1970;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (year << 9) | (month << 5) | day;
+    }
+
+    static long civilYear(long civil) {
+        return civil >> 9;
+    }
+
+    static int civilMonth(long civil) {
+        return (int) (civil >> 5) & 0xF;
+    }
+
+    static int civilDay(long civil) {
+        return (int) civil & 0x1F;
+    }
+
+    static int lengthOfMonth(long year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    public static long startOfSecond(long millis) {
+        return millis - Math.floorMod(millis, MILLIS_PER_SECOND);
+    }
+
+    public static long startOfMinute(long millis) {
+        return startOfLocalUnit(millis, MILLIS_PER_MINUTE);
+    }
+
+    public static long startOfHour(long millis) {
+        return startOfLocalUnit(millis, MILLIS_PER_HOUR);
+    }
+
+    public static long startOfDay(long millis) {
+        return startOfLocalUnit(millis, MILLIS_PER_DAY);
+    }
+
+    private static long startOfLocalUnit(long millis, long unit) {
+        int offset = TIME_ZONE.getOffset(millis);
+        long local = millis + offset;
+        return toUtc(local - Math.floorMod(local, unit), offset);
+    }
+
+    /***一周从星期一开始，与joda一致*/
+    public static long startOfWeek(long millis) {
+        int offset = TIME_ZONE.getOffset(millis);
+        long day = Math.floorDiv(millis + offset, MILLIS_PER_DAY);
+        long monday = day - Math.floorMod(day + EPOCH_DAY_OF_WEEK, 7);
+        return toUtc(monday * MILLIS_PER_DAY, offset);
+    }
+
+    public static long startOfMonth(long millis) {
+        int offset = TIME_ZONE.getOffset(millis);
+        long civil = civil(Math.floorDiv(millis + offset, MILLIS_PER_DAY));
+        return toUtc(epochDay(civilYear(civil), civilMonth(civil), 1) * MILLIS_PER_DAY, offset);
+    }
+
+    public static long startOfYear(long millis) {
+        int offset = TIME_ZONE.getOffset(millis);
+        long civil = civil(Math.floorDiv(millis + offset, MILLIS_PER_DAY));
+        return toUtc(epochDay(civilYear(civil), 1, 1) * MILLIS_PER_DAY, offset);
+    }
+
+    public static long plusSeconds(long millis, int seconds) {
+        return millis + seconds * MILLIS_PER_SECOND;
+    }
+
+    public static long plusMinutes(long millis, int minutes) {
+        return millis + minutes * MILLIS_PER_MINUTE;
+    }
+
+    public static long plusHours(long millis, int hours) {
+        return millis + hours * MILLIS_PER_HOUR;
+    }
+
+    /***按本地时间加天数，时分秒不变*/
+    public static long plusDays(long millis, int days) {
+        int offset = TIME_ZONE.getOffset(millis);
+        return toUtc(millis + offset + days * MILLIS_PER_DAY, offset);
+    }
+
+    public static long plusWeeks(long millis, int weeks) {
+        return plusDays(millis, weeks * 7);
+    }
+
+    /***按本地时间加月数，日期超过该月天数时取该月最后一天，与joda一致*/
+    public static long plusMonths(long millis, int months) {
+        int offset = TIME_ZONE.getOffset(millis);
+        return toUtc(plusLocalMonths(millis + offset, months), offset);
+    }
+
+    public static long plusYears(long millis, int years) {
+        return plusMonths(millis, years * 12);
+    }
+
+    private static long plusLocalMonths(long local, long months) {
+        long day = Math.floorDiv(local, MILLIS_PER_DAY);
+        long timeOfDay = local - day * MILLIS_PER_DAY;
+        long civil = civil(day);
+        long monthIndex = civilYear(civil) * 12 + civilMonth(civil) - 1 + months;
+        long year = Math.floorDiv(monthIndex, 12);
+        int month = (int) Math.floorMod(monthIndex, 12) + 1;
+        int dayOfMonth = Math.min(civilDay(civil), lengthOfMonth(year, month));
+        return epochDay(year, month, dayOfMonth) * MILLIS_PER_DAY + timeOfDay;
+    }
+
+    /***超出int范围时与joda一样抛出ArithmeticException*/
+    public static int secondsBetween(long begin, long end) {
+        return Math.toIntExact((end - begin) / MILLIS_PER_SECOND);
+    }
+
+    public static int minutesBetween(long begin, long end) {
+        return Math.toIntExact((end - begin) / MILLIS_PER_MINUTE);
+    }
+
+    public static int hoursBetween(long begin, long end) {
+        return Math.toIntExact((end - begin) / MILLIS_PER_HOUR);
+    }
+
+    /***按本地时间计算的整天数，与joda的Days.daysBetween一致*/
+    public static int daysBetween(long begin, long end) {
+        return (int) ((toLocal(end) - toLocal(begin)) / MILLIS_PER_DAY);
+    }
+
+    public static int weeksBetween(long begin, long end) {
+        return (int) ((toLocal(end) - toLocal(begin)) / MILLIS_PER_WEEK);
+    }
+
+    /***按本地时间计算的整月数，不足一个月的部分舍去*/
+    public static int monthsBetween(long begin, long end) {
+        long beginLocal = toLocal(begin);
+        long endLocal = toLocal(end);
+        long beginCivil = civil(Math.floorDiv(beginLocal, MILLIS_PER_DAY));
+        long endCivil = civil(Math.floorDiv(endLocal, MILLIS_PER_DAY));
+        long months = (civilYear(endCivil) - civilYear(beginCivil)) * 12 + civilMonth(endCivil) - civilMonth(beginCivil);
+        if (months > 0 && plusLocalMonths(beginLocal, months) > endLocal) {
+            months--;
+        } else if (months < 0 && plusLocalMonths(beginLocal, months) < endLocal) {
+            months++;
+        }
+        return (int) months;
+    }
+
+    public static int yearsBetween(long begin, long end) {
+        return monthsBetween(begin, end) / 12;
+    }
+
+}
@@ -17,23 +17,16 @@
 
 package org.stategen.framework.util;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTime.Property;
-import org.joda.time.Days;
-import org.joda.time.Hours;
-import org.joda.time.Minutes;
-import org.joda.time.Months;
-import org.joda.time.Seconds;
-import org.joda.time.Weeks;
-import org.joda.time.Years;
 
 /**
  * The Class DatetimeUtil.
  * 用joda-time实现Date常用工具包的功能
+ * 公开的静态方法由 DatetimeMillis 在unix毫秒上用 java.time 计算，每次调用不再创建 DateTime 和 SimpleDateFormat
+ * protected 的 DateTime 方法保留给子类使用
  */
 public class DatetimeUtil {
 
@@ -142,8 +135,7 @@ public class DatetimeUtil {
      * @return the string
      */
     public static String format(Date date, String format) {
-        DateFormat dt = new SimpleDateFormat(format);
-        return dt.format(date);
+        return DatetimeMillis.format(date.getTime(), format);
     }
 
     /**
@@ -242,7 +234,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date current() {
-        return currentDateTime().toDate();
+        return new Date();
     }
 
     /**
@@ -254,6 +246,53 @@ public class DatetimeUtil {
         return new DateTime();
     }
 
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+
+    /***millis 所在 年/月/周/日/时/分/秒 的起始毫秒*/
+    static long startMillis(long millis, DateType type) {
+        switch (type) {
+            case YEAR:
+                return DatetimeMillis.startOfYear(millis);
+            case MONTH:
+                return DatetimeMillis.startOfMonth(millis);
+            case WEEK:
+                return DatetimeMillis.startOfWeek(millis);
+            case DAY:
+                return DatetimeMillis.startOfDay(millis);
+            case HOUR:
+                return DatetimeMillis.startOfHour(millis);
+            case MINUTE:
+                return DatetimeMillis.startOfMinute(millis);
+            case SECOND:
+                return DatetimeMillis.startOfSecond(millis);
+            default:
+                return millis;
+        }
+    }
+
+    static long plusMillis(long millis, DateType type, int interval) {
+        switch (type) {
+            case YEAR:
+                return DatetimeMillis.plusYears(millis, interval);
+            case MONTH:
+                return DatetimeMillis.plusMonths(millis, interval);
+            case WEEK:
+                return DatetimeMillis.plusWeeks(millis, interval);
+            case DAY:
+                return DatetimeMillis.plusDays(millis, interval);
+            case HOUR:
+                return DatetimeMillis.plusHours(millis, interval);
+            case MINUTE:
+                return DatetimeMillis.plusMinutes(millis, interval);
+            case SECOND:
+                return DatetimeMillis.plusSeconds(millis, interval);
+            default:
+                return millis;
+        }
+    }
+
     /**
      * Gets the start datetime.
      *
@@ -463,7 +502,7 @@ public class DatetimeUtil {
      * @return the date
      */
     protected static Date startYear() {
-        return startYearDateTime().toDate();
+        return new Date(startMillis(now(), DateType.YEAR));
     }
 
     /**
@@ -473,7 +512,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startMonth() {
-        return startMonthDateTime().toDate();
+        return new Date(startMillis(now(), DateType.MONTH));
     }
 
     /**
@@ -483,7 +522,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startWeek() {
-        return startWeekDateTime().toDate();
+        return new Date(startMillis(now(), DateType.WEEK));
     }
 
     /**
@@ -493,7 +532,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startDay() {
-        return startDayDateTime().toDate();
+        return new Date(startMillis(now(), DateType.DAY));
     }
 
     /**
@@ -503,7 +542,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startHour() {
-        return startHourDateTime().toDate();
+        return new Date(startMillis(now(), DateType.HOUR));
     }
 
     /**
@@ -513,7 +552,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startMinute() {
-        return startMinuteDateTime().toDate();
+        return new Date(startMillis(now(), DateType.MINUTE));
     }
 
     /**
@@ -523,7 +562,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startSecond() {
-        return startSecondDateTime().toDate();
+        return new Date(startMillis(now(), DateType.SECOND));
     }
 
     /**
@@ -534,8 +573,7 @@ public class DatetimeUtil {
      * @return the start year
      */
     public static Date startYear(Date curr) {
-        DateTime dest = new DateTime(curr);
-        return startYearDateTime(dest).toDate();
+        return new Date(startMillis(curr.getTime(), DateType.YEAR));
     }
 
     /**
@@ -546,8 +584,7 @@ public class DatetimeUtil {
      * @return the start month
      */
     public static Date startMonth(Date curr) {
-        DateTime dest = new DateTime(curr);
-        return startMonthDateTime(dest).toDate();
+        return new Date(startMillis(curr.getTime(), DateType.MONTH));
     }
 
     /**
@@ -558,8 +595,7 @@ public class DatetimeUtil {
      * @return the start week
      */
     public static Date startWeek(Date curr) {
-        DateTime dest = new DateTime(curr);
-        return startWeekDateTime(dest).toDate();
+        return new Date(startMillis(curr.getTime(), DateType.WEEK));
     }
 
     /**
@@ -570,8 +606,7 @@ public class DatetimeUtil {
      * @return the start day
      */
     public static Date startDay(Date curr) {
-        DateTime dest = new DateTime(curr);
-        return startDayDateTime(dest).toDate();
+        return new Date(startMillis(curr.getTime(), DateType.DAY));
     }
 
     /**
@@ -582,8 +617,7 @@ public class DatetimeUtil {
      * @return the start hour
      */
     public static Date startHour(Date curr) {
-        DateTime dest = new DateTime(curr);
-        return startHourDateTime(dest).toDate();
+        return new Date(startMillis(curr.getTime(), DateType.HOUR));
     }
 
     /**
@@ -594,8 +628,7 @@ public class DatetimeUtil {
      * @return the start startutes
      */
     public static Date startMinute(Date curr) {
-        DateTime dest = new DateTime(curr);
-        return startMinuteDateTime(dest).toDate();
+        return new Date(startMillis(curr.getTime(), DateType.MINUTE));
     }
 
     /**
@@ -606,8 +639,7 @@ public class DatetimeUtil {
      * @return the start second
      */
     public static Date startSecond(Date curr) {
-        DateTime dest = new DateTime(curr);
-        return startSecondDateTime(dest).toDate();
+        return new Date(startMillis(curr.getTime(), DateType.SECOND));
     }
 
     /**
@@ -620,7 +652,7 @@ public class DatetimeUtil {
      * @return the interval year
      */
     public static Date plusYear(Date curr, int interval) {
-        return plusDateTime(curr, DateType.YEAR, interval).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.YEAR, interval));
     }
 
     /**
@@ -633,7 +665,7 @@ public class DatetimeUtil {
      * @return the interval month
      */
     public static Date plusMonth(Date curr, int interval) {
-        return plusDateTime(curr, DateType.MONTH, interval).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.MONTH, interval));
     }
 
     /**
@@ -646,7 +678,7 @@ public class DatetimeUtil {
      * @return the interval week
      */
     public static Date plusWeek(Date curr, int interval) {
-        return plusDateTime(curr, DateType.WEEK, interval).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.WEEK, interval));
     }
 
     /**
@@ -659,7 +691,7 @@ public class DatetimeUtil {
      * @return the interval day
      */
     public static Date plusDay(Date curr, int interval) {
-        return plusDateTime(curr, DateType.DAY, interval).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.DAY, interval));
     }
 
     /**
@@ -672,7 +704,7 @@ public class DatetimeUtil {
      * @return the interval hour
      */
     public static Date plusHour(Date curr, int interval) {
-        return plusDateTime(curr, DateType.HOUR, interval).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.HOUR, interval));
     }
 
     /**
@@ -685,7 +717,7 @@ public class DatetimeUtil {
      * @return the interval startutes
      */
     public static Date plusMinute(Date curr, int interval) {
-        return plusDateTime(curr, DateType.MINUTE, interval).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.MINUTE, interval));
     }
 
     /**
@@ -698,7 +730,7 @@ public class DatetimeUtil {
      * @return the interval second
      */
     public static Date plusSecond(Date curr, int interval) {
-        return plusDateTime(curr, DateType.SECOND, interval).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.SECOND, interval));
     }
 
     /**
@@ -710,7 +742,7 @@ public class DatetimeUtil {
      * @return the curr interval year
      */
     public static Date plusYear(int interval) {
-        return plusDateTime(currentDateTime(), DateType.YEAR, interval).toDate();
+        return new Date(plusMillis(now(), DateType.YEAR, interval));
     }
 
     /**
@@ -722,7 +754,7 @@ public class DatetimeUtil {
      * @return the curr interval month
      */
     public static Date plusMonth(int interval) {
-        return plusDateTime(currentDateTime(), DateType.MONTH, interval).toDate();
+        return new Date(plusMillis(now(), DateType.MONTH, interval));
     }
 
     /**
@@ -734,7 +766,7 @@ public class DatetimeUtil {
      * @return the curr interval week
      */
     public static Date plusWeek(int interval) {
-        return plusDateTime(currentDateTime(), DateType.WEEK, interval).toDate();
+        return new Date(plusMillis(now(), DateType.WEEK, interval));
     }
 
     /**
@@ -746,7 +778,7 @@ public class DatetimeUtil {
      * @return the curr interval day
      */
     public static Date plusDay(int interval) {
-        return plusDateTime(currentDateTime(), DateType.DAY, interval).toDate();
+        return new Date(plusMillis(now(), DateType.DAY, interval));
     }
 
     /**
@@ -758,7 +790,7 @@ public class DatetimeUtil {
      * @return the curr interval hour
      */
     public static Date plusHour(int interval) {
-        return plusDateTime(currentDateTime(), DateType.HOUR, interval).toDate();
+        return new Date(plusMillis(now(), DateType.HOUR, interval));
     }
 
     /**
@@ -770,7 +802,7 @@ public class DatetimeUtil {
      * @return the curr interval startutes
      */
     public static Date plusMinute(int interval) {
-        return plusDateTime(currentDateTime(), DateType.MINUTE, interval).toDate();
+        return new Date(plusMillis(now(), DateType.MINUTE, interval));
     }
 
     /**
@@ -782,7 +814,7 @@ public class DatetimeUtil {
      * @return the curr interval second
      */
     public static Date plusSecond(int interval) {
-        return plusDateTime(currentDateTime(), DateType.SECOND, interval).toDate();
+        return new Date(plusMillis(now(), DateType.SECOND, interval));
     }
 
     /**
@@ -792,7 +824,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date nextYear() {
-        return plusDateTime(currentDateTime(), DateType.YEAR, 1).toDate();
+        return new Date(plusMillis(now(), DateType.YEAR, 1));
     }
 
     /**
@@ -802,7 +834,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date nextMonth() {
-        return plusDateTime(currentDateTime(), DateType.MONTH, 1).toDate();
+        return new Date(plusMillis(now(), DateType.MONTH, 1));
     }
 
     /**
@@ -812,7 +844,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date nextWeek() {
-        return plusDateTime(currentDateTime(), DateType.WEEK, 1).toDate();
+        return new Date(plusMillis(now(), DateType.WEEK, 1));
     }
 
     /**
@@ -822,7 +854,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date nextDay() {
-        return plusDateTime(currentDateTime(), DateType.DAY, 1).toDate();
+        return new Date(plusMillis(now(), DateType.DAY, 1));
     }
 
     /**
@@ -832,7 +864,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date nextlHour() {
-        return plusDateTime(currentDateTime(), DateType.HOUR, 1).toDate();
+        return new Date(plusMillis(now(), DateType.HOUR, 1));
     }
 
     /**
@@ -842,7 +874,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date nextMinute() {
-        return plusDateTime(currentDateTime(), DateType.MINUTE, 1).toDate();
+        return new Date(plusMillis(now(), DateType.MINUTE, 1));
     }
 
     /**
@@ -852,7 +884,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date nextSecond() {
-        return plusDateTime(currentDateTime(), DateType.SECOND, 1).toDate();
+        return new Date(plusMillis(now(), DateType.SECOND, 1));
     }
 
     /**
@@ -863,7 +895,7 @@ public class DatetimeUtil {
      * @return the next year
      */
     public static Date nextYear(Date curr) {
-        return plusDateTime(curr, DateType.YEAR, 1).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.YEAR, 1));
     }
 
     /**
@@ -874,7 +906,7 @@ public class DatetimeUtil {
      * @return the next month
      */
     public static Date nextMonth(Date curr) {
-        return plusDateTime(curr, DateType.MONTH, 1).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.MONTH, 1));
     }
 
     /**
@@ -885,7 +917,7 @@ public class DatetimeUtil {
      * @return the next week
      */
     public static Date nextWeek(Date curr) {
-        return plusDateTime(curr, DateType.WEEK, 1).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.WEEK, 1));
     }
 
     /**
@@ -896,7 +928,7 @@ public class DatetimeUtil {
      * @return the next day
      */
     public static Date nextDay(Date curr) {
-        return plusDateTime(curr, DateType.DAY, 1).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.DAY, 1));
     }
 
     /**
@@ -907,7 +939,7 @@ public class DatetimeUtil {
      * @return the next hour
      */
     public static Date nextHour(Date curr) {
-        return plusDateTime(curr, DateType.HOUR, 1).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.HOUR, 1));
     }
 
     /**
@@ -918,7 +950,7 @@ public class DatetimeUtil {
      * @return the next startutes
      */
     public static Date nextMinute(Date curr) {
-        return plusDateTime(curr, DateType.MINUTE, 1).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.MINUTE, 1));
     }
 
     /**
@@ -929,7 +961,7 @@ public class DatetimeUtil {
      * @return the next second
      */
     public static Date nextSecond(Date curr) {
-        return plusDateTime(curr, DateType.SECOND, 1).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.SECOND, 1));
     }
 
     /**
@@ -939,7 +971,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date prevYear() {
-        return plusDateTime(currentDateTime(), DateType.YEAR, -1).toDate();
+        return new Date(plusMillis(now(), DateType.YEAR, -1));
     }
 
     /**
@@ -949,7 +981,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date prevtMonth() {
-        return plusDateTime(currentDateTime(), DateType.MONTH, -1).toDate();
+        return new Date(plusMillis(now(), DateType.MONTH, -1));
     }
 
     /**
@@ -959,7 +991,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date prevWeek() {
-        return plusDateTime(currentDateTime(), DateType.WEEK, -1).toDate();
+        return new Date(plusMillis(now(), DateType.WEEK, -1));
     }
 
     /**
@@ -969,7 +1001,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date prevDay() {
-        return plusDateTime(currentDateTime(), DateType.DAY, -1).toDate();
+        return new Date(plusMillis(now(), DateType.DAY, -1));
     }
 
     /**
@@ -979,7 +1011,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date prevHour() {
-        return plusDateTime(currentDateTime(), DateType.HOUR, -1).toDate();
+        return new Date(plusMillis(now(), DateType.HOUR, -1));
     }
 
     /**
@@ -989,7 +1021,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date prevMinute() {
-        return plusDateTime(currentDateTime(), DateType.MINUTE, -1).toDate();
+        return new Date(plusMillis(now(), DateType.MINUTE, -1));
     }
 
     /**
@@ -999,7 +1031,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date prevSecond() {
-        return plusDateTime(currentDateTime(), DateType.SECOND, -1).toDate();
+        return new Date(plusMillis(now(), DateType.SECOND, -1));
     }
 
     /**
@@ -1010,7 +1042,7 @@ public class DatetimeUtil {
      * @return the prev year
      */
     public static Date prevYear(Date curr) {
-        return plusDateTime(curr, DateType.YEAR, -1).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.YEAR, -1));
     }
 
     /**
@@ -1021,7 +1053,7 @@ public class DatetimeUtil {
      * @return the prev month
      */
     public static Date prevMonth(Date curr) {
-        return plusDateTime(curr, DateType.MONTH, -1).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.MONTH, -1));
     }
 
     /**
@@ -1032,7 +1064,7 @@ public class DatetimeUtil {
      * @return the prev week
      */
     public static Date prevWeek(Date curr) {
-        return plusDateTime(curr, DateType.WEEK, -1).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.WEEK, -1));
     }
 
     /**
@@ -1043,7 +1075,7 @@ public class DatetimeUtil {
      * @return the prev day
      */
     public static Date prevDay(Date curr) {
-        return plusDateTime(curr, DateType.DAY, -1).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.DAY, -1));
     }
 
     /**
@@ -1054,7 +1086,7 @@ public class DatetimeUtil {
      * @return the prev hour
      */
     public static Date prevHour(Date curr) {
-        return plusDateTime(curr, DateType.HOUR, -1).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.HOUR, -1));
     }
 
     /**
@@ -1065,7 +1097,7 @@ public class DatetimeUtil {
      * @return the prev startutes
      */
     public static Date prevMinute(Date curr) {
-        return plusDateTime(curr, DateType.MINUTE, -1).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.MINUTE, -1));
     }
 
     /**
@@ -1076,7 +1108,7 @@ public class DatetimeUtil {
      * @return the prev second
      */
     public static Date prevSecond(Date curr) {
-        return plusDateTime(curr, DateType.SECOND, -1).toDate();
+        return new Date(plusMillis(curr.getTime(), DateType.SECOND, -1));
     }
 
     /**
@@ -1086,7 +1118,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextYear() {
-        return startYearDateTime(plusDateTime(currentDateTime(), DateType.YEAR, 1)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.YEAR, 1), DateType.YEAR));
     }
 
     /**
@@ -1096,7 +1128,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextMonth() {
-        return startMonthDateTime(plusDateTime(currentDateTime(), DateType.MONTH, 1)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.MONTH, 1), DateType.MONTH));
     }
 
     /**
@@ -1106,7 +1138,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextWeek() {
-        return startWeekDateTime(plusDateTime(currentDateTime(), DateType.WEEK, 1)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.WEEK, 1), DateType.WEEK));
     }
 
     /**
@@ -1116,7 +1148,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextDay() {
-        return startDayDateTime(plusDateTime(currentDateTime(), DateType.DAY, 1)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.DAY, 1), DateType.DAY));
     }
 
     /**
@@ -1126,7 +1158,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextlHour() {
-        return startHourDateTime(plusDateTime(currentDateTime(), DateType.HOUR, 1)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.HOUR, 1), DateType.HOUR));
     }
 
     /**
@@ -1136,7 +1168,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextMinute() {
-        return startMinuteDateTime(plusDateTime(currentDateTime(), DateType.MINUTE, 1)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.MINUTE, 1), DateType.MINUTE));
     }
 
     /**
@@ -1146,7 +1178,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextSecond() {
-        return startSecondDateTime(plusDateTime(currentDateTime(), DateType.SECOND, 1)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.SECOND, 1), DateType.SECOND));
     }
 
     /**
@@ -1157,7 +1189,7 @@ public class DatetimeUtil {
      * @return the next start year
      */
     public static Date startOfNextYear(Date curr) {
-        return startYearDateTime(plusDateTime(curr, DateType.YEAR, 1)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.YEAR, 1), DateType.YEAR));
     }
 
     /**
@@ -1168,7 +1200,7 @@ public class DatetimeUtil {
      * @return the next start month
      */
     public static Date startOfNextMonth(Date curr) {
-        return startMonthDateTime(plusDateTime(curr, DateType.MONTH, 1)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.MONTH, 1), DateType.MONTH));
     }
 
     /**
@@ -1179,7 +1211,7 @@ public class DatetimeUtil {
      * @return the next start week
      */
     public static Date startOfNextWeek(Date curr) {
-        return startWeekDateTime(plusDateTime(curr, DateType.WEEK, 1)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.WEEK, 1), DateType.WEEK));
     }
 
     /**
@@ -1190,7 +1222,7 @@ public class DatetimeUtil {
      * @return the next start day
      */
     public static Date startOfNextDay(Date curr) {
-        return startDayDateTime(plusDateTime(curr, DateType.DAY, 1)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.DAY, 1), DateType.DAY));
     }
 
     /**
@@ -1201,7 +1233,7 @@ public class DatetimeUtil {
      * @return the next start hour
      */
     public static Date startOfNextHour(Date curr) {
-        return startHourDateTime(plusDateTime(curr, DateType.HOUR, 1)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.HOUR, 1), DateType.HOUR));
     }
 
     /**
@@ -1212,7 +1244,7 @@ public class DatetimeUtil {
      * @return the next start startutes
      */
     public static Date startOfNextMinute(Date curr) {
-        return startMinuteDateTime(plusDateTime(curr, DateType.MINUTE, 1)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.MINUTE, 1), DateType.MINUTE));
     }
 
     /**
@@ -1223,7 +1255,7 @@ public class DatetimeUtil {
      * @return the next start second
      */
     public static Date startOfNextSecond(Date curr) {
-        return startSecondDateTime(plusDateTime(curr, DateType.SECOND, 1)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.SECOND, 1), DateType.SECOND));
     }
 
     /**
@@ -1233,7 +1265,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevYear() {
-        return startYearDateTime(plusDateTime(currentDateTime(), DateType.YEAR, -1)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.YEAR, -1), DateType.YEAR));
     }
 
     /**
@@ -1243,7 +1275,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevMonth() {
-        return startMonthDateTime(plusDateTime(currentDateTime(), DateType.MONTH, -1)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.MONTH, -1), DateType.MONTH));
     }
 
     /**
@@ -1253,7 +1285,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevWeek() {
-        return startWeekDateTime(plusDateTime(currentDateTime(), DateType.WEEK, -1)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.WEEK, -1), DateType.WEEK));
     }
 
     /**
@@ -1263,7 +1295,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPprevDay() {
-        return startDayDateTime(plusDateTime(currentDateTime(), DateType.DAY, -1)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.DAY, -1), DateType.DAY));
     }
 
     /**
@@ -1273,7 +1305,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPprevlHour() {
-        return startHourDateTime(plusDateTime(currentDateTime(), DateType.HOUR, -1)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.HOUR, -1), DateType.HOUR));
     }
 
     /**
@@ -1283,7 +1315,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevMinute() {
-        return startMinuteDateTime(plusDateTime(currentDateTime(), DateType.MINUTE, -1)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.MINUTE, -1), DateType.MINUTE));
     }
 
     /**
@@ -1293,7 +1325,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevSecond() {
-        return startSecondDateTime(plusDateTime(currentDateTime(), DateType.SECOND, -1)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.SECOND, -1), DateType.SECOND));
     }
 
     /**
@@ -1304,7 +1336,7 @@ public class DatetimeUtil {
      * @return the prev start year
      */
     public static Date startOfPrevYear(Date curr) {
-        return startYearDateTime(plusDateTime(curr, DateType.YEAR, -1)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.YEAR, -1), DateType.YEAR));
     }
 
     /**
@@ -1315,7 +1347,7 @@ public class DatetimeUtil {
      * @return the prev start month
      */
     public static Date startOfPrevMonth(Date curr) {
-        return startMonthDateTime(plusDateTime(curr, DateType.MONTH, -1)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.MONTH, -1), DateType.MONTH));
     }
 
     /**
@@ -1326,7 +1358,7 @@ public class DatetimeUtil {
      * @return the prev start week
      */
     public static Date startOfPrevWeek(Date curr) {
-        return startWeekDateTime(plusDateTime(curr, DateType.WEEK, -1)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.WEEK, -1), DateType.WEEK));
     }
 
     /**
@@ -1337,7 +1369,7 @@ public class DatetimeUtil {
      * @return the prev start day
      */
     public static Date startOfPrevDay(Date curr) {
-        return startDayDateTime(plusDateTime(curr, DateType.DAY, -1)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.DAY, -1), DateType.DAY));
     }
 
     /**
@@ -1348,7 +1380,7 @@ public class DatetimeUtil {
      * @return the prev start hour
      */
     public static Date startOfPrevHour(Date curr) {
-        return startHourDateTime(plusDateTime(curr, DateType.HOUR, -1)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.HOUR, -1), DateType.HOUR));
     }
 
     /**
@@ -1359,7 +1391,7 @@ public class DatetimeUtil {
      * @return the prev start startutes
      */
     public static Date startOfPrevMinute(Date curr) {
-        return startMinuteDateTime(plusDateTime(curr, DateType.MINUTE, -1)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.MINUTE, -1), DateType.MINUTE));
     }
 
     /**
@@ -1370,7 +1402,7 @@ public class DatetimeUtil {
      * @return the prev start second
      */
     public static Date startOfPrevSecond(Date curr) {
-        return startSecondDateTime(plusDateTime(curr, DateType.SECOND, -1)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.SECOND, -1), DateType.SECOND));
     }
 
     /**
@@ -1383,7 +1415,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextYear(Date curr, int interval) {
-        return startYearDateTime(plusDateTime(curr, DateType.YEAR, interval)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.YEAR, interval), DateType.YEAR));
     }
 
     /**
@@ -1396,7 +1428,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextMonth(Date curr, int interval) {
-        return startMonthDateTime(plusDateTime(curr, DateType.MONTH, interval)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.MONTH, interval), DateType.MONTH));
     }
 
     /**
@@ -1409,7 +1441,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextWeek(Date curr, int interval) {
-        return startWeekDateTime(plusDateTime(curr, DateType.WEEK, interval)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.WEEK, interval), DateType.WEEK));
     }
 
     /**
@@ -1422,7 +1454,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextDay(Date curr, int interval) {
-        return startDayDateTime(plusDateTime(curr, DateType.DAY, interval)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.DAY, interval), DateType.DAY));
     }
 
     /**
@@ -1435,7 +1467,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextHour(Date curr, int interval) {
-        return startHourDateTime(plusDateTime(curr, DateType.HOUR, interval)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.HOUR, interval), DateType.HOUR));
     }
 
     /**
@@ -1448,7 +1480,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextMinute(Date curr, int interval) {
-        return startMinuteDateTime(plusDateTime(curr, DateType.MINUTE, interval)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.MINUTE, interval), DateType.MINUTE));
     }
 
     /**
@@ -1461,7 +1493,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextSecond(Date curr, int interval) {
-        return startSecondDateTime(plusDateTime(curr, DateType.SECOND, interval)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.SECOND, interval), DateType.SECOND));
     }
 
     /**
@@ -1473,7 +1505,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextYear(int interval) {
-        return startYearDateTime(plusDateTime(currentDateTime(), DateType.YEAR, interval)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.YEAR, interval), DateType.YEAR));
     }
 
     /**
@@ -1485,8 +1517,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date StartOfPlusMonth(int interval) {
-        return startMonthDateTime(plusDateTime(currentDateTime(), DateType.MONTH, interval))
-            .toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.MONTH, interval), DateType.MONTH));
     }
 
     /**
@@ -1498,7 +1529,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextWeek(int interval) {
-        return startWeekDateTime(plusDateTime(currentDateTime(), DateType.WEEK, interval)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.WEEK, interval), DateType.WEEK));
     }
 
     /**
@@ -1510,7 +1541,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextDay(int interval) {
-        return startDayDateTime(plusDateTime(currentDateTime(), DateType.DAY, interval)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.DAY, interval), DateType.DAY));
     }
 
     /**
@@ -1522,7 +1553,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextHour(int interval) {
-        return startHourDateTime(plusDateTime(currentDateTime(), DateType.HOUR, interval)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.HOUR, interval), DateType.HOUR));
     }
 
     /**
@@ -1534,8 +1565,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextMinute(int interval) {
-        return startMinuteDateTime(plusDateTime(currentDateTime(), DateType.MINUTE, interval))
-            .toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.MINUTE, interval), DateType.MINUTE));
     }
 
     /**
@@ -1547,8 +1577,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfNextSecond(int interval) {
-        return startSecondDateTime(plusDateTime(currentDateTime(), DateType.SECOND, interval))
-            .toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.SECOND, interval), DateType.SECOND));
     }
 
     /**
@@ -1561,7 +1590,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevYear(Date curr, int interval) {
-        return startYearDateTime(plusDateTime(curr, DateType.YEAR, -interval)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.YEAR, -interval), DateType.YEAR));
     }
 
     /**
@@ -1574,7 +1603,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevMonth(Date curr, int interval) {
-        return startMonthDateTime(plusDateTime(curr, DateType.MONTH, -interval)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.MONTH, -interval), DateType.MONTH));
     }
 
     /**
@@ -1587,7 +1616,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevWeek(Date curr, int interval) {
-        return startWeekDateTime(plusDateTime(curr, DateType.WEEK, -interval)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.WEEK, -interval), DateType.WEEK));
     }
 
     /**
@@ -1600,7 +1629,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevDay(Date curr, int interval) {
-        return startDayDateTime(plusDateTime(curr, DateType.DAY, -interval)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.DAY, -interval), DateType.DAY));
     }
 
     /**
@@ -1613,7 +1642,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevHour(Date curr, int interval) {
-        return startHourDateTime(plusDateTime(curr, DateType.HOUR, -interval)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.HOUR, -interval), DateType.HOUR));
     }
 
     /**
@@ -1626,7 +1655,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevMinute(Date curr, int interval) {
-        return startMinuteDateTime(plusDateTime(curr, DateType.MINUTE, -interval)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.MINUTE, -interval), DateType.MINUTE));
     }
 
     /**
@@ -1639,7 +1668,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevSecond(Date curr, int interval) {
-        return startSecondDateTime(plusDateTime(curr, DateType.SECOND, -interval)).toDate();
+        return new Date(startMillis(plusMillis(curr.getTime(), DateType.SECOND, -interval), DateType.SECOND));
     }
 
     /**
@@ -1651,8 +1680,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevYear(int interval) {
-        return startYearDateTime(plusDateTime(currentDateTime(), DateType.YEAR, -interval))
-            .toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.YEAR, -interval), DateType.YEAR));
     }
 
     /**
@@ -1664,8 +1692,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date StartOfPrevMonth(int interval) {
-        return startMonthDateTime(plusDateTime(currentDateTime(), DateType.MONTH, -interval))
-            .toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.MONTH, -interval), DateType.MONTH));
     }
 
     /**
@@ -1677,8 +1704,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevWeek(int interval) {
-        return startWeekDateTime(plusDateTime(currentDateTime(), DateType.WEEK, -interval))
-            .toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.WEEK, -interval), DateType.WEEK));
     }
 
     /**
@@ -1690,7 +1716,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevDay(int interval) {
-        return startDayDateTime(plusDateTime(currentDateTime(), DateType.DAY, -interval)).toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.DAY, -interval), DateType.DAY));
     }
 
     /**
@@ -1702,8 +1728,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevHour(int interval) {
-        return startHourDateTime(plusDateTime(currentDateTime(), DateType.HOUR, -interval))
-            .toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.HOUR, -interval), DateType.HOUR));
     }
 
     /**
@@ -1715,8 +1740,7 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevMinute(int interval) {
-        return startMinuteDateTime(plusDateTime(currentDateTime(), DateType.MINUTE, -interval))
-            .toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.MINUTE, -interval), DateType.MINUTE));
     }
 
     /**
@@ -1728,31 +1752,29 @@ public class DatetimeUtil {
      * @return the date
      */
     public static Date startOfPrevSecond(int interval) {
-        return startSecondDateTime(plusDateTime(currentDateTime(), DateType.SECOND, -interval))
-            .toDate();
+        return new Date(startMillis(plusMillis(now(), DateType.SECOND, -interval), DateType.SECOND));
     }
 
     protected static int dateDiff(Date beginDate, Date endDate, DateType type) {
-        //Interval interval = new Interval(beginDate.getTime(), endDate.getTime());
-        //Period p = interval.toPeriod();
-        DateTime start =new DateTime(beginDate);
-        DateTime end =new DateTime(endDate);
-        if (DateType.YEAR.equals(endDate)) {
-             return Years.yearsBetween(start, end).getYears();
-        } else if (DateType.MONTH.equals(type)) {
-            return Months.monthsBetween(start, end).getMonths();
-        } else if (DateType.WEEK.equals(type)) {
-            return Weeks.weeksBetween(start, end).getWeeks();
-        } else if (DateType.DAY.equals(type)) {
-            return Days.daysBetween(start, end).getDays();
-        } else if (DateType.HOUR.equals(type)) {
-            return Hours.hoursBetween(start, end).getHours();
-        } else if (DateType.MINUTE.equals(type)) {
-            return Minutes.minutesBetween(start, end).getMinutes();
-        } else if (DateType.SECOND.equals(type)) {
-            return Seconds.secondsBetween(start, end).getSeconds();
-        } else {
-            return 0;
+        long begin = beginDate.getTime();
+        long end = endDate.getTime();
+        switch (type) {
+            case YEAR:
+                return DatetimeMillis.yearsBetween(begin, end);
+            case MONTH:
+                return DatetimeMillis.monthsBetween(begin, end);
+            case WEEK:
+                return DatetimeMillis.weeksBetween(begin, end);
+            case DAY:
+                return DatetimeMillis.daysBetween(begin, end);
+            case HOUR:
+                return DatetimeMillis.hoursBetween(begin, end);
+            case MINUTE:
+                return DatetimeMillis.minutesBetween(begin, end);
+            case SECOND:
+                return DatetimeMillis.secondsBetween(begin, end);
+            default:
+                return 0;
         }
     }
 
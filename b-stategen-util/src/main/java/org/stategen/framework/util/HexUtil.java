@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.util;
+
+/***
+ * 十六进制编码(查表，小写)，以及比较令牌用的固定耗时比较
+ */
+public final class HexUtil {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private HexUtil() {
+    }
+
+    public static String toHex(byte[] bytes) {
+        return toHex(bytes, bytes.length);
+    }
+
+    /***只编码前len个字节*/
+    public static String toHex(byte[] bytes, int len) {
+        char[] chars = new char[len << 1];
+        for (int i = 0, j = 0; i < len; i++) {
+            int b = bytes[i];
+            chars[j++] = HEX_DIGITS[(b >> 4) & 0xF];
+            chars[j++] = HEX_DIGITS[b & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /***
+     * 耗时只与长度有关，与第几个字符不同无关，防止按时间差逐位猜出令牌
+     * 任一为null或expected为空时返回false，空令牌不能与任何值相等
+     */
+    public static boolean equalsConstantTime(String expected, String actual) {
+        if (expected == null || actual == null || expected.isEmpty()) {
+            return false;
+        }
+        int len = expected.length();
+        int diff = len ^ actual.length();
+        for (int i = 0; i < len; i++) {
+            //长度不同时仍然比较完expected,避免按长度提前返回
+            diff |= expected.charAt(i) ^ (i < actual.length() ? actual.charAt(i) : 0);
+        }
+        return diff == 0;
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * 共享的kryo序列化工具，用于深拷贝和缓存值的编码.
+ * kryo不是线程安全的，每个线程持有自己的 Kryo 和可重用的 Output/Input，避免每次创建实例和缓冲区；
+ * 常用类预先注册，注册后的类只写入一个int型id，不再写入类名.
+ * 注册的类按 register 的顺序使用固定的id，与各线程何时开始序列化无关；用于跨进程(如redis)时，各节点需要按相同的顺序调用 register.
+ *
+ * @author XiaZhengsheng
+ */
+public class KryoUtil {
+
+    private static final int                     BUFFER_SIZE       = 4096;
+
+    private static final int                     MAX_BUFFER_SIZE   = 64 * 1024 * 1024;
+
+    /***超过这个大小的缓冲区用完后不保留，避免偶尔的大对象一直占用内存*/
+    private static final int                     MAX_RETAINED_SIZE = 256 * 1024;
+
+    private static final byte[]                  EMPTY             = new byte[0];
+
+    /***kryo自己注册的基本类型占用了较小的id，预注册类的id从这里开始*/
+    private static final int                     FIRST_ID          = 100;
+
+    private static final List<Class<?>>         registeredClasses = new CopyOnWriteArrayList<Class<?>>(Arrays.<Class<?>> asList(
+        ArrayList.class, LinkedList.class, HashMap.class, LinkedHashMap.class, TreeMap.class, HashSet.class, LinkedHashSet.class, Date.class,
+        java.sql.Date.class, java.sql.Timestamp.class, BigDecimal.class, BigInteger.class));
+
+    private static final ThreadLocal<KryoHolder> holders           = ThreadLocal.withInitial(KryoHolder::new);
+
+    static final class KryoHolder {
+        final Kryo  kryo   = new Kryo();
+        final Input input  = new Input();
+        Output      output = new Output(BUFFER_SIZE, MAX_BUFFER_SIZE);
+        int         registeredCount;
+        boolean     inUse;
+
+        /***
+         * 补注册其它线程在本实例创建后新增的类，id由类在 registeredClasses 中的位置决定，与注册时机无关。
+         * 本线程在注册前已经序列化过的类是按类名隐式注册的，kryo.register(Class) 会沿用隐式注册并让后面的id错位，
+         * 所以用 register(Class, Serializer, int) 覆盖
+         */
+        Kryo prepare() {
+            if (registeredCount < registeredClasses.size()) {
+                synchronized (registeredClasses) {
+                    for (int i = registeredCount; i < registeredClasses.size(); i++) {
+                        Class<?> clz = registeredClasses.get(i);
+                        kryo.register(clz, kryo.getDefaultSerializer(clz), FIRST_ID + i);
+                    }
+                    registeredCount = registeredClasses.size();
+                }
+            }
+            return kryo;
+        }
+
+        void release() {
+            if (output.getBuffer().length > MAX_RETAINED_SIZE) {
+                output = new Output(BUFFER_SIZE, MAX_BUFFER_SIZE);
+            }
+            inUse = false;
+        }
+    }
+
+    /***
+     * 预先注册类，通常在启动时注册dto类，注册后序列化结果更小、速度更快
+     */
+    public static void register(Class<?>... classes) {
+        synchronized (registeredClasses) {
+            for (Class<?> clz : classes) {
+                if (!registeredClasses.contains(clz)) {
+                    registeredClasses.add(clz);
+                }
+            }
+        }
+    }
+
+    /***序列化，连同类型一起写入，不要求实现 Serializable*/
+    public static byte[] serialize(Object value) {
+        KryoHolder holder = acquire();
+        try {
+            Output output = holder.output;
+            output.clear();
+            holder.prepare().writeClassAndObject(output, value);
+            return output.toBytes();
+        } finally {
+            holder.release();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T deserialize(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        KryoHolder holder = acquire();
+        try {
+            Input input = holder.input;
+            input.setBuffer(bytes, 0, bytes.length);
+            return (T) holder.prepare().readClassAndObject(input);
+        } finally {
+            holder.input.setBuffer(EMPTY, 0, 0);
+            holder.release();
+        }
+    }
+
+    /***深拷贝，序列化到线程内重用的缓冲区后直接读回，不产生中间 byte[]*/
+    @SuppressWarnings("unchecked")
+    public static <T> T deepCopy(T dest) {
+        if (dest == null) {
+            return null;
+        }
+        KryoHolder holder = acquire();
+        try {
+            Kryo kryo = holder.prepare();
+            Output output = holder.output;
+            output.clear();
+            kryo.writeObject(output, dest);
+            Input input = holder.input;
+            input.setBuffer(output.getBuffer(), 0, output.position());
+            return (T) kryo.readObject(input, dest.getClass());
+        } finally {
+            holder.input.setBuffer(EMPTY, 0, 0);
+            holder.release();
+        }
+    }
+
+    /***序列化过程中再次调用(如自定义 Serializer 内部)时，当前线程的实例正在使用，临时创建一个*/
+    private static KryoHolder acquire() {
+        KryoHolder holder = holders.get();
+        if (holder.inUse) {
+            holder = new KryoHolder();
+        }
+        holder.inUse = true;
+        return holder;
+    }
+}
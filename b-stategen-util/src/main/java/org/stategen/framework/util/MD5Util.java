@@ -16,7 +16,9 @@
  */
 package org.stategen.framework.util;
 
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,7 +30,7 @@ import org.slf4j.LoggerFactory;
 public class MD5Util {
     final static Logger logger = LoggerFactory.getLogger(MD5Util.class);
     private final static String md5="MD5";
-    private final static String utf8="UTF-8";
+    private final static ThreadLocal<MessageDigest> DIGESTS = new ThreadLocal<MessageDigest>();
 
     /***
      * 获得md5 String
@@ -38,15 +40,9 @@ public class MD5Util {
      */
     public static String md5(String dest) {
         try {
-            MessageDigest md = MessageDigest.getInstance(md5);
-            md.update(dest.getBytes(utf8));
-            byte[] digest = md.digest();
-            StringBuilder md5 = new StringBuilder();
-            for (int i = 0; i < digest.length; i++) {
-                md5.append(Character.forDigit((digest[i] & 0xF0) >> 4, 16));
-                md5.append(Character.forDigit((digest[i] & 0xF), 16));
-            }
-            dest = md5.toString();
+            MessageDigest md = getMessageDigest();
+            byte[] digest = md.digest(dest.getBytes(StandardCharsets.UTF_8));
+            dest = HexUtil.toHex(digest);
         } catch (Exception e) {
             logger.error(
                 new StringBuilder("在运行时产生错误信息,此错误信息表示该相应方法已将相关错误catch了，请尽快修复!\n以下是具体错误产生的原因:").append(e.getMessage())
@@ -63,9 +59,17 @@ public class MD5Util {
      * @throws Exception the exception
      */
     public static byte[] md5Byte(String dest) throws Exception {
-        MessageDigest md = MessageDigest.getInstance(md5);
-        md.update(dest.getBytes("UTF-8"));
-        return md.digest();
+        return getMessageDigest().digest(dest.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /***MessageDigest.getInstance 每次都要查找provider，按线程复用，digest后自动reset*/
+    private static MessageDigest getMessageDigest() throws NoSuchAlgorithmException {
+        MessageDigest md = DIGESTS.get();
+        if (md == null) {
+            md = MessageDigest.getInstance(md5);
+            DIGESTS.set(md);
+        }
+        return md;
     }
 
 }
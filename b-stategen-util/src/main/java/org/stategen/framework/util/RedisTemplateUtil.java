@@ -16,11 +16,22 @@
  */
 package org.stategen.framework.util;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
 
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.BoundValueOperations;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
@@ -37,9 +48,38 @@ public final class RedisTemplateUtil {
   
     private static RedisTemplate<String, Object> redisTemplate=null ;
     
+    /** 批量操作时每次往返最多包含的key数量，超过时分多次执行 */
+    private static int batchSize = 500;
+    
+    /** 
+     * KEYS[1] 当前值为 ARGV[2](ARGV[1]为1时要求不存在) 时写入 ARGV[3]，ARGV[4]>0 时同时设置过期秒数 
+     */
+    private static final byte[] COMPARE_AND_SET_SCRIPT = ("local current = redis.call('get', KEYS[1]) "
+                                                          + "if (ARGV[1] == '1' and current == false) or (ARGV[1] == '0' and current == ARGV[2]) then "
+                                                          + "if tonumber(ARGV[4]) > 0 then redis.call('setex', KEYS[1], ARGV[4], ARGV[3]) "
+                                                          + "else redis.call('set', KEYS[1], ARGV[3]) end " 
+                                                          + "return 1 end " 
+                                                          + "return 0").getBytes(StandardCharsets.UTF_8);
+    
+    /** 
+     * KEYS[1] 当前值为 ARGV[1] 时删除，用于释放自己持有的锁 
+     */
+    private static final byte[] COMPARE_AND_DELETE_SCRIPT = ("if redis.call('get', KEYS[1]) == ARGV[1] then "
+                                                             + "return redis.call('del', KEYS[1]) end "
+                                                             + "return 0").getBytes(StandardCharsets.UTF_8);
+    
+    private static final byte[] ZERO  = { '0' };
+    private static final byte[] ONE   = { '1' };
+    private static final byte[] EMPTY = {};
+    
     public void setRedisTemplate(RedisTemplate<String, Object> redisTemplate) {
         RedisTemplateUtil.redisTemplate = redisTemplate;
     }    
+    
+    public void setBatchSize(int batchSize) {
+        Assert.isTrue(batchSize > 0, "batchSize must great than 0");
+        RedisTemplateUtil.batchSize = batchSize;
+    }
   
     /** 
      * 写入缓存 
@@ -101,6 +141,208 @@ public final class RedisTemplateUtil {
         return value;
     }    
     
+    /** 
+     * 读取原始字节，不经过 valueSerializer，由调用方自行反序列化
+     * @param key 
+     * @return 不存在或出错时返回null
+     */  
+    public static byte[] getBytes(final String key) {  
+        try {
+            final byte[] rawKey = rawKey(key);
+            return redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(rawKey));
+        } catch (Exception e) {
+            logger.error(
+                new StringBuilder("redis读取 key\"").append(key).append("\"出错，错误信息：").append(e.getMessage()).append(" \n").toString(), e);
+            return null;
+        }
+    }  
+    
+    /** 
+     * 用 MGET 读取多个key的原始字节，每 batchSize 个key一次往返，返回顺序与 keys 相同，不存在的key对应null
+     * @param keys 
+     * @return 出错时返回null
+     */  
+    public static List<byte[]> multiGetBytes(final List<String> keys) {  
+        try {
+            List<byte[]> result = new ArrayList<byte[]>(keys.size());
+            for (int from = 0; from < keys.size(); from += batchSize) {
+                List<String> batchKeys = keys.subList(from, Math.min(from + batchSize, keys.size()));
+                final byte[][] rawKeys = new byte[batchKeys.size()][];
+                for (int i = 0; i < rawKeys.length; i++) {
+                    rawKeys[i] = rawKey(batchKeys.get(i));
+                }
+                result.addAll(redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.mGet(rawKeys)));
+            }
+            return result;
+        } catch (Exception e) {
+            logger.error(new StringBuilder("redis批量读取出错，key数量：").append(keys.size()).append("，错误信息：").append(e.getMessage()).toString(), e);
+            return null;
+        }
+    }  
+    
+    /** 
+     * 写入原始字节，不经过 valueSerializer 
+     * @param key 
+     * @param value 
+     * @param expireSeconds <=0 时不过期
+     */  
+    public static Boolean putBytes(final String key, final byte[] value, final long expireSeconds) {  
+        try {
+            final byte[] rawKey = rawKey(key);
+            return redisTemplate.execute((RedisCallback<Boolean>) connection -> {
+                setRaw(connection, rawKey, value, expireSeconds);
+                return true;
+            });
+        } catch (Exception e) {
+            logger.error(new StringBuilder("向redis写入 key\"").append(key).append("\"出错，错误信息：").append(e.getMessage()).toString(), e);
+            return false;
+        }
+    }  
+    
+    /** 
+     * 用管道批量写入原始字节，每 batchSize 个key一次往返 
+     * @param values 
+     * @param expireSeconds <=0 时不过期
+     */  
+    public static Boolean multiPutBytes(final Map<String, byte[]> values, final long expireSeconds) {  
+        try {
+            List<Entry<String, byte[]>> entries = new ArrayList<Entry<String, byte[]>>(values.entrySet());
+            for (int from = 0; from < entries.size(); from += batchSize) {
+                final List<Entry<String, byte[]>> batch = entries.subList(from, Math.min(from + batchSize, entries.size()));
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (Entry<String, byte[]> entry : batch) {
+                        setRaw(connection, rawKey(entry.getKey()), entry.getValue(), expireSeconds);
+                    }
+                    return null;
+                });
+            }
+            return true;
+        } catch (Exception e) {
+            logger.error(new StringBuilder("redis批量写入出错，key数量：").append(values.size()).append("，错误信息：").append(e.getMessage()).toString(), e);
+            return false;
+        }
+    }  
+    
+    /** 
+     * 批量读取，每 batchSize 个key一次 MGET，返回顺序与 keys 相同，不存在或反序列化出错的key对应null 
+     * @param keys 
+     * @return 
+     */  
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> multiGet(final List<String> keys) {  
+        List<T> result = new ArrayList<T>(keys.size());
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            List<String> batchKeys = keys.subList(from, Math.min(from + batchSize, keys.size()));
+            List<Object> values = null;
+            try {
+                values = redisTemplate.opsForValue().multiGet(batchKeys);
+            } catch (Exception e) {
+                logger.error(new StringBuilder("redis批量读取出错，key数量：").append(batchKeys.size()).append("，错误信息：").append(e.getMessage()).toString(), e);
+            }
+            if (values != null) {
+                result.addAll((List<T>) values);
+            } else {
+                result.addAll(Collections.<T> nCopies(batchKeys.size(), null));
+            }
+        }
+        return result;
+    }  
+    
+    /** 
+     * 用管道批量写入，所有key使用同一个过期时间 
+     * @param values 
+     * @param expireSeconds <=0 时不过期
+     */  
+    public static Boolean multiPut(final Map<String, ?> values, final long expireSeconds) {  
+        return multiPut(values, key -> expireSeconds);
+    }  
+    
+    /** 
+     * 用管道批量写入，每个key单独的过期时间，每 batchSize 个key一次往返 
+     * @param values 
+     * @param expireSecondsGetter 根据key返回过期秒数，<=0 时不过期
+     */  
+    public static Boolean multiPut(final Map<String, ?> values, final ToLongFunction<String> expireSecondsGetter) {  
+        try {
+            final RedisSerializer<Object> valueSerializer = valueSerializer();
+            List<Entry<String, ?>> entries = new ArrayList<Entry<String, ?>>(values.entrySet());
+            for (int from = 0; from < entries.size(); from += batchSize) {
+                final List<Entry<String, ?>> batch = entries.subList(from, Math.min(from + batchSize, entries.size()));
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (Entry<String, ?> entry : batch) {
+                        String key = entry.getKey();
+                        setRaw(connection, rawKey(key), valueSerializer.serialize(entry.getValue()), expireSecondsGetter.applyAsLong(key));
+                    }
+                    return null;
+                });
+            }
+            return true;
+        } catch (Exception e) {
+            logger.error("向redis批量放置object出错，请检查是否实现了接口Serializable?", e);
+            return false;
+        }
+    }  
+    
+    /** 
+     * 在一个管道内执行多个命令，只有一次往返，返回每个命令的结果 
+     * @param action 
+     * @return 
+     */  
+    public static List<Object> executePipelined(final RedisCallback<?> action) {  
+        return redisTemplate.executePipelined(action);
+    }  
+    
+    /** 
+     * 原子比较并设置，当前值与 expect 相同时(expect为null时要求key不存在)写入 update 
+     * 比较的是序列化后的字节，valueSerializer 需要对相同的值产生相同的字节 
+     * @param key 
+     * @param expect 
+     * @param update 
+     * @param expireSeconds <=0 时不过期
+     * @return 是否写入成功
+     */  
+    public static boolean compareAndSet(final String key, final Object expect, final Object update, final long expireSeconds) {  
+        RedisSerializer<Object> valueSerializer = valueSerializer();
+        return compareAndSetBytes(key, expect != null ? valueSerializer.serialize(expect) : null, valueSerializer.serialize(update), expireSeconds);
+    }  
+    
+    public static boolean compareAndSetBytes(final String key, final byte[] expect, final byte[] update, final long expireSeconds) {  
+        final byte[][] keysAndArgs = new byte[][] { rawKey(key), expect == null ? ONE : ZERO, expect != null ? expect : EMPTY, update,
+                String.valueOf(expireSeconds).getBytes(StandardCharsets.UTF_8) };
+        Boolean result = redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.eval(COMPARE_AND_SET_SCRIPT, ReturnType.BOOLEAN, 1, keysAndArgs));
+        return Boolean.TRUE.equals(result);
+    }  
+    
+    /** 
+     * 原子比较并删除，当前值与 expect 相同时删除，常用于释放自己加的锁 
+     * @param key 
+     * @param expect 
+     * @return 是否删除
+     */  
+    public static boolean compareAndDelete(final String key, final Object expect) {  
+        final byte[][] keysAndArgs = new byte[][] { rawKey(key), valueSerializer().serialize(expect) };
+        Boolean result = redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.eval(COMPARE_AND_DELETE_SCRIPT, ReturnType.BOOLEAN, 1, keysAndArgs));
+        return Boolean.TRUE.equals(result);
+    }  
+    
+    private static void setRaw(RedisConnection connection, byte[] rawKey, byte[] rawValue, long expireSeconds) {
+        if (expireSeconds > 0) {
+            connection.setEx(rawKey, expireSeconds, rawValue);
+        } else {
+            connection.set(rawKey, rawValue);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static RedisSerializer<Object> valueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+    
     public static  long getExpireSeconds(final String key) {  
         return redisTemplate.boundValueOps(key).getExpire();
     }    
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.stategen.framework.lite.ValuedEnum;
+
+/**
+ * ValuedEnum 的只读注册表，供ibatis/mybatis的类型转换使用
+ * 启动时由 ValuedEnumScanner 一次性注册，之后只读，未注册的枚举在第一次查询时补充注册(复制后整体替换，读不加锁)
+ * value全部为int(Integer/Short/Byte)的枚举按数组下标查找，取数据库结果时用getInt，不创建String也不装箱
+ *
+ * @author Xia Zhengsheng
+ */
+public class ValuedEnumRegistry {
+
+    private static volatile Map<Class<?>, EnumTable<?>> tables = Collections.emptyMap();
+
+    /**
+     * 一个枚举类的查找表，创建后不可变.
+     */
+    public static final class EnumTable<E> {
+        /** 连续数组最多允许的空洞倍数，超过时用二分查找 */
+        private static final int     MAX_DENSE_FACTOR = 4;
+        private static final int     MIN_DENSE_SPAN   = 64;
+
+        private final Class<E>       enumClass;
+        private final boolean        intValued;
+        /** value为int时，byInt[value - minValue] */
+        private final int            minValue;
+        private final Object[]       byInt;
+        /** value为int但不连续时，按 sortedValues 二分查找 */
+        private final int[]          sortedValues;
+        private final Object[]       sortedEnums;
+        private final Map<String, E> byValueString;
+        private final Map<String, E> byName;
+
+        EnumTable(Class<E> enumClass) {
+            this.enumClass = enumClass;
+            E[] enumConstants = enumClass.getEnumConstants();
+            Map<String, E> byValueString = new HashMap<String, E>(enumConstants.length * 2);
+            Map<String, E> byName = new HashMap<String, E>(enumConstants.length * 2);
+            boolean intValued = enumConstants.length > 0;
+            int minValue = Integer.MAX_VALUE;
+            int maxValue = Integer.MIN_VALUE;
+            int[] values = new int[enumConstants.length];
+            for (int i = 0; i < enumConstants.length; i++) {
+                E en = enumConstants[i];
+                Object value = ((ValuedEnum<?>) en).getValue();
+                if (value != null) {
+                    byValueString.putIfAbsent(value.toString(), en);
+                }
+                byName.put(((Enum<?>) en).name(), en);
+                if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                    int intValue = ((Number) value).intValue();
+                    values[i] = intValue;
+                    minValue = Math.min(minValue, intValue);
+                    maxValue = Math.max(maxValue, intValue);
+                } else {
+                    intValued = false;
+                }
+            }
+            this.intValued = intValued;
+            this.byValueString = Collections.unmodifiableMap(byValueString);
+            this.byName = Collections.unmodifiableMap(byName);
+
+            if (!intValued) {
+                this.minValue = 0;
+                this.byInt = null;
+                this.sortedValues = null;
+                this.sortedEnums = null;
+                return;
+            }
+
+            long span = (long) maxValue - minValue + 1;
+            if (span <= Math.max(MIN_DENSE_SPAN, (long) enumConstants.length * MAX_DENSE_FACTOR)) {
+                Object[] byInt = new Object[(int) span];
+                for (int i = enumConstants.length - 1; i >= 0; i--) {
+                    //value重复时与byValueString一致，取第一个
+                    byInt[values[i] - minValue] = enumConstants[i];
+                }
+                this.minValue = minValue;
+                this.byInt = byInt;
+                this.sortedValues = null;
+                this.sortedEnums = null;
+            } else {
+                int[] sortedValues = values.clone();
+                Arrays.sort(sortedValues);
+                Object[] sortedEnums = new Object[sortedValues.length];
+                for (int i = 0; i < sortedValues.length; i++) {
+                    sortedEnums[i] = byValueString.get(String.valueOf(sortedValues[i]));
+                }
+                this.minValue = 0;
+                this.byInt = null;
+                this.sortedValues = sortedValues;
+                this.sortedEnums = sortedEnums;
+            }
+        }
+
+        public Class<E> getEnumClass() {
+            return enumClass;
+        }
+
+        /***所有value都是int，可以用 valueOf(int) 查找*/
+        public boolean isIntValued() {
+            return intValued;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E valueOf(int value) {
+            if (byInt != null) {
+                int index = value - minValue;
+                return index >= 0 && index < byInt.length ? (E) byInt[index] : null;
+            }
+            if (sortedValues != null) {
+                int index = Arrays.binarySearch(sortedValues, value);
+                return index >= 0 ? (E) sortedEnums[index] : null;
+            }
+            return null;
+        }
+
+        /***先按value查找，找不到再按枚举名称查找，与 EnumUtil.valueOf 兼容*/
+        public E valueOf(String value) {
+            if (value == null) {
+                return null;
+            }
+            E result = byValueString.get(value);
+            if (result == null) {
+                String trimmed = value.trim();
+                result = byValueString.get(trimmed);
+                if (result == null) {
+                    result = byName.get(trimmed);
+                }
+            }
+            return result;
+        }
+
+        /***
+         * jdbc getObject 取出的值，整数按 valueOf(int) 查找，其它按字符串查找(先value后枚举名称)
+         * 列可能是存放枚举名称的varchar,不能直接用getInt
+         */
+        public E valueOfObject(Object value) {
+            if (value == null) {
+                return null;
+            }
+            if (intValued && (value instanceof Integer || value instanceof Short || value instanceof Byte || value instanceof Long)) {
+                long longValue = ((Number) value).longValue();
+                if ((int) longValue == longValue) {
+                    return valueOf((int) longValue);
+                }
+            }
+            return valueOf(value.toString());
+        }
+
+        public E nameOf(String name) {
+            return name != null ? byName.get(name) : null;
+        }
+    }
+
+    /***批量注册，只替换一次注册表*/
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public static synchronized void register(Collection<Class<? extends ValuedEnum>> valuedEnumClasses) {
+        Map<Class<?>, EnumTable<?>> newTables = new HashMap<Class<?>, EnumTable<?>>(tables);
+        for (Class<? extends ValuedEnum> valuedEnumClass : valuedEnumClasses) {
+            if (valuedEnumClass.isEnum() && !newTables.containsKey(valuedEnumClass)) {
+                newTables.put(valuedEnumClass, new EnumTable(valuedEnumClass));
+            }
+        }
+        tables = Collections.unmodifiableMap(newTables);
+    }
+
+    /***取得枚举的查找表，不是ValuedEnum枚举时返回null*/
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static <E> EnumTable<E> getTable(Class<E> enumClass) {
+        EnumTable<E> table = (EnumTable<E>) tables.get(enumClass);
+        if (table == null && enumClass != null && enumClass.isEnum() && ValuedEnum.class.isAssignableFrom(enumClass)) {
+            register(Collections.<Class<? extends ValuedEnum>> singletonList((Class<? extends ValuedEnum>) enumClass));
+            table = (EnumTable<E>) tables.get(enumClass);
+        }
+        return table;
+    }
+
+    public static <E> E valueOf(Class<E> enumClass, int value) {
+        EnumTable<E> table = getTable(enumClass);
+        return table != null ? table.valueOf(value) : null;
+    }
+
+    public static <E> E valueOf(Class<E> enumClass, String value) {
+        EnumTable<E> table = getTable(enumClass);
+        return table != null ? table.valueOf(value) : null;
+    }
+
+    public static <E> E nameOf(Class<E> enumClass, String name) {
+        EnumTable<E> table = getTable(enumClass);
+        return table != null ? table.nameOf(name) : null;
+    }
+
+}
@@ -16,6 +16,7 @@
  */
 package org.stategen.framework.util;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.stategen.framework.lite.ClassUtil;
@@ -25,21 +26,25 @@ import org.stategen.framework.lite.ValuedEnum;
 /**
  * The Class ValuedEnumScanner.
  * 该类用来配合ibatis将数字int 或其它类型转换为java 枚举，该类可用spring 注册，也可以实例化后调用 setPackages
+ * 扫描到的枚举一次性注册到 ValuedEnumRegistry，之后类型转换时只读
  * @author Xia Zhengsheng
  */
 public class ValuedEnumScanner {
     @SuppressWarnings({ "rawtypes", "unchecked" })
     public  void setPackages(List<String> packages){
         if (CollectionUtil.isNotEmpty(packages)){
+            List<Class<? extends ValuedEnum>> valuedEnumClasses = new ArrayList<Class<? extends ValuedEnum>>();
             for (String packageName : packages) {
                 List<Class<?>> classes = ClassUtil.getClasses(packageName);
                 for (Class<?> clz : classes) {
                     if (ValuedEnum.class.isAssignableFrom(clz)){
                         Class<? extends ValuedEnum> veClass =(Class<? extends ValuedEnum>) clz;
                         EnumUtil.registValuedEnum(veClass);
+                        valuedEnumClasses.add(veClass);
                     }
                 }
             }
+            ValuedEnumRegistry.register(valuedEnumClasses);
         }
     }
 
@@ -0,0 +1,243 @@
+package org.stategen.framework.util;
+
+import java.beans.PropertyDescriptor;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.BeanUtils;
+
+/***
+ * BeanCopier 的复制/合并测试，并与原来每次查找 PropertyDescriptor + Method.invoke 的合并比较耗时
+ * 没有引入jmh,用简单的预热+计时代替，数值只做相对比较
+ */
+public class BeanCopierTst {
+
+    static final int TIMES = 500000;
+
+    public static class User {
+        private Long    userId;
+        private String  name;
+        private int     age;
+        private Boolean vip;
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public void setUserId(Long userId) {
+            this.userId = userId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public Boolean getVip() {
+            return vip;
+        }
+
+        public void setVip(Boolean vip) {
+            this.vip = vip;
+        }
+    }
+
+    public static class UserVo extends User {
+        private String roleName;
+
+        public String getRoleName() {
+            return roleName;
+        }
+
+        public void setRoleName(String roleName) {
+            this.roleName = roleName;
+        }
+    }
+
+    /***非public类，不能生成直接调用，退回反射*/
+    static class HiddenUser {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    static UserVo newUserVo() {
+        UserVo userVo = new UserVo();
+        userVo.setUserId(1L);
+        userVo.setName("niaoge");
+        userVo.setAge(18);
+        userVo.setRoleName("admin");
+        return userVo;
+    }
+
+    @Test
+    public void testCopyAndMerge() {
+        UserVo userVo = newUserVo();
+        User user = CopyUtil.copy(userVo, User.class);
+        Assert.assertEquals(1L, (long) user.getUserId());
+        Assert.assertEquals(18, user.getAge());
+
+        User ignored = CopyUtil.copy(userVo, User.class, "name");
+        Assert.assertNull(ignored.getName());
+
+        //合并时为null的属性不覆盖
+        User target = new User();
+        target.setVip(true);
+        target.setName("old");
+        CopyUtil.merge(target, userVo);
+        Assert.assertEquals(true, target.getVip());
+        Assert.assertEquals("niaoge", target.getName());
+
+        HiddenUser hiddenUser = CopyUtil.copy(userVo, HiddenUser.class);
+        Assert.assertEquals("niaoge", hiddenUser.getName());
+
+        Assert.assertEquals("admin", BeanAccessorUtil.getPropertyValue(userVo, "roleName"));
+        Assert.assertEquals(18, BeanAccessorUtil.getPropertyValue(userVo, "age"));
+        Assert.assertNull(BeanAccessorUtil.getPropertyValue(userVo, "notExists"));
+
+        List<User> users = CopyUtil.copy(Arrays.asList(userVo, newUserVo()), User.class);
+        System.out.println("users.size()<===========>:" + users.size());
+        Assert.assertEquals(2, users.size());
+    }
+
+    /***由子加载器重新定义的 User，对 BeanAccessorUtil 的类加载器不可见，应退回反射*/
+    @Test
+    public void testInvisibleClassLoader() throws Exception {
+        final String className = User.class.getName();
+        ClassLoader childLoader = new ClassLoader(BeanCopierTst.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if (!className.equals(name)) {
+                    return super.loadClass(name, resolve);
+                }
+                synchronized (getClassLoadingLock(name)) {
+                    Class<?> loaded = findLoadedClass(name);
+                    if (loaded == null) {
+                        try (InputStream in = BeanCopierTst.class.getResourceAsStream("/" + name.replace('.', '/') + ".class")) {
+                            ByteArrayOutputStream out = new ByteArrayOutputStream();
+                            byte[] buffer = new byte[4096];
+                            for (int len; (len = in.read(buffer)) > 0;) {
+                                out.write(buffer, 0, len);
+                            }
+                            byte[] bytes = out.toByteArray();
+                            loaded = defineClass(name, bytes, 0, bytes.length);
+                        } catch (IOException e) {
+                            throw new ClassNotFoundException(name, e);
+                        }
+                    }
+                    return loaded;
+                }
+            }
+        };
+        Class<?> hiddenType = childLoader.loadClass(className);
+        Assert.assertNotSame(User.class, hiddenType);
+
+        Object bean = BeanAccessorUtil.instantiator(hiddenType).get();
+        BeanAccessorUtil.setter(hiddenType.getMethod("setName", String.class)).accept(bean, "niaoge");
+        BeanAccessorUtil.setter(hiddenType.getMethod("setAge", int.class)).accept(bean, 18);
+        Assert.assertEquals("niaoge", BeanAccessorUtil.getPropertyValue(bean, "name"));
+        Assert.assertEquals(18, BeanAccessorUtil.getPropertyValue(bean, "age"));
+    }
+
+    @Test
+    public void testStreamAndParallelCopy() {
+        List<UserVo> userVos = new ArrayList<UserVo>();
+        for (int i = 0; i < 50000; i++) {
+            UserVo userVo = newUserVo();
+            userVo.setAge(i);
+            userVos.add(userVo);
+        }
+        Iterator<UserVo> iterator = userVos.iterator();
+        long ageSum = CopyUtil.copyStream(iterator, User.class).mapToLong(User::getAge).sum();
+        Assert.assertEquals(50000L * 49999 / 2, ageSum);
+
+        List<User> streamed = CopyUtil.copyStream(userVos.stream().limit(3), User.class, "name").collect(Collectors.toList());
+        Assert.assertNull(streamed.get(2).getName());
+
+        long begin = System.nanoTime();
+        List<User> serial = CopyUtil.copy(userVos, User.class);
+        long serialNanos = System.nanoTime() - begin;
+        begin = System.nanoTime();
+        List<User> parallel = CopyUtil.parallelCopy(userVos, User.class);
+        long parallelNanos = System.nanoTime() - begin;
+        Assert.assertEquals(serial.size(), parallel.size());
+        for (int i = 0; i < parallel.size(); i++) {
+            Assert.assertEquals(i, parallel.get(i).getAge());
+        }
+        System.out.println("serial ms<===========>:" + serialNanos / 1000000 + " parallel ms<===========>:" + parallelNanos / 1000000);
+    }
+
+    @Test
+    public void testMergeCost() {
+        UserVo userVo = newUserVo();
+        //预热
+        run(userVo, false);
+        run(userVo, true);
+
+        long reflectNanos = run(userVo, false);
+        long copierNanos = run(userVo, true);
+        System.out.println("reflect ns/merge<===========>:" + reflectNanos / TIMES + " BeanCopier ns/merge<===========>:" + copierNanos / TIMES);
+    }
+
+    private static long run(UserVo userVo, boolean compiled) {
+        long begin = System.nanoTime();
+        long sum = 0;
+        for (int i = 0; i < TIMES; i++) {
+            User target = new User();
+            if (compiled) {
+                CopyUtil.merge(target, userVo);
+            } else {
+                reflectMerge(target, userVo);
+            }
+            sum += target.getAge();
+        }
+        Assert.assertEquals(18L * TIMES, sum);
+        return System.nanoTime() - begin;
+    }
+
+    /***原实现：每次查找属性并反射调用*/
+    static void reflectMerge(Object target, Object source) {
+        for (PropertyDescriptor targetPd : BeanUtils.getPropertyDescriptors(target.getClass())) {
+            Method targetWriteMethod = targetPd.getWriteMethod();
+            if (targetWriteMethod != null) {
+                PropertyDescriptor sourcePd = BeanUtils.getPropertyDescriptor(source.getClass(), targetPd.getName());
+                if (sourcePd != null && sourcePd.getReadMethod() != null) {
+                    try {
+                        Object value = sourcePd.getReadMethod().invoke(source);
+                        if (value != null) {
+                            targetWriteMethod.invoke(target, value);
+                        }
+                    } catch (ReflectiveOperationException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.stategen.framework.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/***
+ * ConcurrentCache 的并发正确性与吞吐测试
+ * 没有引入jmh/jcstress，用多线程压测+断言代替，吞吐数值只做相对比较
+ */
+public class ConcurrentCacheTst {
+
+    static final int   CACHE_SIZE      = 1000;
+    static final int   KEY_COUNT       = 4096;
+    static final int   OPS_PER_THREAD  = 1000000;
+    static final int[] THREAD_COUNTS   = { 1, 8, 64 };
+
+    @Test
+    public void testBounded() {
+        ConcurrentCache<Integer, String> cache = new ConcurrentCache<Integer, String>(CACHE_SIZE);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            cache.put(i, String.valueOf(i));
+        }
+        System.out.println("cache.size()<===========>:" + cache.size());
+        System.out.println("cache.getEvictionCount()<===========>:" + cache.getEvictionCount());
+        Assert.assertTrue(cache.size() <= CACHE_SIZE);
+        Assert.assertEquals(KEY_COUNT - cache.size(), cache.getEvictionCount());
+    }
+
+    @Test
+    public void testHotKeyKept() {
+        ConcurrentCache<Integer, String> cache = new ConcurrentCache<Integer, String>(16);
+        cache.put(-1, "hot");
+        for (int i = 0; i < KEY_COUNT; i++) {
+            Assert.assertEquals("hot", cache.get(-1));
+            cache.put(i, String.valueOf(i));
+        }
+        System.out.println("cache.get(-1)<===========>:" + cache.get(-1));
+        Assert.assertEquals("hot", cache.get(-1));
+    }
+
+    /***多线程并发 get/put，任何时刻读到的值必须与 key 对应，大小不超过上限*/
+    @Test
+    public void testConcurrentConsistency() throws InterruptedException {
+        final ConcurrentCache<Integer, String> cache = new ConcurrentCache<Integer, String>(CACHE_SIZE);
+        final AtomicInteger wrongValues = new AtomicInteger();
+        final AtomicInteger maxSize = new AtomicInteger();
+        run(64, (seed, i) -> {
+            Integer key = (i * 31 + seed) & (KEY_COUNT - 1);
+            String value = cache.get(key);
+            if (value == null) {
+                cache.put(key, String.valueOf(key));
+            } else if (!value.equals(String.valueOf(key))) {
+                wrongValues.incrementAndGet();
+            }
+            if ((i & 1023) == 0) {
+                maxSize.accumulateAndGet(cache.size(), Math::max);
+            }
+            return 0;
+        });
+        System.out.println("wrongValues<===========>:" + wrongValues.get());
+        System.out.println("maxSize<===========>:" + maxSize.get());
+        System.out.println("hit/miss/eviction<===========>:" + cache.getHitCount() + "/" + cache.getMissCount() + "/" + cache.getEvictionCount());
+        Assert.assertEquals(0, wrongValues.get());
+        Assert.assertTrue(cache.size() <= CACHE_SIZE);
+    }
+
+    @Test
+    public void testThroughput() throws InterruptedException {
+        final ConcurrentCache<Integer, String> cache = new ConcurrentCache<Integer, String>(CACHE_SIZE);
+        Op op = (seed, i) -> {
+            //热点key(前1/8)占大部分访问
+            Integer key = (i & 7) != 0 ? (i + seed) & 127 : (i * 31 + seed) & (KEY_COUNT - 1);
+            String value = cache.get(key);
+            if (value == null) {
+                value = String.valueOf(key);
+                cache.put(key, value);
+            }
+            return value.length();
+        };
+        for (int threadCount : THREAD_COUNTS) {
+            //预热
+            run(threadCount, op);
+            long ops = run(threadCount, op);
+            System.out.println("threads:" + threadCount + " ops/s<===========>:" + ops);
+        }
+    }
+
+    interface Op {
+        int apply(int seed, int i);
+    }
+
+    private static long run(int threadCount, final Op op) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        final AtomicLong blackHole = new AtomicLong();
+        for (int t = 0; t < threadCount; t++) {
+            final int seed = t;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    long sum = 0;
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        sum += op.apply(seed, i);
+                    }
+                    blackHole.addAndGet(sum);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        return (long) threadCount * OPS_PER_THREAD * 1000000000L / elapsed;
+    }
+}
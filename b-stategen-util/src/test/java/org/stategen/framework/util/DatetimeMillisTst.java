@@ -0,0 +1,283 @@
+package org.stategen.framework.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.text.SimpleDateFormat;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/***
+ * DatetimeMillis 与 java.time 的结果比较(缺省时区及 ZONES 中的几个时区)，以及与原来每次创建 SimpleDateFormat/Calendar 方式的耗时和每次调用分配的字节数比较
+ * 没有引入jmh,用简单的预热+计时代替，分配字节数用 ThreadMXBean 统计，数值只做相对比较
+ */
+public class DatetimeMillisTst {
+
+    static final String[] PATTERNS = { DatetimeUtil.DATE_FORMAT, DatetimeUtil.DATE_FORMAT_CN, DatetimeUtil.TIME_FORMAT, DatetimeUtil.TIME_FORMAT_CN,
+                                       DatetimeUtil.MILLS_FORMAT, DatetimeUtil.MILLS_FORMAT_CN, DatetimeUtil.MONTH_FORMAT, DatetimeUtil.DAY_FORMAT,
+                                       DatetimeUtil.HOUR_FORMAT, "yyyy/M/d H:m:s", "'at' HH'h'" };
+
+    static final int      COUNT    = 1000000;
+
+    /***夏令时在凌晨2点、0点切换(当天没有0点)、切换30分钟，以及历史上有过夏令时的时区*/
+    static final String[] ZONES    = { "Europe/Berlin", "America/New_York", "America/Sao_Paulo", "Australia/Lord_Howe", "Asia/Shanghai" };
+
+    static final long[]   TRANSITION_DELTAS = { -DatetimeMillis.MILLIS_PER_DAY, -DatetimeMillis.MILLIS_PER_HOUR - 1, -DatetimeMillis.MILLIS_PER_HOUR / 2, -1, 0,
+                                              1, DatetimeMillis.MILLIS_PER_HOUR / 2, DatetimeMillis.MILLIS_PER_HOUR, DatetimeMillis.MILLIS_PER_DAY };
+
+    @Test
+    public void testCalculate() {
+        checkCalculate(new DatetimeOps(DatetimeMillis.class), ZoneId.systemDefault(), 200000);
+    }
+
+    @Test
+    public void testFormat() {
+        checkFormat(new DatetimeOps(DatetimeMillis.class), 100000);
+        Assert.assertFalse(DatetimeMillis.isJavaTimeCompatible("yyyy-MM-dd E"));
+        Assert.assertFalse(DatetimeMillis.isJavaTimeCompatible("yyyy-MMM-dd"));
+        Assert.assertEquals(new SimpleDateFormat("yyyy-MMM-dd E").format(new Date(0)), DatetimeMillis.format(0, "yyyy-MMM-dd E"));
+        System.out.println("DatetimeMillis.format(now, TIME_FORMAT)<===========>:" + DatetimeMillis.format(System.currentTimeMillis(), DatetimeUtil.TIME_FORMAT));
+    }
+
+    /***
+     * DatetimeMillis 的时区在类加载时确定，每个时区用新的ClassLoader重新加载一份，在该时区下与 java.time、SimpleDateFormat 比较
+     */
+    @Test
+    public void testZones() {
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        try {
+            for (String zone : ZONES) {
+                TimeZone.setDefault(TimeZone.getTimeZone(zone));
+                DatetimeOps ops = new DatetimeOps(loadInDefaultZone());
+                checkCalculate(ops, ZoneId.of(zone), 50000);
+                checkFormat(ops, 20000);
+                System.out.println("zone<===========>:" + zone + " startOfDay(0)<===========>:" + ops.call("startOfDay", 0L));
+            }
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    private static void checkCalculate(DatetimeOps ops, ZoneId zone, int count) {
+        Random random = new Random(20161018L);
+        long from = ZonedDateTime.of(1971, 1, 1, 0, 0, 0, 0, zone).toInstant().toEpochMilli();
+        long to = ZonedDateTime.of(2099, 1, 1, 0, 0, 0, 0, zone).toInstant().toEpochMilli();
+        for (int i = 0; i < count; i++) {
+            long millis = from + (long) (random.nextDouble() * (to - from));
+            long other = from + (long) (random.nextDouble() * (to - from));
+            int interval = random.nextInt(200) - 100;
+            checkAt(ops, zone, millis, other, interval);
+        }
+        //夏令时切换前后
+        ZoneOffsetTransition transition = zone.getRules().nextTransition(Instant.ofEpochMilli(from));
+        for (; transition != null && transition.getInstant().toEpochMilli() < to; transition = zone.getRules().nextTransition(transition.getInstant())) {
+            long transitionMillis = transition.getInstant().toEpochMilli();
+            for (long delta : TRANSITION_DELTAS) {
+                checkAt(ops, zone, transitionMillis + delta, transitionMillis - delta * 3 + DatetimeMillis.MILLIS_PER_DAY * 40, random.nextInt(200) - 100);
+            }
+        }
+        Assert.assertEquals(1, ops.call("monthsBetween", millis(2016, 1, 31, zone), millis(2016, 2, 29, zone)));
+        Assert.assertEquals(millis(2016, 2, 29, zone), ops.call("plusMonths", millis(2016, 1, 31, zone), 1));
+        try {
+            ops.call("secondsBetween", from, to);
+            Assert.fail("secondsBetween overflow");
+        } catch (ArithmeticException e) {
+            System.out.println("secondsBetween overflow<===========>:" + e.getMessage());
+        }
+    }
+
+    private static void checkAt(DatetimeOps ops, ZoneId zone, long millis, long other, int interval) {
+        ZonedDateTime zdt = Instant.ofEpochMilli(millis).atZone(zone);
+        ZonedDateTime otherZdt = Instant.ofEpochMilli(other).atZone(zone);
+
+        assertMillis(zdt.truncatedTo(ChronoUnit.SECONDS), ops.call("startOfSecond", millis), "startOfSecond", zdt);
+        assertMillis(zdt.truncatedTo(ChronoUnit.MINUTES), ops.call("startOfMinute", millis), "startOfMinute", zdt);
+        assertMillis(zdt.truncatedTo(ChronoUnit.HOURS), ops.call("startOfHour", millis), "startOfHour", zdt);
+        assertMillis(zdt.truncatedTo(ChronoUnit.DAYS), ops.call("startOfDay", millis), "startOfDay", zdt);
+        assertMillis(zdt.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).truncatedTo(ChronoUnit.DAYS), ops.call("startOfWeek", millis),
+            "startOfWeek", zdt);
+        assertMillis(zdt.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS), ops.call("startOfMonth", millis), "startOfMonth", zdt);
+        assertMillis(zdt.withDayOfYear(1).truncatedTo(ChronoUnit.DAYS), ops.call("startOfYear", millis), "startOfYear", zdt);
+
+        assertMillis(zdt.plusSeconds(interval), ops.call("plusSeconds", millis, interval), "plusSeconds", zdt);
+        assertMillis(zdt.plusHours(interval), ops.call("plusHours", millis, interval), "plusHours", zdt);
+        assertMillis(zdt.plusDays(interval), ops.call("plusDays", millis, interval), "plusDays", zdt);
+        assertMillis(zdt.plusWeeks(interval), ops.call("plusWeeks", millis, interval), "plusWeeks", zdt);
+        assertMillis(zdt.plusMonths(interval), ops.call("plusMonths", millis, interval), "plusMonths", zdt);
+        assertMillis(zdt.plusYears(interval / 10), ops.call("plusYears", millis, interval / 10), "plusYears", zdt);
+
+        long seconds = ChronoUnit.SECONDS.between(zdt, otherZdt);
+        if (seconds == (int) seconds) {
+            Assert.assertEquals(seconds, ops.call("secondsBetween", millis, other));
+        }
+        Assert.assertEquals(ChronoUnit.HOURS.between(zdt, otherZdt), ops.call("hoursBetween", millis, other));
+        Assert.assertEquals(ChronoUnit.DAYS.between(zdt, otherZdt), ops.call("daysBetween", millis, other));
+        Assert.assertEquals(ChronoUnit.WEEKS.between(zdt, otherZdt), ops.call("weeksBetween", millis, other));
+        //java.time 在月底(如1月31日至2月28日)不算一个月，joda算，只比较28日以前的
+        if (zdt.getDayOfMonth() <= 28 && otherZdt.getDayOfMonth() <= 28) {
+            Assert.assertEquals(ChronoUnit.MONTHS.between(zdt, otherZdt), ops.call("monthsBetween", millis, other));
+            Assert.assertEquals(ChronoUnit.YEARS.between(zdt, otherZdt), ops.call("yearsBetween", millis, other));
+        }
+    }
+
+    /***与当前缺省时区的 SimpleDateFormat 比较*/
+    private static void checkFormat(DatetimeOps ops, int count) {
+        Random random = new Random(20161018L);
+        for (int i = 0; i < count; i++) {
+            long millis = (long) (random.nextDouble() * 4102444800000L);
+            for (String pattern : PATTERNS) {
+                String expected = new SimpleDateFormat(pattern).format(new Date(millis));
+                Assert.assertEquals(expected, ops.format(millis, pattern));
+                //同一秒的缓存
+                Assert.assertEquals(expected, ops.format(millis, pattern));
+            }
+        }
+    }
+
+    /***用新的ClassLoader加载 DatetimeMillis 及其内部类，其它类仍由原ClassLoader加载*/
+    private static Class<?> loadInDefaultZone() {
+        final String className = DatetimeMillis.class.getName();
+        final ClassLoader parent = DatetimeMillisTst.class.getClassLoader();
+        ClassLoader classLoader = new ClassLoader(parent) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if (!name.equals(className) && !name.startsWith(className + '$')) {
+                    return super.loadClass(name, resolve);
+                }
+                synchronized (getClassLoadingLock(name)) {
+                    Class<?> clz = findLoadedClass(name);
+                    if (clz == null) {
+                        byte[] bytes = readClass(parent, name);
+                        clz = defineClass(name, bytes, 0, bytes.length);
+                    }
+                    return clz;
+                }
+            }
+        };
+        try {
+            return Class.forName(className, true, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] readClass(ClassLoader classLoader, String name) throws ClassNotFoundException {
+        try (InputStream in = classLoader.getResourceAsStream(name.replace('.', '/') + ".class")) {
+            if (in == null) {
+                throw new ClassNotFoundException(name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read; (read = in.read(buffer)) > 0;) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+    }
+
+    /***按名称反射调用某个ClassLoader中的 DatetimeMillis 的public static方法*/
+    static final class DatetimeOps {
+        final Map<String, Method> methods = new HashMap<String, Method>();
+
+        DatetimeOps(Class<?> clz) {
+            for (Method method : clz.getMethods()) {
+                if (Modifier.isStatic(method.getModifiers())) {
+                    methods.put(method.getName() + method.getParameterTypes().length, method);
+                }
+            }
+        }
+
+        Object invoke(String name, Object... args) {
+            Method method = methods.get(name + args.length);
+            try {
+                return method.invoke(null, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getTargetException();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IllegalStateException(cause);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        long call(String name, Object... args) {
+            return ((Number) invoke(name, args)).longValue();
+        }
+
+        String format(long millis, String pattern) {
+            return (String) invoke("format", millis, pattern);
+        }
+    }
+
+    @Test
+    public void testBench() {
+        final long now = System.currentTimeMillis();
+        for (int round = 0; round < 3; round++) {
+            bench("new SimpleDateFormat().format", () -> new SimpleDateFormat(DatetimeUtil.TIME_FORMAT).format(new Date(now)).length());
+            bench("DatetimeMillis.format(now)", () -> DatetimeMillis.format(now, DatetimeUtil.TIME_FORMAT).length());
+            bench("DatetimeMillis.format(mills)", () -> DatetimeMillis.format(now, DatetimeUtil.MILLS_FORMAT).length());
+            bench("Calendar startOfDay", () -> {
+                Calendar calendar = Calendar.getInstance();
+                calendar.setTimeInMillis(now);
+                calendar.set(Calendar.HOUR_OF_DAY, 0);
+                calendar.set(Calendar.MINUTE, 0);
+                calendar.set(Calendar.SECOND, 0);
+                calendar.set(Calendar.MILLISECOND, 0);
+                return (int) calendar.getTimeInMillis();
+            });
+            bench("DatetimeMillis.startOfDay", () -> (int) DatetimeMillis.startOfDay(now));
+            bench("DatetimeMillis.plusMonths", () -> (int) DatetimeMillis.plusMonths(now, 1));
+        }
+    }
+
+    interface Op {
+        int run();
+    }
+
+    private static void bench(String name, Op op) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long sum = 0;
+        long beginBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+        for (int i = 0; i < COUNT; i++) {
+            sum += op.run();
+        }
+        long nanos = System.nanoTime() - begin;
+        long bytes = threadMXBean.getThreadAllocatedBytes(threadId) - beginBytes;
+        System.out.println(name + " ns/op<===========>:" + nanos / COUNT + " bytes/op<===========>:" + bytes / COUNT + " (" + (sum & 1) + ")");
+    }
+
+    private static long millis(int year, int month, int day, ZoneId zone) {
+        return ZonedDateTime.of(year, month, day, 0, 0, 0, 0, zone).toInstant().toEpochMilli();
+    }
+
+    private static void assertMillis(ZonedDateTime expected, long actual, String name, ZonedDateTime source) {
+        if (expected.toInstant().toEpochMilli() != actual) {
+            Assert.fail(name + "(" + source + ") expected:" + expected + " but:" + Instant.ofEpochMilli(actual).atZone(source.getZone()));
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.stategen.framework.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/***
+ * 比较原来每次 new Kryo 的深拷贝与 KryoUtil 的耗时
+ * 没有引入jmh,用简单的预热+计时代替，数值只做相对比较
+ */
+public class KryoUtilTst {
+
+    static final int COPIES = 200000;
+
+    public static class CityDto implements Serializable {
+        private static final long serialVersionUID = 1L;
+        public Long               cityId;
+        public String             name;
+        public BigDecimal         area;
+        public Date               createTime;
+        public List<String>       districts;
+    }
+
+    static CityDto newCity() {
+        CityDto city = new CityDto();
+        city.cityId = 1L;
+        city.name = "Beijing";
+        city.area = new BigDecimal("16410.54");
+        city.createTime = new Date();
+        city.districts = new ArrayList<String>();
+        city.districts.add("Dongcheng");
+        city.districts.add("Xicheng");
+        return city;
+    }
+
+    /***原实现：每次创建 Kryo 和缓冲区*/
+    static <T> T newKryoDeepCopy(T dest) {
+        Kryo kryo = new Kryo();
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        Output output = new Output(bytesOut);
+        kryo.writeObject(output, dest);
+        output.close();
+        Input input = new Input(bytesOut.toByteArray());
+        @SuppressWarnings("unchecked")
+        T result = (T) kryo.readObject(input, dest.getClass());
+        input.close();
+        return result;
+    }
+
+    @Test
+    public void testDeepCopy() {
+        KryoUtil.register(CityDto.class);
+        CityDto city = newCity();
+        CityDto copy = KryoUtil.deepCopy(city);
+        Assert.assertNotSame(city, copy);
+        Assert.assertNotSame(city.districts, copy.districts);
+        Assert.assertEquals(city.name, copy.name);
+        Assert.assertEquals(city.districts, copy.districts);
+
+        CityDto decoded = KryoUtil.deserialize(KryoUtil.serialize(city));
+        Assert.assertEquals(city.area, decoded.area);
+        System.out.println("decoded.name<===========>:" + decoded.name);
+    }
+
+    public static class LateRegisteredA {
+        public int    id = 1;
+    }
+
+    public static class LateRegisteredB {
+        public String name = "b";
+    }
+
+    /***线程在 register 前已经序列化过某个类，register 后各线程的id仍然一致*/
+    @Test
+    public void testLateRegisterAcrossThreads() throws Exception {
+        ExecutorService earlyThread = Executors.newSingleThreadExecutor();
+        try {
+            //earlyThread 按类名隐式注册了 LateRegisteredA
+            earlyThread.submit(() -> KryoUtil.serialize(new LateRegisteredA())).get();
+            KryoUtil.register(LateRegisteredA.class, LateRegisteredB.class);
+
+            final byte[] fromEarly = earlyThread.submit(() -> KryoUtil.serialize(new LateRegisteredB())).get();
+            Object decoded = KryoUtil.deserialize(fromEarly);
+            Assert.assertEquals(LateRegisteredB.class, decoded.getClass());
+
+            final byte[] fromMain = KryoUtil.serialize(new LateRegisteredB());
+            Assert.assertArrayEquals(fromMain, fromEarly);
+            Object decodedOnEarly = earlyThread.submit(() -> KryoUtil.deserialize(fromMain)).get();
+            Assert.assertEquals(LateRegisteredB.class, decodedOnEarly.getClass());
+
+            final byte[] aFromMain = KryoUtil.serialize(new LateRegisteredA());
+            LateRegisteredA a = earlyThread.submit(() -> KryoUtil.<LateRegisteredA> deserialize(aFromMain)).get();
+            Assert.assertEquals(1, a.id);
+        } finally {
+            earlyThread.shutdown();
+        }
+    }
+
+    @Test
+    public void testDeepCopyCost() {
+        KryoUtil.register(CityDto.class);
+        CityDto city = newCity();
+        //预热
+        run(city, false);
+        run(city, true);
+
+        long newKryoNanos = run(city, false);
+        long kryoUtilNanos = run(city, true);
+        System.out.println("new Kryo ns/copy<===========>:" + newKryoNanos / COPIES + " KryoUtil ns/copy<===========>:" + kryoUtilNanos / COPIES);
+    }
+
+    private static long run(CityDto city, boolean pooled) {
+        long begin = System.nanoTime();
+        long sum = 0;
+        for (int i = 0; i < COPIES; i++) {
+            CityDto copy = pooled ? KryoUtil.deepCopy(city) : newKryoDeepCopy(city);
+            sum += copy.districts.size();
+        }
+        Assert.assertEquals((long) COPIES * city.districts.size(), sum);
+        return System.nanoTime() - begin;
+    }
+}
@@ -0,0 +1,125 @@
+package org.stategen.framework.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.stategen.framework.lite.ValuedEnum;
+import org.stategen.framework.util.ValuedEnumRegistry.EnumTable;
+
+/***
+ * ValuedEnumRegistry 的查找正确性，以及100万行取值与原 getString+HashMap 方式的耗时比较
+ * 没有引入jmh,用简单的预热+计时代替，数值只做相对比较
+ */
+public class ValuedEnumRegistryTst {
+
+    static final int ROWS = 1000000;
+
+    enum Status implements ValuedEnum<Integer> {
+        NEW(0), PAID(1), SENT(2), DONE(3), CLOSED(9);
+
+        private Integer value;
+
+        Status(Integer value) {
+            this.value = value;
+        }
+    }
+
+    enum Level implements ValuedEnum<Integer> {
+        LOW(-100000), MIDDLE(0), HIGH(100000);
+
+        private Integer value;
+
+        Level(Integer value) {
+            this.value = value;
+        }
+    }
+
+    enum Color implements ValuedEnum<String> {
+        RED("r"), GREEN("g");
+
+        private String value;
+
+        Color(String value) {
+            this.value = value;
+        }
+    }
+
+    @Test
+    public void testLookup() {
+        ValuedEnumRegistry.register(Arrays.asList(Status.class, Level.class, Color.class));
+
+        EnumTable<Status> statusTable = ValuedEnumRegistry.getTable(Status.class);
+        Assert.assertTrue(statusTable.isIntValued());
+        Assert.assertSame(Status.CLOSED, statusTable.valueOf(9));
+        Assert.assertSame(Status.NEW, statusTable.valueOf(0));
+        Assert.assertNull(statusTable.valueOf(5));
+        Assert.assertNull(statusTable.valueOf(-1));
+        Assert.assertSame(Status.PAID, statusTable.valueOf(" 1"));
+        Assert.assertSame(Status.PAID, statusTable.valueOf("PAID"));
+        //jdbc getObject的结果，varchar列中存放的枚举名称仍能查到
+        Assert.assertSame(Status.CLOSED, statusTable.valueOfObject(Integer.valueOf(9)));
+        Assert.assertSame(Status.CLOSED, statusTable.valueOfObject(Long.valueOf(9)));
+        Assert.assertSame(Status.CLOSED, statusTable.valueOfObject(new java.math.BigDecimal("9")));
+        Assert.assertSame(Status.PAID, statusTable.valueOfObject("PAID"));
+        Assert.assertSame(Status.PAID, statusTable.valueOfObject("1"));
+        Assert.assertNull(statusTable.valueOfObject(Long.valueOf(1L << 32)));
+        Assert.assertNull(statusTable.valueOfObject(null));
+
+        EnumTable<Level> levelTable = ValuedEnumRegistry.getTable(Level.class);
+        Assert.assertTrue(levelTable.isIntValued());
+        Assert.assertSame(Level.LOW, levelTable.valueOf(-100000));
+        Assert.assertSame(Level.HIGH, levelTable.valueOf(100000));
+        Assert.assertNull(levelTable.valueOf(1));
+
+        EnumTable<Color> colorTable = ValuedEnumRegistry.getTable(Color.class);
+        Assert.assertFalse(colorTable.isIntValued());
+        Assert.assertSame(Color.GREEN, colorTable.valueOf("g"));
+        Assert.assertNull(colorTable.valueOf(0));
+
+        Assert.assertNull(ValuedEnumRegistry.getTable(String.class));
+        System.out.println("ValuedEnumRegistry.valueOf(Status.class, 3)<===========>:" + ValuedEnumRegistry.valueOf(Status.class, 3));
+    }
+
+    @Test
+    public void testMappingBench() {
+        int[] cells = new int[ROWS];
+        int[] values = { 0, 1, 2, 3, 9 };
+        for (int i = 0; i < ROWS; i++) {
+            cells[i] = values[i % values.length];
+        }
+
+        //原实现：getter.getString()后按String查HashMap
+        Map<String, Status> byString = new HashMap<String, Status>();
+        for (Status status : Status.values()) {
+            byString.put(status.getValue().toString(), status);
+        }
+        EnumTable<Status> table = ValuedEnumRegistry.getTable(Status.class);
+
+        for (int round = 0; round < 5; round++) {
+            long begin = System.nanoTime();
+            int stringHits = 0;
+            for (int i = 0; i < ROWS; i++) {
+                if (byString.get(String.valueOf(cells[i])) != null) {
+                    stringHits++;
+                }
+            }
+            long stringNanos = System.nanoTime() - begin;
+
+            begin = System.nanoTime();
+            int tableHits = 0;
+            for (int i = 0; i < ROWS; i++) {
+                if (table.valueOf(cells[i]) != null) {
+                    tableHits++;
+                }
+            }
+            long tableNanos = System.nanoTime() - begin;
+            Assert.assertEquals(stringHits, tableHits);
+            System.out.println("round:" + round + " getString+HashMap ms<===========>:" + stringNanos / 1000000 + " getInt+table ms<===========>:"
+                               + tableNanos / 1000000);
+        }
+    }
+
+}
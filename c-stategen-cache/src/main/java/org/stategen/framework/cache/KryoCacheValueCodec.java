@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.cache;
+
+import org.stategen.framework.util.KryoUtil;
+
+/**
+ * *
+ * 用kryo编码二级缓存的值，连同类型一起写入，不要求实现 Serializable.
+ * 与 CopyUtil 的深拷贝共用 KryoUtil 中线程内重用的实例和缓冲区，dto类可通过 KryoUtil.register 预先注册.
+ *
+ * @author XiaZhengsheng
+ */
+public class KryoCacheValueCodec implements CacheValueCodec {
+
+    @Override
+    public byte[] encode(Object value) {
+        return KryoUtil.serialize(value);
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        return KryoUtil.deserialize(bytes);
+    }
+}
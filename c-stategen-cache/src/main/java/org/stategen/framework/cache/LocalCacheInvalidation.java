@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.cache;
+
+import java.io.Serializable;
+import java.util.Set;
+
+/**
+ * *
+ * 写入zookeeper资源节点的按key失效消息，接收方只清除这些key，
+ * 而不是清除 notifyName 下的全部缓存. 节点数据仍为Long时表示整体失效.
+ *
+ * @author XiaZhengsheng
+ */
+class LocalCacheInvalidation implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Long        nanoTime;
+
+    private final Set<Object> keys;
+
+    LocalCacheInvalidation(Long nanoTime, Set<Object> keys) {
+        this.nanoTime = nanoTime;
+        this.keys = keys;
+    }
+
+    public Long getNanoTime() {
+        return nanoTime;
+    }
+
+    public Set<Object> getKeys() {
+        return keys;
+    }
+
+    /***keys为空或超过 LocalCacheZkConfig.maxInvalidationKeys 时退化为整体失效，只写入时间*/
+    static Object build(Long nanoTime, Set<Object> keys) {
+        if (keys == null || keys.isEmpty() || keys.size() > LocalCacheZkConfig.maxInvalidationKeys) {
+            return nanoTime;
+        }
+        return new LocalCacheInvalidation(nanoTime, keys);
+    }
+
+    static Long getNanoTime(Object resourceData) {
+        if (resourceData instanceof LocalCacheInvalidation) {
+            return ((LocalCacheInvalidation) resourceData).getNanoTime();
+        }
+        return (Long) resourceData;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.cache;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * *
+ * 本地一级缓存失效通知的传输层，LocalCacheUtil 通过它广播和接收资源改变.
+ * 默认实现为 ZkLocalCacheInvalidationBus，测试或单机部署可用 LoopbackLocalCacheInvalidationBus.
+ *
+ * @author XiaZhengsheng
+ */
+public interface LocalCacheInvalidationBus {
+
+    /**
+     * 开始监听 notifyName 对应的改变，同一个 notifyName 多次调用只监听一次.
+     *
+     * @param notifyName the resource name
+     * @param listener the listener
+     */
+    void subscribe(String notifyName, LocalCacheInvalidationListener listener);
+
+    /**
+     * 当前已知的资源改变时间，不存在时返回null，已监听的 notifyName 不应产生网络请求.
+     *
+     * @param notifyName the resource name
+     * @return the resource nano
+     */
+    Long getResourceNano(String notifyName);
+
+    /**
+     * 广播资源改变，value为null表示整体失效，否则只失效其中的key.
+     *
+     * @param changedKeys notifyName与改变的key
+     */
+    void publish(Map<String, Set<Object>> changedKeys);
+
+    /**
+     * 删除 notifyName 对应的资源.
+     *
+     * @param notifyName the resource name
+     * @return true, if successful
+     */
+    boolean delete(String notifyName);
+}
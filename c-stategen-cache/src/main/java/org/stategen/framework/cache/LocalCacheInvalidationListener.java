@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.cache;
+
+import java.util.Set;
+
+/**
+ * 接收 LocalCacheInvalidationBus 传来的资源改变.
+ *
+ * @author XiaZhengsheng
+ */
+public interface LocalCacheInvalidationListener {
+
+    /**
+     * Resource changed.
+     *
+     * @param notifyName the resource name
+     * @param nanoTime 资源改变的时间
+     * @param keys 改变的key，为null时表示整体失效
+     */
+    void onResourceChanged(String notifyName, Long nanoTime, Set<Object> keys);
+}
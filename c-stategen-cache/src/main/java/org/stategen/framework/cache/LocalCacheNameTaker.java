@@ -16,7 +16,8 @@
  */
 package org.stategen.framework.cache;
 
-import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.springframework.beans.factory.InitializingBean;
@@ -30,10 +31,36 @@ import org.stategen.framework.util.AssertUtil;
  * @param <T> the generic type
  */
 public class LocalCacheNameTaker<T> extends BaseLocalCacheNameTaker implements InitializingBean {
+    final static org.slf4j.Logger    logger  = org.slf4j.LoggerFactory.getLogger(LocalCacheNameTaker.class);
+
     protected String                 dataNode;
 
     protected ReentrantReadWriteLock rrwLock = new ReentrantReadWriteLock();
 
+    private final LocalCacheStats    stats   = new LocalCacheStats();
+
+    private volatile long            maximumSize;
+
+    private volatile long            maximumWeight;
+
+    private volatile CacheWeigher<T> weigher;
+
+    private volatile long            expireAfterWriteNanos;
+
+    private volatile long            refreshAfterWriteNanos;
+
+    private volatile boolean         staleWhileRevalidate;
+
+    private volatile long            maxStaleNanos;
+
+    /***staleWhileRevalidate 时保留的上一份整体缓存，失效后在刷新完成前继续返回*/
+    private volatile T               lastSnapshot;
+
+    /***发现缓存失效的时间，0表示当前未失效*/
+    private volatile long            staleSinceNanos;
+
+    private final AtomicBoolean      refreshing = new AtomicBoolean();
+
     public LocalCacheNameTaker() {
         super();
     }
@@ -69,89 +96,208 @@ public class LocalCacheNameTaker<T> extends BaseLocalCacheNameTaker implements I
         AssertUtil.mustNotEmpty(dataNode, "data node name must not be null");
     }
 
-    /***直接拿到整个对象，同一个实例不能与 public <K> T get(K key, CacheGenerator<T> generator) 同时使用*/
+    /***直接拿到整个对象，同一个实例不能与 public <K> T get(K key, CacheGenerator<T> generator) 同时使用
+     * 命中时不加锁，只有未命中时才加写锁并二次检查，保证同一时刻只有一个线程生成缓存
+     * 设置了 staleWhileRevalidate 时，缓存失效后先返回上一份数据，由后台线程生成新数据后替换*/
     public T get(CacheGenerator<T> generator) {
-        T cache = null;
-        //读锁锁
-        rrwLock.readLock().lock();
+        T cache = this.getCache();
+        if (cache != null) {
+            stats.recordHit();
+            return cache;
+        }
+        if (staleWhileRevalidate) {
+            cache = getStaleAndRevalidate(generator);
+            if (cache != null) {
+                return cache;
+            }
+        }
+        stats.recordMiss();
+        rrwLock.writeLock().lock();
         try {
             cache = this.getCache();
             if (cache == null) {
-                //读锁解
-                rrwLock.readLock().unlock();
+                long start = System.nanoTime();
                 try {
-                    rrwLock.writeLock().lock();
-                    try {
-                        cache = this.getCache();
-                        if (cache == null) {
-                            cache = generator.generateCache();
-                            this.putToCache(cache);
-                        }
-                    } finally {
-                        rrwLock.writeLock().unlock();
-                    }
-                } finally {
-                    //读锁锁
-                    rrwLock.readLock().lock();
+                    cache = generator.generateCache();
+                } catch (RuntimeException | Error e) {
+                    stats.recordLoadFailure(System.nanoTime() - start);
+                    throw e;
                 }
+                stats.recordLoadSuccess(System.nanoTime() - start);
+                this.putToCache(cache);
+                onSnapshotLoaded(cache);
             }
         } finally {
-            //读锁解
-            rrwLock.readLock().unlock();
+            rrwLock.writeLock().unlock();
         }
         return cache;
     }
 
-    /***根据Key拿取对象，同一个实例不能与 public T get(CacheGenerator<T> generator) 同时使用*/
-    @SuppressWarnings("unchecked")
-    public <K> T get(K key, CacheGenerator<T> generator) {
-        //读锁锁
-        rrwLock.readLock().lock();
-        try {
-            HashMap<K, T> cacheMap = (HashMap<K, T>) this.getCache();
-            if (cacheMap == null) {
-                //读锁解
-                rrwLock.readLock().unlock();
-                try {
-                    rrwLock.writeLock().lock();
+    /***返回上一份数据并触发一次后台刷新，超过 maxStale 或还没有上一份数据时返回null，由调用方同步生成*/
+    private T getStaleAndRevalidate(final CacheGenerator<T> generator) {
+        T stale = lastSnapshot;
+        if (stale == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        long staleSince = staleSinceNanos;
+        if (staleSince == 0L) {
+            staleSinceNanos = now;
+        } else if (maxStaleNanos > 0 && now - staleSince > maxStaleNanos) {
+            return null;
+        }
+        if (refreshing.compareAndSet(false, true)) {
+            LocalCacheUtil.getRefreshExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    long start = System.nanoTime();
                     try {
-                        cacheMap = (HashMap<K, T>) this.getCache();
-                        if (cacheMap == null) {
-                            cacheMap = new HashMap<K, T>();
-                            this.putToCache((T) cacheMap);
-                        }
+                        T cache = generator.generateCache();
+                        long refreshNanos = System.nanoTime() - start;
+                        stats.recordLoadSuccess(refreshNanos);
+                        stats.recordRefresh(refreshNanos);
+                        putToCache(cache);
+                        onSnapshotLoaded(cache);
+                    } catch (RuntimeException e) {
+                        stats.recordLoadFailure(System.nanoTime() - start);
+                        logger.warn(new StringBuilder("后台刷新本地缓存失败,继续使用旧值:").append(getNotifyName()).append(' ').append(dataNode).toString(), e);
                     } finally {
-                        rrwLock.writeLock().unlock();
+                        refreshing.set(false);
                     }
-                } finally {
-                    //读锁锁
-                    rrwLock.readLock().lock();
                 }
-            }
+            });
+        }
+        stats.recordStaleHit();
+        return stale;
+    }
 
-            T partCache = cacheMap.get(key);
-            if (partCache == null) {
-                //读锁解
-                rrwLock.readLock().unlock();
-                try {
-                    if (partCache == null) {
-                        rrwLock.writeLock().lock();
-                        try {
-                            partCache = generator.generateCache();
-                            cacheMap.put(key, partCache);
-                        } finally {
-                            rrwLock.writeLock().unlock();
-                        }
-                    }
-                } finally {
-                    //读锁锁
-                    rrwLock.readLock().lock();
-                }
+    private void onSnapshotLoaded(T cache) {
+        if (staleWhileRevalidate) {
+            lastSnapshot = cache;
+            staleSinceNanos = 0L;
+        }
+    }
+
+    /***根据Key拿取对象，同一个实例不能与 public T get(CacheGenerator<T> generator) 同时使用
+     * 已加载的key读取时不加锁；同一个key并发未命中时共享同一次加载(single-flight)，不同key之间并行加载
+     * 设置了 maximumSize/maximumWeight/expireAfterWrite/refreshAfterWrite 时按其限制*/
+    public <K> T get(K key, CacheGenerator<T> generator) {
+        LocalKeyedCache<K, T> keyedCache = getOrCreateKeyedCache();
+        return keyedCache.get(key, generator);
+    }
+
+    /***按key读取已缓存的值，没有时返回null，不触发加载*/
+    public <K> T getIfPresent(K key) {
+        LocalKeyedCache<K, T> keyedCache = getOrCreateKeyedCache();
+        return keyedCache.getIfPresent(key);
+    }
+
+    /***按key直接放入本地缓存，只影响本节点，其它节点需要另行通知*/
+    public <K> void put(K key, T value) {
+        AssertUtil.mustNotNull(value, "value must not be null");
+        LocalKeyedCache<K, T> keyedCache = getOrCreateKeyedCache();
+        keyedCache.put(key, value);
+    }
+
+    /***按key清除本节点的缓存*/
+    public <K> void invalidate(K key) {
+        LocalKeyedCache<K, T> keyedCache = getOrCreateKeyedCache();
+        keyedCache.invalidate(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K> LocalKeyedCache<K, T> getOrCreateKeyedCache() {
+        Object cache = this.getCache();
+        if (cache != null) {
+            return (LocalKeyedCache<K, T>) cache;
+        }
+        rrwLock.writeLock().lock();
+        try {
+            cache = this.getCache();
+            if (cache == null) {
+                cache = new LocalKeyedCache<K, T>(this);
+                this.putToCache((T) cache);
             }
-            return partCache;
+            return (LocalKeyedCache<K, T>) cache;
         } finally {
-            //读锁解
-            rrwLock.readLock().unlock();
+            rrwLock.writeLock().unlock();
         }
     }
+
+    public LocalCacheStats getStats() {
+        return stats;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /***按key缓存时，每个dataNode最多缓存的条目数，<=0 表示不限制*/
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /***按key缓存时，每个dataNode所有条目 weigher 计算结果之和的上限，<=0 表示不限制*/
+    public void setMaximumWeight(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+    }
+
+    public CacheWeigher<T> getWeigher() {
+        return weigher;
+    }
+
+    public void setWeigher(CacheWeigher<T> weigher) {
+        this.weigher = weigher;
+    }
+
+    public long getExpireAfterWriteNanos() {
+        return expireAfterWriteNanos;
+    }
+
+    /***按key缓存时，条目写入多久后过期，过期后的读取重新加载，<=0 表示不过期*/
+    public void setExpireAfterWriteMillis(long expireAfterWriteMillis) {
+        this.expireAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(expireAfterWriteMillis);
+    }
+
+    public long getRefreshAfterWriteNanos() {
+        return refreshAfterWriteNanos;
+    }
+
+    /***按key缓存时，条目写入多久后在后台异步刷新，刷新完成前仍返回旧值，<=0 表示不刷新*/
+    public void setRefreshAfterWriteMillis(long refreshAfterWriteMillis) {
+        this.refreshAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(refreshAfterWriteMillis);
+    }
+
+    public boolean isStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    /***整体缓存被通知失效后，是否在后台重新生成期间继续返回上一份数据*/
+    public void setStaleWhileRevalidate(boolean staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        if (!staleWhileRevalidate) {
+            lastSnapshot = null;
+        }
+    }
+
+    public long getMaxStaleNanos() {
+        return maxStaleNanos;
+    }
+
+    /***staleWhileRevalidate 时旧数据最多可以返回多久，超过后调用方同步等待生成，<=0 表示不限制*/
+    public void setMaxStaleMillis(long maxStaleMillis) {
+        this.maxStaleNanos = TimeUnit.MILLISECONDS.toNanos(maxStaleMillis);
+    }
+
+    boolean isSizeBounded() {
+        return maximumSize > 0 || maximumWeight > 0;
+    }
+
+    boolean isTimeBounded() {
+        return expireAfterWriteNanos > 0 || refreshAfterWriteNanos > 0;
+    }
 }
@@ -16,6 +16,8 @@
  */
 package org.stategen.framework.cache;
 
+import java.util.Collection;
+
 import org.stategen.framework.util.AssertUtil;
 
 /**
@@ -46,6 +48,25 @@ public class LocalCacheNotifier extends BaseLocalCacheNameTaker {
         LocalCacheUtil.notifyResourceChanged(LocalCacheUtil.buildNotifyName(resourceName, getTableName()));
     }
 
+    /***异步通知，短时间内的多次通知会合并为一次zookeeper写入，适合批量导入等频繁更新的场景*/
+    public void notifyResourceChangedAsync(){
+        LocalCacheUtil.notifyResourceChangedAsync(getNotifyName());
+    }
+
+    public void notifyResourceChangedAsync(String resourceName){
+        AssertUtil.mustNotBlank(resourceName);
+        LocalCacheUtil.notifyResourceChangedAsync(LocalCacheUtil.buildNotifyName(resourceName, getTableName()));
+    }
+
+    /***只通知这些key对应的数据改变，其它节点只清除这些key，key需要可序列化*/
+    public void notifyKeysChanged(Collection<?> keys){
+        LocalCacheUtil.notifyKeysChanged(getNotifyName(), keys);
+    }
+
+    public void notifyKeysChangedAsync(Collection<?> keys){
+        LocalCacheUtil.notifyKeysChangedAsync(getNotifyName(), keys);
+    }
+
     public boolean deleteResourceNode() {
         return LocalCacheUtil.deleteResourceNode(getNotifyName());
     }
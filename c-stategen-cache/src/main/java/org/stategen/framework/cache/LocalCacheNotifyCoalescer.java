@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.cache;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * *
+ * 合并异步的资源改变通知，时间窗口内同一个 notifyName 只广播一次，多个 notifyName 批量写入zookeeper.
+ *
+ * @author XiaZhengsheng
+ */
+class LocalCacheNotifyCoalescer {
+    final static org.slf4j.Logger                         logger    = org.slf4j.LoggerFactory.getLogger(LocalCacheNotifyCoalescer.class);
+
+    /***value为null表示整体失效，否则为窗口内合并的key*/
+    private static final Map<String/*notifyName*/, Set<Object>> pending = new LinkedHashMap<String, Set<Object>>();
+
+    private static final AtomicBoolean                    scheduled = new AtomicBoolean();
+
+    private static final ScheduledExecutorService         scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "localCache-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static void add(String notifyName, Collection<?> keys) {
+        synchronized (pending) {
+            merge(notifyName, keys != null ? new HashSet<Object>(keys) : null);
+        }
+        schedule();
+    }
+
+    private static void merge(String notifyName, Set<Object> keys) {
+        if (!pending.containsKey(notifyName)) {
+            pending.put(notifyName, keys);
+            return;
+        }
+        Set<Object> mergedKeys = pending.get(notifyName);
+        if (mergedKeys == null) {
+            return;
+        }
+        if (keys == null) {
+            pending.put(notifyName, null);
+            return;
+        }
+        mergedKeys.addAll(keys);
+        if (mergedKeys.size() > LocalCacheZkConfig.maxInvalidationKeys) {
+            pending.put(notifyName, null);
+        }
+    }
+
+    private static void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(LocalCacheNotifyCoalescer::flushQuietly, LocalCacheZkConfig.notifyWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("广播本地缓存资源改变失败,稍后重试", e);
+            schedule();
+        }
+    }
+
+    /***发送所有尚未发送的通知，失败的通知放回等待下次发送*/
+    static synchronized void flush() {
+        //先复位，之后加入的通知会重新安排一次发送
+        scheduled.set(false);
+        Map<String, Set<Object>> changedKeys;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            changedKeys = new LinkedHashMap<String, Set<Object>>(pending);
+            pending.clear();
+        }
+        try {
+            LocalCacheUtil.notifyResourcesChanged(changedKeys);
+        } catch (RuntimeException e) {
+            synchronized (pending) {
+                for (Map.Entry<String, Set<Object>> entry : changedKeys.entrySet()) {
+                    merge(entry.getKey(), entry.getValue());
+                }
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地一级缓存的命中/未命中/淘汰等计数，由 LocalCacheNameTaker 持有，zookeeper通知清空缓存后计数依然保留.
+ *
+ * @author XiaZhengsheng
+ */
+public class LocalCacheStats {
+    private final LongAdder hitCount          = new LongAdder();
+    private final LongAdder missCount         = new LongAdder();
+    private final LongAdder evictionCount     = new LongAdder();
+    private final LongAdder loadSuccessCount  = new LongAdder();
+    private final LongAdder loadFailureCount  = new LongAdder();
+    private final LongAdder totalLoadNanos    = new LongAdder();
+    private final LongAdder staleHitCount     = new LongAdder();
+    private final LongAdder refreshCount      = new LongAdder();
+    private final LongAdder totalRefreshNanos = new LongAdder();
+    private volatile long   lastRefreshNanos;
+
+    void recordHit() {
+        hitCount.increment();
+    }
+
+    void recordMiss() {
+        missCount.increment();
+    }
+
+    void recordEviction() {
+        evictionCount.increment();
+    }
+
+    void recordLoadSuccess(long loadNanos) {
+        loadSuccessCount.increment();
+        totalLoadNanos.add(loadNanos);
+    }
+
+    void recordLoadFailure(long loadNanos) {
+        loadFailureCount.increment();
+        totalLoadNanos.add(loadNanos);
+    }
+
+    void recordStaleHit() {
+        staleHitCount.increment();
+    }
+
+    void recordRefresh(long refreshNanos) {
+        refreshCount.increment();
+        totalRefreshNanos.add(refreshNanos);
+        lastRefreshNanos = refreshNanos;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public long getLoadSuccessCount() {
+        return loadSuccessCount.sum();
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount.sum();
+    }
+
+    public long getTotalLoadNanos() {
+        return totalLoadNanos.sum();
+    }
+
+    /***staleWhileRevalidate 时返回旧数据的次数*/
+    public long getStaleHitCount() {
+        return staleHitCount.sum();
+    }
+
+    /***staleWhileRevalidate 时后台刷新成功的次数*/
+    public long getRefreshCount() {
+        return refreshCount.sum();
+    }
+
+    public long getTotalRefreshNanos() {
+        return totalRefreshNanos.sum();
+    }
+
+    public long getLastRefreshNanos() {
+        return lastRefreshNanos;
+    }
+
+    public double getHitRate() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 1.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("LocalCacheStats{hit=").append(getHitCount())
+            .append(", miss=").append(getMissCount())
+            .append(", eviction=").append(getEvictionCount())
+            .append(", loadSuccess=").append(getLoadSuccessCount())
+            .append(", loadFailure=").append(getLoadFailureCount())
+            .append(", totalLoadNanos=").append(getTotalLoadNanos())
+            .append(", staleHit=").append(getStaleHitCount())
+            .append(", refresh=").append(getRefreshCount())
+            .append(", totalRefreshNanos=").append(getTotalRefreshNanos())
+            .append('}').toString();
+    }
+}
@@ -16,27 +16,40 @@
  */
 package org.stategen.framework.cache;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.I0Itec.zkclient.IZkDataListener;
 import org.I0Itec.zkclient.ZkClient;
 import org.I0Itec.zkclient.serialize.SerializableSerializer;
-import org.apache.zookeeper.data.Stat;
+import org.I0Itec.zkclient.serialize.ZkSerializer;
 import org.stategen.framework.util.AssertUtil;
 import org.stategen.framework.util.StringUtil;
 
 /**
  * *
  * 该类用于获得本地一级缓存，接收zookeeper通知清除本地一级缓存等.
+ * 通知的传输由 LocalCacheInvalidationBus 完成，默认为zookeeper.
  *
  * @author XiaZhengsheng
  */
 public class LocalCacheUtil {
-    final static org.slf4j.Logger    logger    = org.slf4j.LoggerFactory.getLogger(ZkResourceDataListener.class);
+    final static org.slf4j.Logger    logger    = org.slf4j.LoggerFactory.getLogger(LocalCacheUtil.class);
     private static Map<String, DataWrapper>   resourceCache = new ConcurrentHashMap<String, DataWrapper>();
     public static ZkClient    zkClient       = null;
-    private static Map<String/*notifyName*/, String/*notifyName*/> dataListenerCache  = new ConcurrentHashMap<String, String>();
+    static final ZkSerializer zkSerializer = new SerializableSerializer();
+    private static volatile LocalCacheInvalidationBus invalidationBus = null;
+    private static volatile Executor refreshExecutor = null;
+    private static final LocalCacheInvalidationListener DATA_WRAPPER_INVALIDATOR = new DataWrapperInvalidator();
 
     /**
      * 本地一级缓存的data封装.
@@ -69,8 +82,107 @@ public class LocalCacheUtil {
         public void clean() {
             dataCache.clear();
         }
+
+        /***按key缓存的dataNode只清除这些key，整体缓存的dataNode无法按key失效，直接清除*/
+        @SuppressWarnings("unchecked")
+        public void invalidateKeys(Collection<Object> keys) {
+            for (Iterator<Map.Entry<String, Object>> it = dataCache.entrySet().iterator(); it.hasNext();) {
+                Object data = it.next().getValue();
+                if (data instanceof LocalKeyedCache) {
+                    LocalKeyedCache<Object, Object> keyedCache = (LocalKeyedCache<Object, Object>) data;
+                    for (Object key : keys) {
+                        keyedCache.invalidate(key);
+                    }
+                } else {
+                    it.remove();
+                }
+            }
+        }
     }
-    
+
+    /**
+     * 收到资源改变后清除本地一级缓存，keys不为空时只清除这些key.
+     */
+    static class DataWrapperInvalidator implements LocalCacheInvalidationListener {
+
+        @Override
+        public void onResourceChanged(String notifyName, Long nanoTime, Set<Object> keys) {
+            DataWrapper dataWrapper = getOrCreateDataWrapper(notifyName);
+            if (nanoTime.equals(dataWrapper.getNanoTime())) {
+                return;
+            }
+            dataWrapper.setNanoTime(nanoTime);
+            if (keys != null) {
+                dataWrapper.invalidateKeys(keys);
+                if (logger.isInfoEnabled()) {
+                    logger.info(new StringBuilder("资源时间改变,本地数据按key失效:").append(notifyName).append("   ").append(nanoTime)
+                        .append("   ").append(keys).toString());
+                }
+                return;
+            }
+            dataWrapper.clean();
+            if (logger.isInfoEnabled()) {
+                logger.info(new StringBuilder("资源时间改变,本地数据失效,将被清除").append(notifyName).append("   ").append(nanoTime).toString());
+            }
+        }
+    }
+
+    /**
+     * 失效通知的传输层，未设置时使用zookeeper.
+     *
+     * @return the invalidation bus
+     */
+    public static LocalCacheInvalidationBus getInvalidationBus() {
+        LocalCacheInvalidationBus bus = invalidationBus;
+        if (bus == null) {
+            synchronized (LocalCacheUtil.class) {
+                bus = invalidationBus;
+                if (bus == null) {
+                    bus = new ZkLocalCacheInvalidationBus();
+                    invalidationBus = bus;
+                }
+            }
+        }
+        return bus;
+    }
+
+    /***需在使用缓存之前设置，之前已监听的 notifyName 不会迁移到新的传输层*/
+    public static void setInvalidationBus(LocalCacheInvalidationBus invalidationBus) {
+        LocalCacheUtil.invalidationBus = invalidationBus;
+    }
+
+    /**
+     * 本地缓存后台刷新用的线程池，未设置时使用守护线程的缓存线程池.
+     *
+     * @return the refresh executor
+     */
+    public static Executor getRefreshExecutor() {
+        Executor executor = refreshExecutor;
+        if (executor == null) {
+            synchronized (LocalCacheUtil.class) {
+                executor = refreshExecutor;
+                if (executor == null) {
+                    executor = newRefreshExecutor();
+                    refreshExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    public static void setRefreshExecutor(Executor executor) {
+        refreshExecutor = executor;
+    }
+
+    private static ExecutorService newRefreshExecutor() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "localCache-refresh-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     public static String buildNotifyName(String notifyName ,String tableName){
         if (StringUtil.isNotEmpty(notifyName) && StringUtil.isNotEmpty(tableName)){
             return new StringBuilder().append(notifyName).append(".").append(tableName).toString();
@@ -104,14 +216,14 @@ public class LocalCacheUtil {
     protected static DataWrapper getOrCreateDataWrapper(String notifyName) {
         DataWrapper dataWrapper = resourceCache.get(notifyName);
         if (dataWrapper == null) {
-            dataWrapper = new DataWrapper();
-            resourceCache.put(notifyName, dataWrapper);
+            dataWrapper = resourceCache.computeIfAbsent(notifyName, k -> new DataWrapper());
         }
         return dataWrapper;
     }
 
     /**
      * Put to cache.
+     * 资源的改变时间由 LocalCacheInvalidationBus 在本地维护，写缓存不产生网络请求
      *
      * @param notifyName the resource name
      * @param dataName the data name
@@ -127,100 +239,110 @@ public class LocalCacheUtil {
         dataWrapper.setNanoTime(resourceNano);
     }
 
-    /**
-     * The listener interface for receiving zkResourceData events.
-     * The class that is interested in processing a zkResourceData
-     * event implements this interface, and the object created
-     * with that class is registered with a component using the
-     * component's <code>addZkResourceDataListener<code> method. When
-     * the zkResourceData event occurs, that object's appropriate
-     * method is invoked.
-     *
-     * @see ZkResourceDataEvent
-     */
-    protected static class ZkResourceDataListener implements IZkDataListener {
-        private String notifyName = null;
-
-        public ZkResourceDataListener(String notifyName) {
-            this.notifyName = notifyName;
-        }
-
-        public void handleDataChange(String dataPath, Object data) throws Exception {
-            DataWrapper dataWrapper = getOrCreateDataWrapper(notifyName);
-            if (!data.equals(dataWrapper.getNanoTime())) {
-                Long nanoTime = (Long) data;
-                dataWrapper.setNanoTime(nanoTime);
-                dataWrapper.clean();
-                if (logger.isInfoEnabled()) {
-                    logger.info(new StringBuilder("dataPath节点时间改变,本地数据失效,将被清除").append(dataPath).append("   ").append(nanoTime).toString());
-                }
-            }
-        }
-
-        public void handleDataDeleted(String dataPath) throws Exception {
-            if (logger.isInfoEnabled()) {
-                logger.info(new StringBuilder("zk dataPath被删除:").append(dataPath).toString());
-            }
-        }
-
-    }
-
     protected static ZkClient getZkClient() {
         if (zkClient == null) {
             AssertUtil.mustNotBlank(LocalCacheZkConfig.zkConnectString, "请配置zookeeper 服务器!");
             zkClient = new ZkClient(LocalCacheZkConfig.zkConnectString, Integer.MAX_VALUE, LocalCacheZkConfig.zkConnectionTimeout,
-                new SerializableSerializer());
+                zkSerializer);
         }
         return zkClient;
     }
 
-    private static String getResourcePath(String notifyName) {
-        return new StringBuilder(LocalCacheZkConfig.rootPath).append(notifyName).toString();
-    }
-
     public static Long getResourceNano(String notifyName) {
-        String resourcePath = getResourcePath(notifyName);
-        ZkClient zClient = getZkClient();
-        if (zClient.exists(resourcePath)) {
-            Stat stat = new Stat();
-            Long nanoTime = zClient.readData(resourcePath, stat);
-            return nanoTime;
-        }
-        return null;
+        return getInvalidationBus().getResourceNano(notifyName);
     }
 
     /**
      * Start listener.
-     * 开始向zookeeper中心监听 notifyName 对应的改变
+     * 开始向注册中心监听 notifyName 对应的改变
      *
      * @param notifyName the resource name
      * @return the long
      */
     public static Long startListener(String notifyName) {
-        ZkClient zClient = getZkClient();
-        String resourcePath = getResourcePath(notifyName);
-        String rsName = dataListenerCache.get(notifyName);
-        if (rsName == null) {
-            zClient.subscribeDataChanges(resourcePath, new org.stategen.framework.cache.LocalCacheUtil.ZkResourceDataListener(notifyName));
-            dataListenerCache.put(notifyName, notifyName);
-        }
-        return getResourceNano(notifyName);
+        LocalCacheInvalidationBus bus = getInvalidationBus();
+        bus.subscribe(notifyName, DATA_WRAPPER_INVALIDATOR);
+        return bus.getResourceNano(notifyName);
     }
 
     /**
      * Notify resource changed.
-     * 向zookeeper注册中心广播 notifyName 对应的资源改变
+     * 向注册中心广播 notifyName 对应的资源改变
      * 
      * @param notifyName the resource name
      */
     public static void notifyResourceChanged(String notifyName) {
-        ZkClient zClient = getZkClient();
-        Long nanoTime = System.nanoTime();
-        String resourcePath = getResourcePath(notifyName);
-        if (!zClient.exists(resourcePath)) {
-            zClient.createPersistent(resourcePath, true);
+        notifyResourcesChanged(Collections.<String, Set<Object>> singletonMap(notifyName, null));
+    }
+
+    /**
+     * 向注册中心批量广播多个 notifyName 对应的资源改变,
+     * zookeeper下每 LocalCacheZkConfig.notifyBatchSize 个路径合并为一次 multi 写入.
+     *
+     * @param notifyNames the resource names
+     */
+    public static void notifyResourcesChanged(Collection<String> notifyNames) {
+        if (notifyNames == null || notifyNames.isEmpty()) {
+            return;
+        }
+        Map<String, Set<Object>> changedKeys = new LinkedHashMap<String, Set<Object>>();
+        for (String notifyName : notifyNames) {
+            changedKeys.put(notifyName, null);
         }
-        zClient.writeData(resourcePath, nanoTime);
+        notifyResourcesChanged(changedKeys);
+    }
+
+    /**
+     * 向注册中心广播 notifyName 下这些key对应的数据改变，其它节点只清除这些key,
+     * key的个数超过 LocalCacheZkConfig.maxInvalidationKeys 时退化为整体清除.
+     * key需要可序列化，并与 LocalCacheNameTaker.get(K, ...) 使用的key相等.
+     *
+     * @param notifyName the resource name
+     * @param keys the changed keys
+     */
+    public static void notifyKeysChanged(String notifyName, Collection<?> keys) {
+        Set<Object> keySet = keys != null ? new HashSet<Object>(keys) : null;
+        notifyResourcesChanged(Collections.singletonMap(notifyName, keySet));
+    }
+
+    /**
+     * 批量广播，value为null表示整体失效，否则只失效其中的key.
+     *
+     * @param changedKeys notifyName与改变的key
+     */
+    static void notifyResourcesChanged(Map<String, Set<Object>> changedKeys) {
+        if (changedKeys.isEmpty()) {
+            return;
+        }
+        getInvalidationBus().publish(changedKeys);
+    }
+
+    /**
+     * 异步广播 notifyName 对应的资源改变，LocalCacheZkConfig.notifyWindowMillis 时间窗口内
+     * 对同一个 notifyName 的多次通知合并为一次，不同 notifyName 合并为一次批量写入.
+     *
+     * @param notifyName the resource name
+     */
+    public static void notifyResourceChangedAsync(String notifyName) {
+        LocalCacheNotifyCoalescer.add(notifyName, null);
+    }
+
+    /**
+     * 异步按key广播，同一窗口内同一个 notifyName 的key合并，有整体通知或key过多时合并为整体失效.
+     *
+     * @param notifyName the resource name
+     * @param keys the changed keys
+     */
+    public static void notifyKeysChangedAsync(String notifyName, Collection<?> keys) {
+        AssertUtil.mustNotEmpty(keys, "keys can not be empty");
+        LocalCacheNotifyCoalescer.add(notifyName, keys);
+    }
+
+    /**
+     * 立即发送所有尚未发送的异步通知，比如应用关闭前调用.
+     */
+    public static void flushResourceChangedAsync() {
+        LocalCacheNotifyCoalescer.flush();
     }
 
     /**
@@ -230,12 +352,7 @@ public class LocalCacheUtil {
      * @return true, if successful
      */
     public static boolean deleteResourceNode(String notifyName) {
-        ZkClient zClient = getZkClient();
-        //删除单独一个节点，返回true表示成功  
-        //        boolean e1 = zkClient.delete("/testUserNode");  
-        //删除含有子节点的节点  
-        String resourcePath = getResourcePath(notifyName);
-        return zClient.deleteRecursive(resourcePath);
+        return getInvalidationBus().delete(notifyName);
     }
 
 }
@@ -28,6 +28,9 @@ public class LocalCacheZkConfig {
     protected static String                               zkConnectString     = null;
     protected static Integer                              zkConnectionTimeout = 10000;
     protected static String                               rootPath            = "/stategen/resourceCache";
+    protected static long                                 notifyWindowMillis  = 200L;
+    protected static int                                  notifyBatchSize     = 100;
+    protected static int                                  maxInvalidationKeys = 256;
     
     public void setRootPath(String rootPath) {
         AssertUtil.mustNotBlank(rootPath, "rootPath can not be empty");
@@ -57,4 +60,37 @@ public class LocalCacheZkConfig {
         }
         LocalCacheZkConfig.zkConnectionTimeout = zkConnectionTimeout;
     }
+
+    /***异步通知的合并窗口，窗口内对同一资源的多次通知只写一次zookeeper*/
+    public void setNotifyWindowMillis(Long notifyWindowMillis) {
+        if (notifyWindowMillis == null || notifyWindowMillis < 0) {
+            logger.warn(new StringBuilder("notifyWindowMillis时间小于0，设置不成功,").append(notifyWindowMillis).toString());
+            return;
+        }
+        LocalCacheZkConfig.notifyWindowMillis = notifyWindowMillis;
+    }
+
+    /***批量通知时每次zookeeper multi最多包含的路径数*/
+    public void setNotifyBatchSize(Integer notifyBatchSize) {
+        if (notifyBatchSize == null || notifyBatchSize <= 0) {
+            logger.warn(new StringBuilder("notifyBatchSize小于等于0，设置不成功,").append(notifyBatchSize).toString());
+            return;
+        }
+        LocalCacheZkConfig.notifyBatchSize = notifyBatchSize;
+    }
+
+    /***按key失效时一条消息最多携带的key数，超过后退化为清除整个资源的缓存*/
+    public void setMaxInvalidationKeys(Integer maxInvalidationKeys) {
+        if (maxInvalidationKeys == null || maxInvalidationKeys < 0) {
+            logger.warn(new StringBuilder("maxInvalidationKeys小于0，设置不成功,").append(maxInvalidationKeys).toString());
+            return;
+        }
+        LocalCacheZkConfig.maxInvalidationKeys = maxInvalidationKeys;
+    }
+
+    /***不使用zookeeper时可设置为 LoopbackLocalCacheInvalidationBus 等其它传输层*/
+    public void setInvalidationBus(LocalCacheInvalidationBus invalidationBus) {
+        AssertUtil.mustNotNull(invalidationBus, "invalidationBus can not be null!");
+        LocalCacheUtil.setInvalidationBus(invalidationBus);
+    }
 }
@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * *
+ * LocalCacheNameTaker 按key缓存时放在 LocalCacheUtil 中的数据结构.
+ * 读取已加载的key不加锁；同一个key并发未命中时共享同一次加载，不同key并行加载；
+ * 可按条目数或权重限制大小(CLOCK近似LRU淘汰)，支持写入后过期和写入后异步刷新.
+ *
+ * @author XiaZhengsheng
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+class LocalKeyedCache<K, V> {
+    final static org.slf4j.Logger                      logger      = org.slf4j.LoggerFactory.getLogger(LocalKeyedCache.class);
+
+    private final LocalCacheNameTaker<V>               owner;
+
+    /***value 为 CacheEntry 或正在加载中的 InflightLoad*/
+    private final ConcurrentHashMap<K, Object>         cacheMap    = new ConcurrentHashMap<K, Object>();
+
+    /***CLOCK淘汰用的环，只有设置了上限才使用*/
+    private final ConcurrentLinkedQueue<CacheEntry<K, V>> clock    = new ConcurrentLinkedQueue<CacheEntry<K, V>>();
+
+    private final AtomicInteger                        clockSize   = new AtomicInteger();
+
+    private final AtomicLong                           size        = new AtomicLong();
+
+    private final AtomicLong                           totalWeight = new AtomicLong();
+
+    private final AtomicBoolean                        evicting    = new AtomicBoolean();
+
+    LocalKeyedCache(LocalCacheNameTaker<V> owner) {
+        this.owner = owner;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(K key, CacheGenerator<V> generator) {
+        LocalCacheStats stats = owner.getStats();
+        Object cached = cacheMap.get(key);
+        while (true) {
+            if (cached instanceof CacheEntry) {
+                CacheEntry<K, V> entry = (CacheEntry<K, V>) cached;
+                long now = owner.isTimeBounded() ? System.nanoTime() : 0L;
+                if (!isExpired(entry, now)) {
+                    entry.referenced = true;
+                    stats.recordHit();
+                    if (needsRefresh(entry, now)) {
+                        scheduleRefresh(entry, generator);
+                    }
+                    return entry.value;
+                }
+                if (cacheMap.remove(key, entry)) {
+                    onRemoved(entry);
+                    stats.recordEviction();
+                }
+                cached = cacheMap.get(key);
+                continue;
+            }
+
+            if (cached == null) {
+                InflightLoad<V> newLoad = new InflightLoad<V>(generator);
+                cached = cacheMap.putIfAbsent(key, newLoad);
+                if (cached == null) {
+                    stats.recordMiss();
+                    return loadAndPublish(key, newLoad);
+                }
+                continue;
+            }
+
+            //其它线程正在加载同一个key，等待其结果
+            stats.recordMiss();
+            return ((InflightLoad<V>) cached).await();
+        }
+    }
+
+    /***只读取已加载且未过期的条目，不触发加载*/
+    @SuppressWarnings("unchecked")
+    V getIfPresent(K key) {
+        Object cached = cacheMap.get(key);
+        if (cached instanceof CacheEntry) {
+            CacheEntry<K, V> entry = (CacheEntry<K, V>) cached;
+            if (!isExpired(entry, owner.isTimeBounded() ? System.nanoTime() : 0L)) {
+                entry.referenced = true;
+                owner.getStats().recordHit();
+                return entry.value;
+            }
+        }
+        owner.getStats().recordMiss();
+        return null;
+    }
+
+    /***直接放入条目，正在进行的同key加载结果将被丢弃*/
+    void put(K key, V value) {
+        CacheEntry<K, V> entry = newEntry(key, value);
+        Object old = cacheMap.put(key, entry);
+        if (old instanceof CacheEntry) {
+            onRemoved(cachedEntry(old));
+        }
+        onAdded(entry);
+    }
+
+    boolean invalidate(K key) {
+        Object cached = cacheMap.remove(key);
+        if (cached instanceof CacheEntry) {
+            onRemoved(cachedEntry(cached));
+            return true;
+        }
+        return cached != null;
+    }
+
+    long size() {
+        return size.get();
+    }
+
+    long weight() {
+        return totalWeight.get();
+    }
+
+    /***由抢到加载权的线程执行加载，成功后用真实值替换占位，失败或为null时移除占位以便下次重新加载*/
+    private V loadAndPublish(K key, InflightLoad<V> load) {
+        boolean published = false;
+        long start = System.nanoTime();
+        try {
+            V partCache = load.load();
+            owner.getStats().recordLoadSuccess(System.nanoTime() - start);
+            if (partCache != null) {
+                CacheEntry<K, V> entry = newEntry(key, partCache);
+                published = cacheMap.replace(key, load, entry);
+                if (published) {
+                    onAdded(entry);
+                }
+            }
+            return partCache;
+        } catch (RuntimeException | Error e) {
+            owner.getStats().recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        } finally {
+            if (!published) {
+                cacheMap.remove(key, load);
+            }
+        }
+    }
+
+    private void scheduleRefresh(final CacheEntry<K, V> entry, final CacheGenerator<V> generator) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        LocalCacheUtil.getRefreshExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                try {
+                    V partCache = generator.generateCache();
+                    owner.getStats().recordLoadSuccess(System.nanoTime() - start);
+                    if (partCache != null) {
+                        CacheEntry<K, V> refreshed = newEntry(entry.key, partCache);
+                        if (cacheMap.replace(entry.key, entry, refreshed)) {
+                            onRemoved(entry);
+                            onAdded(refreshed);
+                            return;
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    owner.getStats().recordLoadFailure(System.nanoTime() - start);
+                    logger.warn(new StringBuilder("刷新本地缓存失败,继续使用旧值:").append(entry.key).toString(), e);
+                }
+                entry.refreshing.set(false);
+            }
+        });
+    }
+
+    private CacheEntry<K, V> newEntry(K key, V value) {
+        CacheWeigher<V> weigher = owner.getWeigher();
+        int weight = weigher != null ? weigher.weigh(key, value) : 1;
+        long writeNanos = owner.isTimeBounded() ? System.nanoTime() : 0L;
+        return new CacheEntry<K, V>(key, value, weight, writeNanos);
+    }
+
+    private boolean isExpired(CacheEntry<K, V> entry, long now) {
+        long expireNanos = owner.getExpireAfterWriteNanos();
+        return expireNanos > 0 && now - entry.writeNanos >= expireNanos;
+    }
+
+    private boolean needsRefresh(CacheEntry<K, V> entry, long now) {
+        long refreshNanos = owner.getRefreshAfterWriteNanos();
+        return refreshNanos > 0 && now - entry.writeNanos >= refreshNanos;
+    }
+
+    private void onAdded(CacheEntry<K, V> entry) {
+        size.incrementAndGet();
+        totalWeight.addAndGet(entry.weight);
+        if (owner.isSizeBounded()) {
+            clock.offer(entry);
+            clockSize.incrementAndGet();
+            evictIfNeeded();
+        }
+    }
+
+    private void onRemoved(CacheEntry<K, V> entry) {
+        size.decrementAndGet();
+        totalWeight.addAndGet(-entry.weight);
+    }
+
+    private boolean isOverLimit() {
+        long maximumSize = owner.getMaximumSize();
+        long maximumWeight = owner.getMaximumWeight();
+        return (maximumSize > 0 && size.get() > maximumSize) || (maximumWeight > 0 && totalWeight.get() > maximumWeight);
+    }
+
+    /***
+     * CLOCK(second chance)淘汰：被读过的条目清除标记后放回队尾，未被读过的条目被淘汰.
+     * 同一时刻只有一个线程在淘汰，其它线程直接返回，不阻塞写入
+     */
+    private void evictIfNeeded() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            //已被替换或删除的条目仍留在环中，过多时顺带清理，保证环的大小与缓存条目数同一量级
+            boolean compact = clockSize.get() > (size.get() << 1) + 16;
+            int budget = compact ? clockSize.get() : Integer.MAX_VALUE;
+            while ((compact && budget-- > 0) || isOverLimit()) {
+                CacheEntry<K, V> entry = clock.poll();
+                if (entry == null) {
+                    break;
+                }
+                clockSize.decrementAndGet();
+                if (cacheMap.get(entry.key) != entry) {
+                    continue;
+                }
+                boolean overLimit = isOverLimit();
+                if (!overLimit || entry.referenced) {
+                    if (overLimit) {
+                        entry.referenced = false;
+                    }
+                    clock.offer(entry);
+                    clockSize.incrementAndGet();
+                    continue;
+                }
+                if (cacheMap.remove(entry.key, entry)) {
+                    onRemoved(entry);
+                    owner.getStats().recordEviction();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private CacheEntry<K, V> cachedEntry(Object cached) {
+        return (CacheEntry<K, V>) cached;
+    }
+
+    /**
+     * 已加载的缓存条目.
+     */
+    static final class CacheEntry<K, V> {
+        final K             key;
+        final V             value;
+        final int           weight;
+        final long          writeNanos;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        volatile boolean    referenced;
+
+        CacheEntry(K key, V value, int weight, long writeNanos) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeNanos = writeNanos;
+        }
+    }
+
+    /**
+     * 正在加载中的key占位，等待者通过FutureTask拿到同一次加载的结果.
+     *
+     * @param <T> the generic type
+     */
+    static class InflightLoad<T> {
+        private final FutureTask<T> task;
+
+        InflightLoad(final CacheGenerator<T> generator) {
+            this.task = new FutureTask<T>(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    return generator.generateCache();
+                }
+            });
+        }
+
+        T load() {
+            task.run();
+            return await();
+        }
+
+        T await() {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return task.get();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.cache;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * *
+ * 进程内的失效通知，广播直接回调本JVM的监听器，不依赖zookeeper.
+ * 用于测试和单机部署.
+ *
+ * @author XiaZhengsheng
+ */
+public class LoopbackLocalCacheInvalidationBus implements LocalCacheInvalidationBus {
+
+    private final Map<String/*notifyName*/, Long>                                                 resourceNanos = new ConcurrentHashMap<String, Long>();
+
+    private final Map<String/*notifyName*/, CopyOnWriteArrayList<LocalCacheInvalidationListener>> listeners     = new ConcurrentHashMap<String, CopyOnWriteArrayList<LocalCacheInvalidationListener>>();
+
+    @Override
+    public void subscribe(String notifyName, LocalCacheInvalidationListener listener) {
+        CopyOnWriteArrayList<LocalCacheInvalidationListener> notifyListeners = listeners.computeIfAbsent(notifyName,
+            k -> new CopyOnWriteArrayList<LocalCacheInvalidationListener>());
+        notifyListeners.addIfAbsent(listener);
+    }
+
+    @Override
+    public Long getResourceNano(String notifyName) {
+        return resourceNanos.get(notifyName);
+    }
+
+    @Override
+    public void publish(Map<String, Set<Object>> changedKeys) {
+        Long nanoTime = System.nanoTime();
+        for (Map.Entry<String, Set<Object>> entry : changedKeys.entrySet()) {
+            String notifyName = entry.getKey();
+            Object resourceData = LocalCacheInvalidation.build(nanoTime, entry.getValue());
+            Set<Object> keys = resourceData instanceof LocalCacheInvalidation ? ((LocalCacheInvalidation) resourceData).getKeys() : null;
+            resourceNanos.put(notifyName, nanoTime);
+            CopyOnWriteArrayList<LocalCacheInvalidationListener> notifyListeners = listeners.get(notifyName);
+            if (notifyListeners != null) {
+                for (LocalCacheInvalidationListener listener : notifyListeners) {
+                    listener.onResourceChanged(notifyName, nanoTime, keys);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean delete(String notifyName) {
+        return resourceNanos.remove(notifyName) != null;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * *
+ * 进程内的二级缓存存储，代替redis，用于测试和单机部署.
+ *
+ * @author XiaZhengsheng
+ */
+public class MemoryRemoteCacheStore implements RemoteCacheStore {
+
+    private final Map<String, StoredValue> values = new ConcurrentHashMap<String, StoredValue>();
+
+    static final class StoredValue {
+        final byte[] value;
+        /***过期的 nanoTime，0表示不过期*/
+        final long   expireAt;
+
+        StoredValue(byte[] value, long expireSeconds) {
+            this.value = value;
+            this.expireAt = expireSeconds > 0 ? System.nanoTime() + TimeUnit.SECONDS.toNanos(expireSeconds) : 0L;
+        }
+    }
+
+    @Override
+    public byte[] get(String key) {
+        StoredValue stored = values.get(key);
+        if (stored == null) {
+            return null;
+        }
+        if (stored.expireAt != 0L && System.nanoTime() - stored.expireAt >= 0) {
+            values.remove(key, stored);
+            return null;
+        }
+        return stored.value;
+    }
+
+    @Override
+    public List<byte[]> multiGet(List<String> keys) {
+        List<byte[]> result = new ArrayList<byte[]>(keys.size());
+        for (String key : keys) {
+            result.add(get(key));
+        }
+        return result;
+    }
+
+    @Override
+    public void put(String key, byte[] value, long expireSeconds) {
+        values.put(key, new StoredValue(value, expireSeconds));
+    }
+
+    @Override
+    public void multiPut(Map<String, byte[]> values, long expireSeconds) {
+        for (Entry<String, byte[]> entry : values.entrySet()) {
+            put(entry.getKey(), entry.getValue(), expireSeconds);
+        }
+    }
+
+    @Override
+    public void delete(Collection<String> keys) {
+        for (String key : keys) {
+            values.remove(key);
+        }
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
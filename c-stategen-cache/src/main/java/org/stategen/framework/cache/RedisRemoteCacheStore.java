@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.stategen.framework.util.RedisTemplateUtil;
+
+/**
+ * *
+ * 通过 RedisTemplateUtil 访问redis的二级缓存存储，读写原始字节，不经过 RedisTemplate 的 valueSerializer.
+ *
+ * @author XiaZhengsheng
+ */
+public class RedisRemoteCacheStore implements RemoteCacheStore {
+
+    @Override
+    public byte[] get(String key) {
+        return RedisTemplateUtil.getBytes(key);
+    }
+
+    @Override
+    public List<byte[]> multiGet(List<String> keys) {
+        return RedisTemplateUtil.multiGetBytes(keys);
+    }
+
+    @Override
+    public void put(String key, byte[] value, long expireSeconds) {
+        RedisTemplateUtil.putBytes(key, value, expireSeconds);
+    }
+
+    @Override
+    public void multiPut(Map<String, byte[]> values, long expireSeconds) {
+        RedisTemplateUtil.multiPutBytes(values, expireSeconds);
+    }
+
+    @Override
+    public void delete(Collection<String> keys) {
+        RedisTemplateUtil.del(keys.toArray(new String[keys.size()]));
+    }
+}
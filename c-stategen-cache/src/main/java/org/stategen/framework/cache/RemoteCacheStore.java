@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * *
+ * 二级缓存的远程存储，存取的都是 CacheValueCodec 编码后的字节.
+ * 默认实现为 RedisRemoteCacheStore，测试或单机部署可用 MemoryRemoteCacheStore.
+ *
+ * @author XiaZhengsheng
+ */
+public interface RemoteCacheStore {
+
+    /**
+     * 读取一个key，不存在时返回null.
+     *
+     * @param key the key
+     * @return the bytes
+     */
+    byte[] get(String key);
+
+    /**
+     * 一次往返读取多个key，返回顺序与 keys 相同，不存在的key对应null.
+     *
+     * @param keys the keys
+     * @return the values
+     */
+    List<byte[]> multiGet(List<String> keys);
+
+    /**
+     * 写入一个key.
+     *
+     * @param key the key
+     * @param value the value
+     * @param expireSeconds <=0 时不过期
+     */
+    void put(String key, byte[] value, long expireSeconds);
+
+    /**
+     * 写入多个key.
+     *
+     * @param values the values
+     * @param expireSeconds <=0 时不过期
+     */
+    void multiPut(Map<String, byte[]> values, long expireSeconds);
+
+    /**
+     * 删除多个key.
+     *
+     * @param keys the keys
+     */
+    void delete(Collection<String> keys);
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.stategen.framework.util.AssertUtil;
+import org.stategen.framework.util.CollectionUtil;
+
+/**
+ * *
+ * 两级缓存：本地一级缓存(LocalCacheNameTaker按key缓存) + 远程二级缓存(默认redis).
+ * 读取时依次查一级、二级，都没有才调用 generator 生成，生成的值写入两级缓存；
+ * 写入或删除时同时修改二级缓存，并通过 LocalCacheUtil 通知所有节点清除一级缓存中的这些key.
+ * 二级缓存中的值由 CacheValueCodec 编码，默认用kryo，不使用jdk序列化.
+ *
+ * @author XiaZhengsheng
+ * @param <T> the generic type
+ */
+public class TwoLevelCacheTaker<T> implements InitializingBean {
+    final static org.slf4j.Logger        logger        = org.slf4j.LoggerFactory.getLogger(TwoLevelCacheTaker.class);
+
+    private final LocalCacheNameTaker<T> localCache;
+
+    private final LocalCacheStats        remoteStats   = new LocalCacheStats();
+
+    private RemoteCacheStore             remoteStore   = new RedisRemoteCacheStore();
+
+    private CacheValueCodec              codec         = new KryoCacheValueCodec();
+
+    private long                         expireSeconds = 3600;
+
+    private volatile String              keyPrefix;
+
+    public TwoLevelCacheTaker() {
+        this.localCache = new LocalCacheNameTaker<T>();
+    }
+
+    public TwoLevelCacheTaker(String notifyName, String tableName, String dataNode) {
+        this.localCache = new LocalCacheNameTaker<T>(notifyName, tableName, dataNode);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        localCache.afterPropertiesSet();
+        AssertUtil.mustNotNull(remoteStore, "remote store must not be null");
+        AssertUtil.mustNotNull(codec, "codec must not be null");
+    }
+
+    /***依次从一级、二级缓存读取，都没有时由 generator 生成并写入两级缓存，同一节点同一个key同时只生成一次*/
+    public <K> T get(final K key, final CacheGenerator<T> generator) {
+        return localCache.get(key, () -> getFromRemote(key, generator));
+    }
+
+    /***批量读取，一级缓存未命中的key一次批量从二级缓存读取，仍未命中的key一次调用 generator 生成
+     * 返回的map按 keys 的顺序，不存在的key不在map中*/
+    public <K> Map<K, T> getAll(Collection<K> keys, CacheBatchGenerator<K, T> generator) {
+        if (CollectionUtil.isEmpty(keys)) {
+            return new LinkedHashMap<K, T>(0);
+        }
+        Map<K, T> found = new HashMap<K, T>(keys.size());
+        List<K> localMissed = new ArrayList<K>();
+        for (K key : keys) {
+            T value = localCache.getIfPresent(key);
+            if (value != null) {
+                found.put(key, value);
+            } else {
+                localMissed.add(key);
+            }
+        }
+
+        if (!localMissed.isEmpty()) {
+            List<K> remoteMissed = getAllFromRemote(localMissed, found);
+            if (!remoteMissed.isEmpty() && generator != null) {
+                generateAll(remoteMissed, generator, found);
+            }
+        }
+
+        Map<K, T> result = new LinkedHashMap<K, T>(found.size());
+        for (K key : keys) {
+            T value = found.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /***写入两级缓存，并通知其它节点清除一级缓存中的这个key*/
+    public <K> void put(K key, T value) {
+        AssertUtil.mustNotNull(value, "value must not be null");
+        remoteStore.put(buildRemoteKey(key), codec.encode(value), expireSeconds);
+        LocalCacheUtil.notifyKeysChanged(localCache.getNotifyName(), Collections.singleton(key));
+        localCache.put(key, value);
+    }
+
+    /***从两级缓存中删除，并通知所有节点清除一级缓存中的这些key*/
+    public <K> void evict(Collection<K> keys) {
+        if (CollectionUtil.isEmpty(keys)) {
+            return;
+        }
+        List<String> remoteKeys = new ArrayList<String>(keys.size());
+        for (K key : keys) {
+            remoteKeys.add(buildRemoteKey(key));
+        }
+        remoteStore.delete(remoteKeys);
+        LocalCacheUtil.notifyKeysChanged(localCache.getNotifyName(), keys);
+        for (K key : keys) {
+            localCache.invalidate(key);
+        }
+    }
+
+    public <K> void evict(K key) {
+        evict(Collections.singleton(key));
+    }
+
+    private <K> T getFromRemote(K key, CacheGenerator<T> generator) {
+        String remoteKey = buildRemoteKey(key);
+        T value = decode(remoteStore.get(remoteKey), remoteKey);
+        if (value != null) {
+            remoteStats.recordHit();
+            return value;
+        }
+        remoteStats.recordMiss();
+        long start = System.nanoTime();
+        try {
+            value = generator.generateCache();
+        } catch (RuntimeException | Error e) {
+            remoteStats.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+        remoteStats.recordLoadSuccess(System.nanoTime() - start);
+        if (value != null) {
+            remoteStore.put(remoteKey, codec.encode(value), expireSeconds);
+        }
+        return value;
+    }
+
+    /***二级缓存命中的值放入 found 和一级缓存，返回仍未命中的key，二级缓存出错时视为全部未命中*/
+    private <K> List<K> getAllFromRemote(List<K> keys, Map<K, T> found) {
+        List<String> remoteKeys = new ArrayList<String>(keys.size());
+        for (K key : keys) {
+            remoteKeys.add(buildRemoteKey(key));
+        }
+        List<byte[]> remoteValues = remoteStore.multiGet(remoteKeys);
+        if (remoteValues == null) {
+            remoteValues = Collections.emptyList();
+        }
+        List<K> remoteMissed = new ArrayList<K>();
+        for (int i = 0; i < keys.size(); i++) {
+            K key = keys.get(i);
+            T value = i < remoteValues.size() ? decode(remoteValues.get(i), remoteKeys.get(i)) : null;
+            if (value != null) {
+                remoteStats.recordHit();
+                localCache.put(key, value);
+                found.put(key, value);
+            } else {
+                remoteStats.recordMiss();
+                remoteMissed.add(key);
+            }
+        }
+        return remoteMissed;
+    }
+
+    private <K> void generateAll(List<K> keys, CacheBatchGenerator<K, T> generator, Map<K, T> found) {
+        long start = System.nanoTime();
+        Map<K, T> generated;
+        try {
+            generated = generator.generateCaches(keys);
+        } catch (RuntimeException | Error e) {
+            remoteStats.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+        remoteStats.recordLoadSuccess(System.nanoTime() - start);
+        if (CollectionUtil.isEmpty(generated)) {
+            return;
+        }
+        Map<String, byte[]> remoteValues = new LinkedHashMap<String, byte[]>(generated.size());
+        for (Entry<K, T> entry : generated.entrySet()) {
+            T value = entry.getValue();
+            if (value != null) {
+                remoteValues.put(buildRemoteKey(entry.getKey()), codec.encode(value));
+                localCache.put(entry.getKey(), value);
+                found.put(entry.getKey(), value);
+            }
+        }
+        if (!remoteValues.isEmpty()) {
+            remoteStore.multiPut(remoteValues, expireSeconds);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T decode(byte[] bytes, String remoteKey) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return (T) codec.decode(bytes);
+        } catch (RuntimeException e) {
+            //类已经修改等原因导致不能解码时，当作未命中，重新生成后覆盖
+            logger.error(new StringBuilder("二级缓存解码出错，当作未命中:").append(remoteKey).toString(), e);
+            return null;
+        }
+    }
+
+    private String buildRemoteKey(Object key) {
+        String prefix = keyPrefix;
+        if (prefix == null) {
+            prefix = new StringBuilder(localCache.getNotifyName()).append(':').append(localCache.getDataNode()).append(':').toString();
+            keyPrefix = prefix;
+        }
+        return prefix + key;
+    }
+
+    /***一级缓存，可设置 maximumSize、expireAfterWriteMillis 等*/
+    public LocalCacheNameTaker<T> getLocalCache() {
+        return localCache;
+    }
+
+    public LocalCacheStats getLocalStats() {
+        return localCache.getStats();
+    }
+
+    /***二级缓存的命中/未命中，load 为调用 generator 生成的次数*/
+    public LocalCacheStats getRemoteStats() {
+        return remoteStats;
+    }
+
+    public void setNotifyName(String notifyName) {
+        localCache.setNotifyName(notifyName);
+        keyPrefix = null;
+    }
+
+    public void setTableName(String tableName) {
+        localCache.setTableName(tableName);
+        keyPrefix = null;
+    }
+
+    public void setDataNode(String dataNode) {
+        localCache.setDataNode(dataNode);
+        keyPrefix = null;
+    }
+
+    public RemoteCacheStore getRemoteStore() {
+        return remoteStore;
+    }
+
+    public void setRemoteStore(RemoteCacheStore remoteStore) {
+        this.remoteStore = remoteStore;
+    }
+
+    public CacheValueCodec getCodec() {
+        return codec;
+    }
+
+    public void setCodec(CacheValueCodec codec) {
+        this.codec = codec;
+    }
+
+    public long getExpireSeconds() {
+        return expireSeconds;
+    }
+
+    /***二级缓存的过期时间，<=0 表示不过期*/
+    public void setExpireSeconds(long expireSeconds) {
+        this.expireSeconds = expireSeconds;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.I0Itec.zkclient.IZkDataListener;
+import org.I0Itec.zkclient.ZkClient;
+import org.I0Itec.zkclient.serialize.ZkSerializer;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.data.Stat;
+
+/**
+ * *
+ * 基于zookeeper的失效通知，每个 notifyName 对应 rootPath 下的一个节点.
+ * 资源改变时间和节点版本缓存在本地，只在订阅时和watch触发时读取zookeeper，写缓存不再产生网络请求.
+ *
+ * @author XiaZhengsheng
+ */
+public class ZkLocalCacheInvalidationBus implements LocalCacheInvalidationBus {
+    final static org.slf4j.Logger                        logger               = org.slf4j.LoggerFactory.getLogger(ZkLocalCacheInvalidationBus.class);
+
+    private final Map<String/*notifyName*/, ResourceState> resourceStates       = new ConcurrentHashMap<String, ResourceState>();
+
+    /***已确认在zookeeper中存在的资源路径，避免每次通知都调用 exists*/
+    private final Set<String/*resourcePath*/>            existedResourcePaths = ConcurrentHashMap.newKeySet();
+
+    /**
+     * notifyName 在本地缓存的资源状态.
+     */
+    static class ResourceState {
+        private volatile Long nanoTime;
+        /***最近一次看到的zookeeper节点版本，-1表示未知，版本不连续时不能只按key失效*/
+        private volatile int  version = -1;
+    }
+
+    @Override
+    public void subscribe(String notifyName, LocalCacheInvalidationListener listener) {
+        if (resourceStates.containsKey(notifyName)) {
+            return;
+        }
+        synchronized (this) {
+            if (resourceStates.containsKey(notifyName)) {
+                return;
+            }
+            ZkClient zClient = LocalCacheUtil.getZkClient();
+            String resourcePath = getResourcePath(notifyName);
+            ResourceState state = new ResourceState();
+            zClient.subscribeDataChanges(resourcePath, new ZkResourceDataListener(notifyName, state, listener));
+            Stat stat = new Stat();
+            Object resourceData = readResourceData(zClient, resourcePath, stat);
+            if (resourceData != null) {
+                state.nanoTime = LocalCacheInvalidation.getNanoTime(resourceData);
+                state.version = stat.getVersion();
+            }
+            resourceStates.put(notifyName, state);
+        }
+    }
+
+    @Override
+    public Long getResourceNano(String notifyName) {
+        ResourceState state = resourceStates.get(notifyName);
+        if (state != null) {
+            return state.nanoTime;
+        }
+        Object resourceData = readResourceData(LocalCacheUtil.getZkClient(), getResourcePath(notifyName), new Stat());
+        return resourceData != null ? LocalCacheInvalidation.getNanoTime(resourceData) : null;
+    }
+
+    /***单个资源直接写入，多个资源每 LocalCacheZkConfig.notifyBatchSize 个路径合并为一次 zookeeper multi 写入*/
+    @Override
+    public void publish(Map<String, Set<Object>> changedKeys) {
+        if (changedKeys.isEmpty()) {
+            return;
+        }
+        ZkClient zClient = LocalCacheUtil.getZkClient();
+        Long nanoTime = System.nanoTime();
+        if (changedKeys.size() == 1) {
+            Map.Entry<String, Set<Object>> entry = changedKeys.entrySet().iterator().next();
+            String resourcePath = getResourcePath(entry.getKey());
+            ensureResourcePath(zClient, resourcePath);
+            try {
+                zClient.writeData(resourcePath, LocalCacheInvalidation.build(nanoTime, entry.getValue()));
+            } catch (RuntimeException e) {
+                //节点可能已被其它地方删除，下次重新检查
+                existedResourcePaths.remove(resourcePath);
+                throw e;
+            }
+            return;
+        }
+
+        ZkSerializer zkSerializer = LocalCacheUtil.zkSerializer;
+        byte[] nanoTimeBytes = zkSerializer.serialize(nanoTime);
+        int batchSize = LocalCacheZkConfig.notifyBatchSize;
+        List<Op> ops = new ArrayList<Op>(Math.min(changedKeys.size(), batchSize));
+        List<String> resourcePaths = new ArrayList<String>(ops.size());
+        for (Map.Entry<String, Set<Object>> entry : changedKeys.entrySet()) {
+            String resourcePath = getResourcePath(entry.getKey());
+            ensureResourcePath(zClient, resourcePath);
+            Object resourceData = LocalCacheInvalidation.build(nanoTime, entry.getValue());
+            byte[] dataBytes = resourceData == nanoTime ? nanoTimeBytes : zkSerializer.serialize(resourceData);
+            ops.add(Op.setData(resourcePath, dataBytes, -1));
+            resourcePaths.add(resourcePath);
+            if (ops.size() >= batchSize) {
+                multi(zClient, ops, resourcePaths);
+            }
+        }
+        if (!ops.isEmpty()) {
+            multi(zClient, ops, resourcePaths);
+        }
+    }
+
+    @Override
+    public boolean delete(String notifyName) {
+        ZkClient zClient = LocalCacheUtil.getZkClient();
+        //删除含有子节点的节点  
+        String resourcePath = getResourcePath(notifyName);
+        existedResourcePaths.remove(resourcePath);
+        return zClient.deleteRecursive(resourcePath);
+    }
+
+    private void multi(ZkClient zClient, List<Op> ops, List<String> resourcePaths) {
+        try {
+            zClient.multi(ops);
+        } catch (RuntimeException e) {
+            //节点可能已被其它地方删除，下次重新检查
+            existedResourcePaths.removeAll(resourcePaths);
+            throw e;
+        } finally {
+            ops.clear();
+            resourcePaths.clear();
+        }
+    }
+
+    private void ensureResourcePath(ZkClient zClient, String resourcePath) {
+        if (!existedResourcePaths.contains(resourcePath)) {
+            if (!zClient.exists(resourcePath)) {
+                zClient.createPersistent(resourcePath, true);
+            }
+            existedResourcePaths.add(resourcePath);
+        }
+    }
+
+    private static Object readResourceData(ZkClient zClient, String resourcePath, Stat stat) {
+        if (zClient.exists(resourcePath)) {
+            return zClient.readData(resourcePath, stat);
+        }
+        return null;
+    }
+
+    private static String getResourcePath(String notifyName) {
+        return new StringBuilder(LocalCacheZkConfig.rootPath).append(notifyName).toString();
+    }
+
+    /**
+     * 监听zookeeper节点改变，更新本地的资源状态后回调 LocalCacheInvalidationListener.
+     */
+    static class ZkResourceDataListener implements IZkDataListener {
+        private final String                         notifyName;
+        private final ResourceState                  state;
+        private final LocalCacheInvalidationListener listener;
+
+        ZkResourceDataListener(String notifyName, ResourceState state, LocalCacheInvalidationListener listener) {
+            this.notifyName = notifyName;
+            this.state = state;
+            this.listener = listener;
+        }
+
+        public void handleDataChange(String dataPath, Object data) throws Exception {
+            //重新读取以拿到节点版本，zookeeper的watch可能合并多次写入，版本不连续时中间的key无从得知
+            Stat stat = new Stat();
+            int version = -1;
+            try {
+                data = LocalCacheUtil.getZkClient().readData(dataPath, stat);
+                version = stat.getVersion();
+            } catch (RuntimeException e) {
+                logger.warn(new StringBuilder("读取zk dataPath版本失败,将整体清除:").append(dataPath).toString(), e);
+            }
+            if (data == null) {
+                return;
+            }
+            Long nanoTime = LocalCacheInvalidation.getNanoTime(data);
+            if (nanoTime.equals(state.nanoTime)) {
+                return;
+            }
+            int lastVersion = state.version;
+            state.nanoTime = nanoTime;
+            state.version = version;
+            Set<Object> keys = null;
+            if (data instanceof LocalCacheInvalidation && lastVersion >= 0 && version == lastVersion + 1) {
+                keys = ((LocalCacheInvalidation) data).getKeys();
+            }
+            listener.onResourceChanged(notifyName, nanoTime, keys);
+        }
+
+        public void handleDataDeleted(String dataPath) throws Exception {
+            state.version = -1;
+            if (logger.isInfoEnabled()) {
+                logger.info(new StringBuilder("zk dataPath被删除:").append(dataPath).toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.stategen.framework.cachetst;
+
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.stategen.framework.cache.CacheGenerator;
+import org.stategen.framework.cache.LocalCacheNameTaker;
+import org.stategen.framework.cache.LocalCacheUtil;
+import org.stategen.framework.cache.LoopbackLocalCacheInvalidationBus;
+
+/***
+ * 比较 LocalCacheNameTaker.get(K, CacheGenerator) 与原读写锁实现在 1/8/64 线程下的读吞吐
+ * 没有引入jmh,用简单的预热+计时代替，数值只做相对比较
+ */
+public class LocalCacheNameTakerBenchTst {
+
+    static final int   KEY_COUNT        = 1024;
+    static final int   READS_PER_THREAD = 2000000;
+    static final int[] THREAD_COUNTS    = { 1, 8, 64 };
+
+    interface KeyedReader {
+        String read(Integer key);
+    }
+
+    /***原实现：整个taker共用一个读写锁，生成缓存时持有写锁*/
+    static class RwLockKeyedCache {
+        ReentrantReadWriteLock  rrwLock  = new ReentrantReadWriteLock();
+        HashMap<Integer, String> cacheMap = new HashMap<Integer, String>();
+
+        String get(Integer key, CacheGenerator<String> generator) {
+            rrwLock.readLock().lock();
+            try {
+                String partCache = cacheMap.get(key);
+                if (partCache == null) {
+                    rrwLock.readLock().unlock();
+                    try {
+                        rrwLock.writeLock().lock();
+                        try {
+                            partCache = generator.generateCache();
+                            cacheMap.put(key, partCache);
+                        } finally {
+                            rrwLock.writeLock().unlock();
+                        }
+                    } finally {
+                        rrwLock.readLock().lock();
+                    }
+                }
+                return partCache;
+            } finally {
+                rrwLock.readLock().unlock();
+            }
+        }
+    }
+
+    @Before
+    public void beforeTst() {
+        LocalCacheUtil.setInvalidationBus(new LoopbackLocalCacheInvalidationBus());
+    }
+
+    @Test
+    public void testReadThroughput() throws InterruptedException {
+        final RwLockKeyedCache rwLockKeyedCache = new RwLockKeyedCache();
+        final LocalCacheNameTaker<String> nameTaker = new LocalCacheNameTaker<String>("appapi", "bench", "keyed");
+
+        KeyedReader rwLockReader = key -> rwLockKeyedCache.get(key, () -> String.valueOf(key));
+        KeyedReader singleFlightReader = key -> nameTaker.get(key, () -> String.valueOf(key));
+
+        for (int threadCount : THREAD_COUNTS) {
+            //预热
+            run(rwLockReader, threadCount);
+            run(singleFlightReader, threadCount);
+
+            long rwLockOps = run(rwLockReader, threadCount);
+            long singleFlightOps = run(singleFlightReader, threadCount);
+            System.out.println("threads:" + threadCount + " rwLock ops/s<===========>:" + rwLockOps + " singleFlight ops/s<===========>:"
+                               + singleFlightOps);
+        }
+    }
+
+    private static long run(final KeyedReader reader, int threadCount) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        final AtomicLong blackHole = new AtomicLong();
+        for (int t = 0; t < threadCount; t++) {
+            final int seed = t;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    long sum = 0;
+                    for (int i = 0; i < READS_PER_THREAD; i++) {
+                        sum += reader.read((i + seed) & (KEY_COUNT - 1)).length();
+                    }
+                    blackHole.addAndGet(sum);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        return (long) threadCount * READS_PER_THREAD * 1000000000L / elapsed;
+    }
+}
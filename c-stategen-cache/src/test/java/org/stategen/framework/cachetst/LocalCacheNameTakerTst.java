@@ -0,0 +1,137 @@
+package org.stategen.framework.cachetst;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.stategen.framework.cache.LocalCacheNameTaker;
+import org.stategen.framework.cache.LocalCacheUtil;
+import org.stategen.framework.cache.LoopbackLocalCacheInvalidationBus;
+
+/***
+ * LocalCacheNameTaker 的single-flight加载：并发未命中只加载一次，加载失败时异常抛给所有等待者且不缓存
+ */
+public class LocalCacheNameTakerTst {
+
+    static final int THREAD_COUNT = 16;
+
+    @Before
+    public void beforeTst() {
+        LocalCacheUtil.setInvalidationBus(new LoopbackLocalCacheInvalidationBus());
+    }
+
+    @Test
+    public void testKeyedSingleFlight() throws Exception {
+        final LocalCacheNameTaker<String> nameTaker = new LocalCacheNameTaker<String>("appapi", "singleFlight", "keyed");
+        final AtomicInteger loadCount = new AtomicInteger();
+        List<String> results = runConcurrently(() -> nameTaker.get(1, () -> {
+            loadCount.incrementAndGet();
+            sleep(200);
+            return "one";
+        }));
+        System.out.println("keyed loadCount<===========>:" + loadCount.get());
+        Assert.assertEquals(1, loadCount.get());
+        for (String result : results) {
+            Assert.assertEquals("one", result);
+        }
+
+        //已加载后不再调用加载
+        Assert.assertEquals("one", nameTaker.get(1, () -> "other"));
+        Assert.assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testKeyedLoadFailure() throws Exception {
+        final LocalCacheNameTaker<String> nameTaker = new LocalCacheNameTaker<String>("appapi", "singleFlight", "keyedFailure");
+        final AtomicInteger loadCount = new AtomicInteger();
+        List<String> results = runConcurrently(() -> nameTaker.get(1, () -> {
+            loadCount.incrementAndGet();
+            sleep(200);
+            throw new IllegalStateException("load failed");
+        }));
+        System.out.println("keyed failure loadCount<===========>:" + loadCount.get() + " results<===========>:" + results);
+        Assert.assertEquals(1, loadCount.get());
+        for (String result : results) {
+            Assert.assertEquals("IllegalStateException:load failed", result);
+        }
+
+        //失败的加载不缓存，下一次重新加载
+        Assert.assertNull(nameTaker.getIfPresent(1));
+        Assert.assertEquals("two", nameTaker.get(1, () -> {
+            loadCount.incrementAndGet();
+            return "two";
+        }));
+        Assert.assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testWholeSingleFlight() throws Exception {
+        final LocalCacheNameTaker<String> nameTaker = new LocalCacheNameTaker<String>("appapi", "singleFlight", "whole");
+        final AtomicInteger loadCount = new AtomicInteger();
+        List<String> results = runConcurrently(() -> nameTaker.get(() -> {
+            loadCount.incrementAndGet();
+            sleep(200);
+            return "all";
+        }));
+        Assert.assertEquals(1, loadCount.get());
+        for (String result : results) {
+            Assert.assertEquals("all", result);
+        }
+
+        final LocalCacheNameTaker<String> failTaker = new LocalCacheNameTaker<String>("appapi", "singleFlight", "wholeFailure");
+        try {
+            failTaker.get(() -> {
+                throw new IllegalStateException("load failed");
+            });
+            Assert.fail("加载异常应抛出");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("load failed", e.getMessage());
+        }
+        Assert.assertNull(failTaker.getCache());
+        Assert.assertEquals("again", failTaker.get(() -> "again"));
+    }
+
+    /***所有线程同时开始，返回每个线程的结果，抛出异常的记为 异常类名:消息*/
+    private static List<String> runConcurrently(final Callable<String> callable) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<Future<String>>(THREAD_COUNT);
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return callable.call();
+            }));
+        }
+        start.countDown();
+        List<String> results = new ArrayList<String>(THREAD_COUNT);
+        for (Future<String> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                results.add(cause.getClass().getSimpleName() + ":" + cause.getMessage());
+            }
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        return results;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
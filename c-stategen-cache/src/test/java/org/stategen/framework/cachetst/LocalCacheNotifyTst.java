@@ -1,5 +1,37 @@
 package org.stategen.framework.cachetst;
 
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.stategen.framework.cache.LocalCacheNameTaker;
+import org.stategen.framework.cache.LocalCacheNotifier;
+import org.stategen.framework.cache.LocalCacheUtil;
+import org.stategen.framework.cache.LoopbackLocalCacheInvalidationBus;
+
 public class LocalCacheNotifyTst {
 
+    @Before
+    public void beforeTst() {
+        LocalCacheUtil.setInvalidationBus(new LoopbackLocalCacheInvalidationBus());
+    }
+
+    @Test
+    public void testNotifyKeysChanged() {
+        final String city = "city";
+        LocalCacheNameTaker<String> nameTaker = new LocalCacheNameTaker<String>("appapi", city, "byId");
+        nameTaker.get(1L, () -> "Beijing");
+        nameTaker.get(2L, () -> "Shanghai");
+
+        LocalCacheNotifier localCacheNotifier = new LocalCacheNotifier("appapi", city);
+        localCacheNotifier.notifyKeysChanged(Arrays.asList(1L));
+
+        Assert.assertEquals("Peking", nameTaker.get(1L, () -> "Peking"));
+        Assert.assertEquals("Shanghai", nameTaker.get(2L, () -> "Hu"));
+
+        localCacheNotifier.notifyResourceChanged();
+        Assert.assertEquals("Hu", nameTaker.get(2L, () -> "Hu"));
+        System.out.println("stats<===========>:" + nameTaker.getStats());
+    }
 }
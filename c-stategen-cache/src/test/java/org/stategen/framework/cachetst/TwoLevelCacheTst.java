@@ -0,0 +1,96 @@
+package org.stategen.framework.cachetst;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.stategen.framework.cache.LocalCacheUtil;
+import org.stategen.framework.cache.LoopbackLocalCacheInvalidationBus;
+import org.stategen.framework.cache.MemoryRemoteCacheStore;
+import org.stategen.framework.cache.TwoLevelCacheTaker;
+
+/***
+ * 两级缓存测试，用 MemoryRemoteCacheStore 代替redis，LoopbackLocalCacheInvalidationBus 代替zookeeper
+ * 一级缓存是进程内共享的，用失效通知清空一级缓存来模拟其它节点的读取
+ */
+public class TwoLevelCacheTst {
+
+    MemoryRemoteCacheStore remoteStore;
+
+    @Before
+    public void beforeTst() {
+        LocalCacheUtil.setInvalidationBus(new LoopbackLocalCacheInvalidationBus());
+        remoteStore = new MemoryRemoteCacheStore();
+    }
+
+    private TwoLevelCacheTaker<String> newCacheTaker(String dataNode) {
+        TwoLevelCacheTaker<String> cacheTaker = new TwoLevelCacheTaker<String>("appapi", "city", dataNode);
+        cacheTaker.setRemoteStore(remoteStore);
+        return cacheTaker;
+    }
+
+    @Test
+    public void testReadThrough() {
+        final AtomicInteger loads = new AtomicInteger();
+        TwoLevelCacheTaker<String> cacheTaker = newCacheTaker("readThrough");
+        Assert.assertEquals("Beijing", cacheTaker.get(1L, () -> {
+            loads.incrementAndGet();
+            return "Beijing";
+        }));
+        Assert.assertEquals("Beijing", cacheTaker.get(1L, () -> "wrong"));
+
+        //一级缓存中没有时从二级缓存读取，不再生成
+        LocalCacheUtil.notifyResourceChanged(cacheTaker.getLocalCache().getNotifyName());
+        Assert.assertEquals("Beijing", cacheTaker.get(1L, () -> "wrong"));
+        System.out.println("remoteStore.size()<===========>:" + remoteStore.size());
+        System.out.println("cacheTaker.getLocalStats()<===========>:" + cacheTaker.getLocalStats());
+        System.out.println("cacheTaker.getRemoteStats()<===========>:" + cacheTaker.getRemoteStats());
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, cacheTaker.getLocalStats().getHitCount());
+        Assert.assertEquals(1, cacheTaker.getRemoteStats().getHitCount());
+        Assert.assertEquals(1, cacheTaker.getRemoteStats().getMissCount());
+    }
+
+    @Test
+    public void testGetAll() {
+        TwoLevelCacheTaker<String> cacheTaker = newCacheTaker("getAll");
+        cacheTaker.put(1L, "Beijing");
+        final AtomicInteger batchLoads = new AtomicInteger();
+        Map<Long, String> result = cacheTaker.getAll(Arrays.asList(1L, 2L, 3L), keys -> {
+            batchLoads.incrementAndGet();
+            Assert.assertEquals(Arrays.asList(2L, 3L), keys);
+            Map<Long, String> generated = new HashMap<Long, String>();
+            generated.put(2L, "Shanghai");
+            return generated;
+        });
+        System.out.println("result<===========>:" + result);
+        Assert.assertEquals(Arrays.asList(1L, 2L), Arrays.asList(result.keySet().toArray()));
+        Assert.assertEquals(1, batchLoads.get());
+
+        //一级缓存清空后从二级缓存批量读取
+        LocalCacheUtil.notifyResourceChanged(cacheTaker.getLocalCache().getNotifyName());
+        result = cacheTaker.getAll(Arrays.asList(1L, 2L), keys -> {
+            throw new IllegalStateException("should read from remote store");
+        });
+        Assert.assertEquals("Shanghai", result.get(2L));
+        System.out.println("cacheTaker.getRemoteStats()<===========>:" + cacheTaker.getRemoteStats());
+    }
+
+    @Test
+    public void testPutAndEvict() {
+        TwoLevelCacheTaker<String> cacheTaker = newCacheTaker("byId");
+        Assert.assertEquals("Beijing", cacheTaker.get(1L, () -> "Beijing"));
+
+        cacheTaker.put(1L, "Peking");
+        Assert.assertEquals("Peking", cacheTaker.get(1L, () -> "wrong"));
+        LocalCacheUtil.notifyResourceChanged(cacheTaker.getLocalCache().getNotifyName());
+        Assert.assertEquals("Peking", cacheTaker.get(1L, () -> "wrong"));
+
+        cacheTaker.evict(1L);
+        Assert.assertEquals("Jing", cacheTaker.get(1L, () -> "Jing"));
+    }
+}
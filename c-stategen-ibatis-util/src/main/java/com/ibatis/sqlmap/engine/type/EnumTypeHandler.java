@@ -7,17 +7,24 @@ import java.sql.SQLException;
 
 import org.stategen.framework.lite.ValuedEnum;
 import org.stategen.framework.util.EnumUtil;
+import org.stategen.framework.util.ValuedEnumRegistry;
+import org.stategen.framework.util.ValuedEnumRegistry.EnumTable;
 
 /**
  * String implementation of TypeHandler
  * 该类用于覆盖ibatis中原有的EnumTypeHandler,当值为非string时，如1,2,3,ibatis无法获取和存取枚举，需要用该类来转换.
+ * value为int的ValuedEnum用getObject取值，整数按 ValuedEnumRegistry 中的数组下标查找，存放枚举名称的字符串列仍按名称查找.
  */
 public class EnumTypeHandler<T extends Enum<T>> extends BaseTypeHandler implements TypeHandler {
 
     private Class<T> type;
+
+    /** 不是ValuedEnum时为null */
+    private final EnumTable<T> table;
     
     public EnumTypeHandler(Class<T> type) {
         this.type = type;
+        this.table = ValuedEnumRegistry.getTable(type);
     }
 
     public void setParameter(PreparedStatement ps, int i, Object parameter, String jdbcType) throws SQLException {
@@ -30,6 +37,13 @@ public class EnumTypeHandler<T extends Enum<T>> extends BaseTypeHandler implemen
     }
 
     public Object getResult(ResultSet rs, String columnName) throws SQLException {
+        if (table != null && table.isIntValued()) {
+            Object value = rs.getObject(columnName);
+            if (value == null || value instanceof Number || value instanceof String) {
+                return table.valueOfObject(value);
+            }
+            return table.valueOf(rs.getString(columnName));
+        }
         Object s = rs.getString(columnName);
         if (rs.wasNull()) {
             return null;
@@ -39,10 +53,20 @@ public class EnumTypeHandler<T extends Enum<T>> extends BaseTypeHandler implemen
     }
 
     public Object getResultFormValuedCache(Object s) {
+        if (table != null) {
+            return table.valueOf((String) s);
+        }
         return EnumUtil.valueOf(type, (String) s);
     }
 
     public Object getResult(ResultSet rs, int columnIndex) throws SQLException {
+        if (table != null && table.isIntValued()) {
+            Object value = rs.getObject(columnIndex);
+            if (value == null || value instanceof Number || value instanceof String) {
+                return table.valueOfObject(value);
+            }
+            return table.valueOf(rs.getString(columnIndex));
+        }
         Object s = rs.getString(columnIndex);
         if (rs.wasNull()) {
             return null;
@@ -18,10 +18,11 @@ package org.stategen.framework.ibatis.typehandler;
 
 import java.sql.SQLException;
 import java.sql.Types;
-import java.util.HashMap;
 import java.util.Map;
 
 import org.stategen.framework.lite.ValuedEnum;
+import org.stategen.framework.util.ValuedEnumRegistry;
+import org.stategen.framework.util.ValuedEnumRegistry.EnumTable;
 
 import com.ibatis.sqlmap.client.extensions.ParameterSetter;
 import com.ibatis.sqlmap.client.extensions.ResultGetter;
@@ -30,14 +31,15 @@ import com.ibatis.sqlmap.client.extensions.TypeHandlerCallback;
 /**
  * **
  * 该类由于技术改进，暂时不用到.
+ * 枚举的查找表在 ValuedEnumRegistry 中，只读，value为int的枚举取出整数时按数组下标查找，取出字符串时仍可按枚举名称查找
  *
  * @author XiaZhengsheng
  */
 public abstract class AbstractValuedObjectCallback implements TypeHandlerCallback {
     
     public abstract <T> Class<T>  getValuedClass();
-    
-    static Map<Class<? extends ValuedEnum<?>>,ValueAndNameHolder<?>> VALUED_MAPPING = new HashMap<>();
+
+    private volatile EnumTable<?> table;
     
     public static boolean isEmpty(Map<?, ?> map){
         return map==null || map.isEmpty();
@@ -53,10 +55,18 @@ public abstract class AbstractValuedObjectCallback implements TypeHandlerCallbac
     }
 
     public Object getResult(ResultGetter getter) throws SQLException {
-        Object result = null;
-        String value = getter.getString();
-        result=valueOf(getValuedClass(),value);
-        return result;
+        EnumTable<?> enumTable = getTable();
+        if (enumTable == null) {
+            return null;
+        }
+        if (enumTable.isIntValued()) {
+            Object value = getter.getObject();
+            if (value == null || value instanceof Number || value instanceof String) {
+                return enumTable.valueOfObject(value);
+            }
+            return enumTable.valueOf(getter.getString());
+        }
+        return enumTable.valueOf(getter.getString());
     }
 
     public Object valueOf(String name) {
@@ -64,64 +74,37 @@ public abstract class AbstractValuedObjectCallback implements TypeHandlerCallbac
         result = nameOf(getValuedClass(), name);
         return result;
     }
-    
-    /**
-     * The Class ValueAndNameHolder.
-     */
-    static class ValueAndNameHolder<T>{
-        Map<String, ValuedEnum<T>> valueStringMapping =new HashMap<>();
-        Map<String, ValuedEnum<T>> nameStringMapping =new HashMap<>();
-        
-        ValuedEnum<T> valueOf(String value) {
-            if (!isEmpty(valueStringMapping)) {
-                return valueStringMapping.get(value);
-            }
-            return null;
-        }
-        
-        ValuedEnum<T> nameOf( String name) {
-            if (!isEmpty(nameStringMapping)) {
-                return nameStringMapping.get(name);
-            }
-            return null;
-        }       
-        
-        void registValues(ValuedEnum<T>[] values){
-            for (ValuedEnum<T> en : values) {
-                Object value = en.getValue();
-                valueStringMapping.put(value == null ? null : value.toString(), en);
-                nameStringMapping.put(en.toString(), en);
-            }
+
+    private EnumTable<?> getTable() {
+        EnumTable<?> enumTable = table;
+        if (enumTable == null) {
+            enumTable = ValuedEnumRegistry.getTable(getValuedClass());
+            table = enumTable;
         }
+        return enumTable;
     }
     
     public static <T>boolean isEmpty(ValuedEnum<T>[] array){
         return array==null || array.length==0;
     }        
     
-    @SuppressWarnings("unchecked")
+    @SuppressWarnings({ "unchecked", "rawtypes" })
     public static <T>void registValuedObjects(ValuedEnum<T>[] valuedObjects) {
         if (isEmpty(valuedObjects)) {
             return;
         }
-        
-        Class<? extends ValuedEnum<T>> enumClass = (Class<? extends ValuedEnum<T>>) valuedObjects[0].getClass();
-        ValueAndNameHolder<T> valueAndNameHolder =(ValueAndNameHolder<T>) VALUED_MAPPING.get(enumClass);
-        if (valueAndNameHolder == null) {
-            valueAndNameHolder = new ValueAndNameHolder<T>();
-            VALUED_MAPPING.put(enumClass, valueAndNameHolder);
-        }
-        valueAndNameHolder.registValues(valuedObjects);
+
+        Class<? extends ValuedEnum> enumClass = valuedObjects[0] instanceof Enum ? ((Enum) valuedObjects[0]).getDeclaringClass()
+            : valuedObjects[0].getClass();
+        ValuedEnumRegistry.getTable(enumClass);
     }
 
     public static ValuedEnum<?> valueOf(Class<?> valuedClass, String value) {
-        ValueAndNameHolder<?> valueAndNameHolder =VALUED_MAPPING.get(valuedClass);
-        return valueAndNameHolder==null?null:valueAndNameHolder.valueOf(value);
+        return (ValuedEnum<?>) ValuedEnumRegistry.valueOf(valuedClass, value);
     }
     
     public static ValuedEnum<?> nameOf(Class<?> valuedClass, String name) {
-        ValueAndNameHolder<?> valueAndNameHolder =VALUED_MAPPING.get(valuedClass);
-        return valueAndNameHolder==null?null:valueAndNameHolder.nameOf(name);
+        return (ValuedEnum<?>) ValuedEnumRegistry.nameOf(valuedClass, name);
     }           
     
     
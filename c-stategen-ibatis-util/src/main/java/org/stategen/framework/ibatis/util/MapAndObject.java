@@ -1,30 +1,38 @@
 package org.stategen.framework.ibatis.util;
 
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.BeanUtils;
+import org.stategen.framework.util.BeanAccessorUtil;
 
 /**
  * 混合两个对象为一个Map对象
  * MapAndObject.get()方法将在两个对象取值,Map如果取值为null,则再在Bean中取
+ * 分页查询时用 Paginator 代替 Map，offset/limit/startRow/endRow 直接从 Paginator 中取，不再为每次查询创建HashMap
  * 该类复制自rapid_framework
  * @author badqiu
  */
 public class MapAndObject implements Map<String,Object> {
     final static Logger     logger = LoggerFactory.getLogger(MapAndObject.class);
     private final Map<String,Object> map;
+    private final Paginator paginator;
     private final Object    bean;
 
     public MapAndObject(Map<String,Object> map, Object bean) {
         super();
         this.map = map;
+        this.paginator = null;
+        this.bean = bean;
+    }
+
+    public MapAndObject(Paginator paginator, Object bean) {
+        super();
+        this.map = null;
+        this.paginator = paginator;
         this.bean = bean;
     }
 
@@ -46,6 +54,8 @@ public class MapAndObject implements Map<String,Object> {
         Object result = null;
         if (map != null) {
             result = map.get(key);
+        } else if (paginator != null && key instanceof String) {
+            result = getPageParam((String) key);
         }
 
         if (result == null && bean instanceof Map) {
@@ -59,6 +69,22 @@ public class MapAndObject implements Map<String,Object> {
         return result;
     }
 
+    /***分页的4个固定参数，其它key返回null*/
+    private Object getPageParam(String key) {
+        switch (key) {
+            case "offset":
+                return paginator.getOffset();
+            case "limit":
+                return paginator.getLimit();
+            case "startRow":
+                return paginator.getStartRow();
+            case "endRow":
+                return paginator.getEndRow();
+            default:
+                return null;
+        }
+    }
+
     @Override
     public void clear() {
         throw new UnsupportedOperationException();
@@ -117,6 +143,7 @@ public class MapAndObject implements Map<String,Object> {
 
     /**
      * The Class FastPropertyUtils.
+     * 每个类的属性getter由 BeanAccessorUtil 生成并缓存，不再每次查找 PropertyDescriptor 和 Method.invoke
      */
     private static class FastPropertyUtils {
         private static Object getBeanPropertyValue(Object bean, String propertyName) {
@@ -125,28 +152,16 @@ public class MapAndObject implements Map<String,Object> {
             if (propertyName == null)
                 throw new IllegalArgumentException("propertyName cannot be not null");
 
+            Function<Object, Object> getter = BeanAccessorUtil.getReaders(bean.getClass()).get(propertyName);
+            if (getter == null) {
+                return null;
+            }
             try {
-                Method readMethod = getReadMethod(bean, propertyName);
-                if (readMethod == null) {
-                    return null;
-                }
-                return readMethod.invoke(bean);
-            } catch (IllegalAccessException e) {
+                return getter.apply(bean);
+            } catch (RuntimeException e) {
                 throw new IllegalStateException("cannot get property value by property:"
                                                 + propertyName + " on class:" + bean.getClass(), e);
-            } catch (InvocationTargetException e) {
-                throw new IllegalStateException("cannot get property value by property:"
-                                                + propertyName + " on class:" + bean.getClass(),
-                    e.getTargetException());
             }
         }
-
-        private static Method getReadMethod(Object bean, String propertyName) {
-            PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(bean.getClass(), propertyName);
-            if (pd == null)
-                return null;
-            return pd.getReadMethod();
-        }
-
     }
 }
@@ -0,0 +1,70 @@
+package org.stategen.framework.ibatis.util;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 游标(keyset)分页的游标编码，把最后一行的排序键编码为不透明的字符串返回给前端，下一页时再解码.
+ * 只支持 Long/Integer/String/Date/BigDecimal，不使用对象反序列化，前端传入任意内容也只能解码为这几种类型.
+ *
+ * @author XiaZhengsheng
+ */
+public class PageCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public static String encode(Object sortKey) {
+        if (sortKey == null) {
+            return null;
+        }
+        String text;
+        if (sortKey instanceof Long) {
+            text = "L" + sortKey;
+        } else if (sortKey instanceof Integer) {
+            text = "I" + sortKey;
+        } else if (sortKey instanceof String) {
+            text = "S" + sortKey;
+        } else if (sortKey instanceof Date) {
+            text = "D" + ((Date) sortKey).getTime();
+        } else if (sortKey instanceof BigDecimal) {
+            text = "B" + ((BigDecimal) sortKey).toPlainString();
+        } else {
+            throw new IllegalArgumentException("unsupported cursor sort key type:" + sortKey.getClass().getName());
+        }
+        return ENCODER.encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /***为空时返回null(第一页)，不能解码时抛出 IllegalArgumentException*/
+    public static Object decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String text = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("invalid cursor:" + cursor);
+        }
+        String value = text.substring(1);
+        try {
+            switch (text.charAt(0)) {
+                case 'L':
+                    return Long.valueOf(value);
+                case 'I':
+                    return Integer.valueOf(value);
+                case 'S':
+                    return value;
+                case 'D':
+                    return new Date(Long.parseLong(value));
+                case 'B':
+                    return new BigDecimal(value);
+                default:
+                    throw new IllegalArgumentException("invalid cursor:" + cursor);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid cursor:" + cursor, e);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.stategen.framework.ibatis.util;
 
+import org.stategen.framework.lite.enums.CountStrategy;
+
 /**
  * 分页查询对象
  * 该类复制自rapid_framework.
@@ -16,6 +18,10 @@ public class PageQuery implements java.io.Serializable {
     private int               page;
     /** 分页大小 */
     private int               pageSize          = DEFAULT_PAGE_SIZE;
+    /** 游标(keyset)分页时上一页返回的 nextCursor，第一页为空 */
+    private String            cursor;
+    /** 总数的取得方式，为空时同 EXACT */
+    private CountStrategy     countStrategy;
 
     public PageQuery() {
     }
@@ -27,6 +33,8 @@ public class PageQuery implements java.io.Serializable {
     public PageQuery(PageQuery query) {
         this.page = query.page;
         this.pageSize = query.pageSize;
+        this.cursor = query.cursor;
+        this.countStrategy = query.countStrategy;
     }
 
     public PageQuery(int page, int pageSize) {
@@ -50,6 +58,22 @@ public class PageQuery implements java.io.Serializable {
         this.pageSize = pageSize;
     }
 
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public CountStrategy getCountStrategy() {
+        return countStrategy;
+    }
+
+    public void setCountStrategy(CountStrategy countStrategy) {
+        this.countStrategy = countStrategy;
+    }
+
     @Override
     public String toString() {
         return "page:" + page + ",pageSize:" + pageSize;
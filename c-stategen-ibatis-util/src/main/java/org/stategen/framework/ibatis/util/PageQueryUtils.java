@@ -1,24 +1,81 @@
 package org.stategen.framework.ibatis.util;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.stategen.framework.lite.PageList;
+import org.stategen.framework.lite.enums.CountStrategy;
+import org.stategen.framework.util.BeanAccessorUtil;
+import org.stategen.framework.util.ConcurrentCache;
 import org.stategen.framework.util.NumberUtil;
 
 /**
  * Ibatis的分页查询工具类. 将为分页查询提供附加的四个参数
  * 基于0开始的: offset, limit 用于mysql分页查询
  * 基于1开始的: startRow,endRow 用于oracle分页查询
+ * 游标(keyset)分页 seekQuery: lastKey,limit，sql形如 where key &gt; #lastKey# order by key limit #limit#，不查询总数
+ * 总数的取得方式见 CountStrategy，可以在 PageQuery.countStrategy 中按次指定
  * 该类复制自rapid_framework
  * @author badqiu
  * @version $Id: PageQueryUtils.java,v 0.1 2010-7-28 下午04:45:27 badqiu Exp $
  */
 public class PageQueryUtils {
-    final static Logger logger = LoggerFactory.getLogger(PageQueryUtils.class);
+    final static Logger                                   logger                   = LoggerFactory.getLogger(PageQueryUtils.class);
+
+    /** CACHED 时最多缓存的count条数 */
+    private static final int                              COUNT_CACHE_SIZE         = 10000;
+
+    /** 参数对象中的分页属性，不参与count缓存的key */
+    private static final Set<String>                      NOT_COUNT_KEY_PROPERTIES = new HashSet<String>(
+        Arrays.asList("class", "page", "pageSize", "cursor", "countStrategy"));
+
+    private static final ConcurrentCache<String, CachedCount> countCache           = new ConcurrentCache<String, CachedCount>(COUNT_CACHE_SIZE);
+
+    /** CACHED 时count的缓存时间，默认1分钟 */
+    private static volatile long                          countCacheMillis         = 60 * 1000L;
+
+    /** PARALLEL 时缺省线程池的最大线程数，每个线程执行count时占用一个数据库连接 */
+    static final int                                      DEFAULT_COUNT_THREADS    = 4;
+
+    /** PARALLEL 时执行count的线程池 */
+    private static volatile Executor                      countExecutor            = null;
+
+    static class CachedCount {
+        final Number count;
+        final long   expireAt;
+
+        CachedCount(Number count, long expireAt) {
+            this.count = count;
+            this.expireAt = expireAt;
+        }
+    }
+
+    public static void setCountCacheMillis(long countCacheMillis) {
+        PageQueryUtils.countCacheMillis = countCacheMillis;
+    }
+
+    /***PARALLEL 时执行count的线程池，最大线程数应小于数据源连接池的大小*/
+    public static void setCountExecutor(Executor countExecutor) {
+        PageQueryUtils.countExecutor = countExecutor;
+    }
 
     /**
      * 封装ibatis的分页查询
@@ -30,7 +87,7 @@ public class PageQueryUtils {
     public static <T> PageList<T> pageQuery(SqlDaoSupport sqlMapClientTemplate,
                                      String statementName, PageQuery parameterObject) {
         return pageQuery(sqlMapClientTemplate, statementName, statementName + "_count",
-            parameterObject, parameterObject.getPage(), parameterObject.getPageSize());
+            parameterObject, parameterObject.getPage(), parameterObject.getPageSize(), parameterObject.getCountStrategy());
     }
 
     /**
@@ -45,7 +102,7 @@ public class PageQueryUtils {
                                      String statementName, String countStatementName,
                                      PageQuery parameterObject) {
         return pageQuery(sqlMapClientTemplate, statementName, countStatementName, parameterObject,
-            parameterObject.getPage(), parameterObject.getPageSize());
+            parameterObject.getPage(), parameterObject.getPageSize(), parameterObject.getCountStrategy());
     }
 
     /**
@@ -59,30 +116,251 @@ public class PageQueryUtils {
             parameterObject, page, pageSize);
     }
 
+    /**
+     * 封装ibatis的分页查询,按 countStrategy 取总数
+     * @return
+     */
+    public static <T> PageList<T> pageQuery(SqlDaoSupport sqlMapClientTemplate,
+                                            String statementName, Object parameterObject, int page,
+                                            int pageSize, CountStrategy countStrategy) {
+        return pageQuery(sqlMapClientTemplate, statementName, statementName + "_count",
+            parameterObject, page, pageSize, countStrategy);
+    }
+
     /**
      * 封装ibatis的分页查询
      * @return
      */
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     protected static <T> PageList<T> pageQuery(SqlDaoSupport sqlMapClientTemplate,
                                      String statementName, String countStatementName,
                                      Object parameterObject, int page, int pageSize) {
+        return pageQuery(sqlMapClientTemplate, statementName, countStatementName, parameterObject, page, pageSize, CountStrategy.EXACT);
+    }
 
-        Number totalCount = (Number) sqlMapClientTemplate.selectOne(countStatementName,  parameterObject);
+    /**
+     * 封装ibatis的分页查询,按 countStrategy 取总数，为空时同 EXACT
+     * @return
+     */
+    protected static <T> PageList<T> pageQuery(SqlDaoSupport sqlMapClientTemplate,
+                                     String statementName, String countStatementName,
+                                     Object parameterObject, int page, int pageSize, CountStrategy countStrategy) {
+        if (countStrategy == null) {
+            countStrategy = CountStrategy.EXACT;
+        }
+        switch (countStrategy) {
+            case SKIP:
+                return skipCountQuery(sqlMapClientTemplate, statementName, parameterObject, page, pageSize);
+            case PARALLEL:
+                return parallelCountQuery(sqlMapClientTemplate, statementName, countStatementName, parameterObject, page, pageSize);
+            case CACHED:
+                Number cachedCount = getCachedCount(sqlMapClientTemplate, countStatementName, parameterObject);
+                return pageQuery(sqlMapClientTemplate, statementName, parameterObject, page, pageSize, cachedCount, countStrategy);
+            default:
+                Number totalCount = (Number) sqlMapClientTemplate.selectOne(countStatementName, parameterObject);
+                return pageQuery(sqlMapClientTemplate, statementName, parameterObject, page, pageSize, totalCount, countStrategy);
+        }
+    }
 
+    private static <T> PageList<T> pageQuery(SqlDaoSupport sqlMapClientTemplate, String statementName, Object parameterObject, int page,
+                                             int pageSize, Number totalCount, CountStrategy countStrategy) {
         if (NumberUtil.isGreatZero(totalCount)) {
-            Paginator paginator = new Paginator(page, pageSize, totalCount.intValue());
-            Map<String, Integer> otherParams = new HashMap<String, Integer>();
-            otherParams.put("offset", paginator.getOffset());
-            otherParams.put("limit", paginator.getLimit());
-            otherParams.put("startRow", paginator.getStartRow());
-            otherParams.put("endRow", paginator.getEndRow());
-
-            MapAndObject mapAndObject = new MapAndObject((Map)otherParams, parameterObject);
+            Paginator paginator = new Paginator(page, pageSize, totalCount.intValue(), countStrategy);
+            //offset,limit,startRow,endRow 直接从 paginator 中取
+            MapAndObject mapAndObject = new MapAndObject(paginator, parameterObject);
             List<T> list = sqlMapClientTemplate.selectList(statementName, mapAndObject);
-            return new PageList<T>(list,paginator.getPage(), paginator.getPageSize(), paginator.getTotalItems());
+            return toPageList(list, paginator);
+        }
+        return emptyPageList(pageSize, countStrategy);
+    }
+
+    /***不执行count，多查一行判断是否有下一页，totalCount为已知的下限，有下一页时多出的一行让前端分页器仍显示下一页*/
+    private static <T> PageList<T> skipCountQuery(SqlDaoSupport sqlMapClientTemplate, String statementName, Object parameterObject,
+                                                  int page, int pageSize) {
+        Paginator paginator = new Paginator(page, pageSize, Paginator.UNKNOWN_TOTAL_ITEMS, CountStrategy.SKIP);
+        List<T> list = sqlMapClientTemplate.selectList(statementName, new MapAndObject(paginator, parameterObject));
+        int totalItems = paginator.getOffset() + list.size();
+        boolean hasNextPage = list.size() > pageSize;
+        if (hasNextPage) {
+            list = new ArrayList<T>(list.subList(0, pageSize));
+        }
+        PageList<T> pageList = new PageList<T>(list, paginator.getPage(), pageSize, totalItems);
+        pageList.setHasNextPage(hasNextPage);
+        pageList.setCountStrategy(CountStrategy.SKIP);
+        return pageList;
+    }
+
+    /***count在countExecutor上执行，与数据查询使用不同的连接，在事务中时count看不到本事务未提交的数据*/
+    private static <T> PageList<T> parallelCountQuery(final SqlDaoSupport sqlMapClientTemplate, String statementName,
+                                                      final String countStatementName, final Object parameterObject, int page,
+                                                      int pageSize) {
+        CompletableFuture<Number> countFuture = CompletableFuture
+            .supplyAsync(() -> (Number) sqlMapClientTemplate.selectOne(countStatementName, parameterObject), getCountExecutor());
+        Paginator dataPaginator = new Paginator(page, pageSize, Paginator.UNKNOWN_TOTAL_ITEMS, CountStrategy.PARALLEL);
+        List<T> list;
+        try {
+            list = sqlMapClientTemplate.selectList(statementName, new MapAndObject(dataPaginator, parameterObject));
+        } catch (RuntimeException e) {
+            countFuture.cancel(true);
+            throw e;
+        }
+
+        Number totalCount = joinCount(countFuture);
+        if (NumberUtil.isGreatZero(totalCount)) {
+            return toPageList(list, new Paginator(page, pageSize, totalCount.intValue(), CountStrategy.PARALLEL));
+        }
+        return emptyPageList(pageSize, CountStrategy.PARALLEL);
+    }
+
+    private static Number joinCount(CompletableFuture<Number> countFuture) {
+        try {
+            return countFuture.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Number getCachedCount(SqlDaoSupport sqlMapClientTemplate, String countStatementName, Object parameterObject) {
+        String cacheKey = countCacheKey(countStatementName, parameterObject);
+        long now = System.currentTimeMillis();
+        CachedCount cachedCount = countCache.get(cacheKey);
+        if (cachedCount != null && cachedCount.expireAt > now) {
+            return cachedCount.count;
+        }
+        Number totalCount = (Number) sqlMapClientTemplate.selectOne(countStatementName, parameterObject);
+        countCache.put(cacheKey, new CachedCount(totalCount, now + countCacheMillis));
+        return totalCount;
+    }
+
+    /***count缓存的key: statement?属性按名称排序，为null的属性与不存在相同，分页属性不参与*/
+    static String countCacheKey(String countStatementName, Object parameterObject) {
+        StringBuilder sb = new StringBuilder(countStatementName).append('?');
+        if (parameterObject == null) {
+            return sb.toString();
+        }
+        if (isSimpleValue(parameterObject)) {
+            appendValue(sb, parameterObject);
+            return sb.toString();
+        }
+
+        TreeMap<String, Object> params = new TreeMap<String, Object>();
+        if (parameterObject instanceof Map) {
+            for (Entry<?, ?> entry : ((Map<?, ?>) parameterObject).entrySet()) {
+                params.put(String.valueOf(entry.getKey()), entry.getValue());
+            }
+        } else {
+            for (Entry<String, Function<Object, Object>> entry : BeanAccessorUtil.getReaders(parameterObject.getClass()).entrySet()) {
+                if (!NOT_COUNT_KEY_PROPERTIES.contains(entry.getKey())) {
+                    params.put(entry.getKey(), entry.getValue().apply(parameterObject));
+                }
+            }
+        }
+
+        for (Entry<String, Object> entry : params.entrySet()) {
+            if (entry.getValue() != null) {
+                sb.append(entry.getKey()).append('=');
+                appendValue(sb, entry.getValue());
+                sb.append('&');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isSimpleValue(Object value) {
+        return value instanceof CharSequence || value instanceof Number || value instanceof Boolean || value instanceof Character
+               || value instanceof Enum || value instanceof Date;
+    }
+
+    private static void appendValue(StringBuilder sb, Object value) {
+        if (value instanceof Date) {
+            sb.append(((Date) value).getTime());
+        } else if (value.getClass().isArray()) {
+            sb.append(Arrays.deepToString(new Object[] { value }));
+        } else {
+            sb.append(value);
+        }
+    }
+
+    private static <T> PageList<T> toPageList(List<T> list, Paginator paginator) {
+        PageList<T> pageList = new PageList<T>(list, paginator.getPage(), paginator.getPageSize(), paginator.getTotalItems());
+        pageList.setHasNextPage(paginator.isHasNextPage());
+        pageList.setCountStrategy(paginator.getCountStrategy());
+        return pageList;
+    }
+
+    private static <T> PageList<T> emptyPageList(int pageSize, CountStrategy countStrategy) {
+        PageList<T> pageList = new PageList<T>(0, pageSize, 0);
+        pageList.setCountStrategy(countStrategy);
+        return pageList;
+    }
+
+    /**
+     * PARALLEL 时执行count的线程池，未设置时最多 DEFAULT_COUNT_THREADS 个守护线程，不排队,
+     * 线程都在忙时由调用线程自己执行count(退化为串行)，避免高峰时线程和数据库连接无限增加.
+     */
+    static Executor getCountExecutor() {
+        Executor executor = countExecutor;
+        if (executor == null) {
+            synchronized (PageQueryUtils.class) {
+                executor = countExecutor;
+                if (executor == null) {
+                    final AtomicInteger threadNumber = new AtomicInteger();
+                    ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(DEFAULT_COUNT_THREADS, DEFAULT_COUNT_THREADS, 60L,
+                        TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), r -> {
+                            Thread thread = new Thread(r, "pageQuery-count-" + threadNumber.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }, new ThreadPoolExecutor.CallerRunsPolicy());
+                    threadPoolExecutor.allowCoreThreadTimeOut(true);
+                    executor = threadPoolExecutor;
+                    countExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 游标(keyset)分页，不执行count，深分页时不会像offset那样越来越慢
+     * sql 需要按唯一的排序键排序，lastKey 为空时查询第一页，如:
+     * &lt;isNotNull property="lastKey"&gt; and id &gt; #lastKey# &lt;/isNotNull&gt; order by id limit #limit#
+     * 返回的 PageList.nextCursor 传回 PageQuery.cursor 即可查询下一页，没有下一页时为null
+     * @param sortKeyGetter 从一行中取出排序键
+     * @return
+     */
+    public static <T> PageList<T> seekQuery(SqlDaoSupport sqlMapClientTemplate, String statementName, PageQuery parameterObject,
+                                            Function<? super T, ?> sortKeyGetter) {
+        return seekQuery(sqlMapClientTemplate, statementName, parameterObject, parameterObject.getCursor(), parameterObject.getPageSize(),
+            sortKeyGetter);
+    }
+
+    /**
+     * 游标(keyset)分页，多查一行用于判断是否有下一页
+     * @return
+     */
+    public static <T> PageList<T> seekQuery(SqlDaoSupport sqlMapClientTemplate, String statementName, Object parameterObject, String cursor,
+                                            int pageSize, Function<? super T, ?> sortKeyGetter) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must great than 0");
+        }
+        Map<String, Object> seekParams = new HashMap<String, Object>(4);
+        seekParams.put("lastKey", PageCursor.decode(cursor));
+        seekParams.put("limit", pageSize + 1);
+        List<T> list = sqlMapClientTemplate.selectList(statementName, new MapAndObject(seekParams, parameterObject));
+        String nextCursor = null;
+        if (list.size() > pageSize) {
+            list = new ArrayList<T>(list.subList(0, pageSize));
+            nextCursor = PageCursor.encode(sortKeyGetter.apply(list.get(pageSize - 1)));
         }
-        return new PageList<T>(0, pageSize, 0);
+        PageList<T> pageList = new PageList<T>(list, 0, pageSize, 0);
+        pageList.setNextCursor(nextCursor);
+        return pageList;
     }
 
 }
@@ -1,5 +1,7 @@
 package org.stategen.framework.ibatis.util;
 
+import org.stategen.framework.lite.enums.CountStrategy;
+
 /**
  * 分页器，根据page,pageSize,totalItem用于页面上分页显示多项内容，计算页码和当前页的偏移量，方便页面分页使用.
  * 该类复制自rapid_framework
@@ -11,18 +13,28 @@ public class Paginator implements java.io.Serializable {
 
     private static final int  DEFAULT_SLIDERS_COUNT = 7;
 
+    /** 查询数据时总数还未知(SKIP,PARALLEL) */
+    public static final int   UNKNOWN_TOTAL_ITEMS   = -1;
+
     /** 分页大小 */
     private final int         pageSize;
     /** 页数  */
     private final int         page;
     /** 总记录数 */
     private final int         totalItems;
+    /** 总数的取得方式 */
+    private final CountStrategy countStrategy;
 
     public Paginator(int page, int pageSize, int totalItems) {
+        this(page, pageSize, totalItems, CountStrategy.EXACT);
+    }
+
+    public Paginator(int page, int pageSize, int totalItems, CountStrategy countStrategy) {
         super();
         this.pageSize = pageSize;
         this.totalItems = totalItems;
         this.page = page;//computePageNo(page);
+        this.countStrategy = countStrategy;
     }
 
     /**
@@ -45,6 +57,17 @@ public class Paginator implements java.io.Serializable {
         return totalItems;
     }
 
+    public CountStrategy getCountStrategy() {
+        return countStrategy;
+    }
+
+    /**
+     * 本次查询取的行数，SKIP时多取一行用来判断是否有下一页
+     */
+    public int getFetchSize() {
+        return countStrategy == CountStrategy.SKIP ? pageSize + 1 : pageSize;
+    }
+
     /**
      * 是否是首页（第一页），第一页页码为1
      *
@@ -112,7 +135,7 @@ public class Paginator implements java.io.Serializable {
      * 开始行，可以用于oracle分页使用 (1-based)。
      **/
     public int getStartRow() {
-        if (getPageSize() <= 0 || totalItems <= 0)
+        if (getPageSize() <= 0 || totalItems == 0)
             return 0;
         return page > 0 ? (page - 1) * getPageSize() + 1 : 0;
     }
@@ -121,7 +144,7 @@ public class Paginator implements java.io.Serializable {
      * 结束行，可以用于oracle分页使用 (1-based)。
      **/
     public int getEndRow() {
-        return page > 0 ? pageSize * page: 0;
+        return page > 0 ? pageSize * (page - 1) + getFetchSize() : 0;
 //        return page > 0 ? Math.min(pageSize * page, getTotalItems()) : 0;
     }
 
@@ -137,7 +160,7 @@ public class Paginator implements java.io.Serializable {
      **/
     public int getLimit() {
         if (page > 0) {
-            return getPageSize();
+            return getFetchSize();
 //            return  Math.min(pageSize * page, getTotalItems()) - (pageSize * (page - 1));
         } else {
             return 0;
@@ -1,12 +1,76 @@
 package org.stategen.framework.ibatis.util;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 
 /***为了兼容ibatis和mybatis*/
 public interface SqlDaoSupport {
 
+    /** 批量操作缺省每批条数 */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
     public <T> T selectOne(String statementName, Object params);
 
     public <T> List<T> selectList(String statementName, Object params);
+
+    /***逐行读取结果交给consumer，不把整个结果集放进List，返回行数，不支持流式读取的实现退化为selectList*/
+    public default <T> int selectStream(String statementName, Object params, int fetchSize, Consumer<? super T> consumer) {
+        List<T> list = selectList(statementName, params);
+        list.forEach(consumer);
+        return list.size();
+    }
+
+    /***单条插入，供批量方法的逐条退化使用，接口原来没有该方法，为兼容已有的实现给出默认实现，mybatis实现已覆盖*/
+    public default <T> void insert(String statementName, T t) {
+        throw new UnsupportedOperationException("insert is not supported by " + getClass().getName());
+    }
+
+    /***单条更新，同 insert*/
+    public default <T> int update(String statementName, Object params) {
+        throw new UnsupportedOperationException("update is not supported by " + getClass().getName());
+    }
+
+    /***单条删除，同 insert*/
+    public default <T> int delete(String statementName, Object params) {
+        throw new UnsupportedOperationException("delete is not supported by " + getClass().getName());
+    }
+
+    /***批量插入，每batchSize条提交一次jdbc batch，返回每一批影响的行数，不支持批量的实现退化为逐条insert,每条按1行计算*/
+    public default int[] batchInsert(String statementName, Collection<?> items, int batchSize) {
+        return executeEach(items, batchSize, item -> {
+            insert(statementName, item);
+            return 1;
+        });
+    }
+
+    /***批量更新，每batchSize条提交一次jdbc batch，返回每一批影响的行数，不支持批量的实现退化为逐条update*/
+    public default int[] batchUpdate(String statementName, Collection<?> items, int batchSize) {
+        return executeEach(items, batchSize, item -> update(statementName, item));
+    }
+
+    /***批量删除，每batchSize条提交一次jdbc batch，返回每一批影响的行数，不支持批量的实现退化为逐条delete*/
+    public default int[] batchDelete(String statementName, Collection<?> items, int batchSize) {
+        return executeEach(items, batchSize, item -> delete(statementName, item));
+    }
+
+    /***逐条执行，按batchSize分组累加影响的行数，与批量执行返回的形状相同*/
+    static int[] executeEach(Collection<?> items, int batchSize, ToIntFunction<Object> statement) {
+        if (items == null || items.isEmpty()) {
+            return new int[0];
+        }
+        if (batchSize <= 0) {
+            batchSize = DEFAULT_BATCH_SIZE;
+        }
+        int size = items.size();
+        int[] batchCounts = new int[(size + batchSize - 1) / batchSize];
+        int index = 0;
+        for (Object item : items) {
+            batchCounts[index / batchSize] += statement.applyAsInt(item);
+            index++;
+        }
+        return batchCounts;
+    }
     
 }
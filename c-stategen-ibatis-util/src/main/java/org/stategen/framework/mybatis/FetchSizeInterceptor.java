@@ -0,0 +1,40 @@
+package org.stategen.framework.mybatis;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+
+/**
+ * 为当前线程接下来prepare的statement设置jdbc fetchSize，供 MybatisSqlDaoSupport.selectStream/selectCursor 按次指定fetchSize
+ * 需要在mybatis配置的plugins中注册，未注册时使用mapper中的fetchSize或全局的defaultFetchSize
+ * mysql需要fetchSize为Integer.MIN_VALUE才会逐行读取
+ */
+@Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+public class FetchSizeInterceptor implements Interceptor {
+
+    private static final ThreadLocal<Integer> fetchSizeHolder = new ThreadLocal<Integer>();
+
+    static void setFetchSize(int fetchSize) {
+        fetchSizeHolder.set(fetchSize);
+    }
+
+    static void clearFetchSize() {
+        fetchSizeHolder.remove();
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        Integer fetchSize = fetchSizeHolder.get();
+        if (fetchSize != null && result instanceof Statement) {
+            ((Statement) result).setFetchSize(fetchSize);
+        }
+        return result;
+    }
+
+}
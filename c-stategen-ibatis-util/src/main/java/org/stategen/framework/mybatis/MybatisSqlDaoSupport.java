@@ -1,15 +1,41 @@
 package org.stategen.framework.mybatis;
 
+import java.io.IOException;
+import java.sql.Statement;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.mybatis.spring.SqlSessionUtils;
 import org.mybatis.spring.support.SqlSessionDaoSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.support.PersistenceExceptionTranslator;
 import org.stategen.framework.ibatis.util.SqlDaoSupport;
 /**
  * MybatisSqlDaoSupport
  * 该类为兼容ibatis和mybatis,不可以修改
+ * 批量方法使用 BATCH 执行器，在spring事务中时与事务共用sqlSession，
+ * 因mybatis-spring的限制，同一事务中之前已用非BATCH的sqlSession执行过语句时不能再批量执行
+ * selectStream/selectCursor 按次指定的fetchSize需要注册 FetchSizeInterceptor
  * </pre>
  */
 public class MybatisSqlDaoSupport extends SqlSessionDaoSupport implements SqlDaoSupport {
+    final static Logger     logger             = LoggerFactory.getLogger(MybatisSqlDaoSupport.class);
+
+    /***mysql驱动只有fetchSize为Integer.MIN_VALUE时才逐行读取，其它值仍会把整个结果集读入内存*/
+    public final static int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    interface BatchStatement {
+        int execute(SqlSession sqlSession, String statementName, Object params);
+    }
     
     public <T> int update(String statementName, Object params) {
         int effectCount = getSqlSession().update(statementName, params);
@@ -33,8 +59,129 @@ public class MybatisSqlDaoSupport extends SqlSessionDaoSupport implements SqlDao
     public <T> List<T> selectList(String statementName, Object params) {
         return getSqlSession().selectList(statementName, params);
     }
-    
-    
 
-}
+    /***
+     * 打开mybatis游标，游标依赖sqlSession，必须在spring事务中使用并在事务结束前关闭
+     * fetchSize为0时不设置，其它值(包括 STREAMING_FETCH_SIZE)原样设置到statement
+     */
+    public <T> Cursor<T> selectCursor(String statementName, Object params, int fetchSize) {
+        return openCursor(getSqlSession(), statementName, params, fetchSize);
+    }
+
+    private static <T> Cursor<T> openCursor(SqlSession sqlSession, String statementName, Object params, int fetchSize) {
+        if (fetchSize == 0) {
+            return sqlSession.selectCursor(statementName, params);
+        }
+        FetchSizeInterceptor.setFetchSize(fetchSize);
+        try {
+            return sqlSession.selectCursor(statementName, params);
+        } finally {
+            FetchSizeInterceptor.clearFetchSize();
+        }
+    }
+
+    /***
+     * 用游标逐行读取结果交给consumer，返回行数，不在spring事务中时自己打开sqlSession,结束后关闭游标和sqlSession
+     * fetchSize同 selectCursor，mysql要逐行读取需传 STREAMING_FETCH_SIZE
+     */
+    @Override
+    public <T> int selectStream(String statementName, Object params, int fetchSize, Consumer<? super T> consumer) {
+        SqlSessionTemplate sqlSessionTemplate = getSqlSessionTemplate();
+        SqlSessionFactory sqlSessionFactory = sqlSessionTemplate.getSqlSessionFactory();
+        PersistenceExceptionTranslator exceptionTranslator = sqlSessionTemplate.getPersistenceExceptionTranslator();
+        SqlSession sqlSession = SqlSessionUtils.getSqlSession(sqlSessionFactory, sqlSessionTemplate.getExecutorType(), exceptionTranslator);
+        try {
+            Cursor<T> cursor = openCursor(sqlSession, statementName, params, fetchSize);
+
+            int count = 0;
+            try {
+                for (T t : cursor) {
+                    consumer.accept(t);
+                    count++;
+                }
+            } finally {
+                closeCursor(cursor);
+            }
+            return count;
+        } catch (RuntimeException e) {
+            DataAccessException translated = exceptionTranslator.translateExceptionIfPossible(e);
+            throw translated != null ? translated : e;
+        } finally {
+            SqlSessionUtils.closeSqlSession(sqlSession, sqlSessionFactory);
+        }
+    }
+
+    private static void closeCursor(Cursor<?> cursor) {
+        try {
+            cursor.close();
+        } catch (IOException e) {
+            logger.warn("关闭mybatis游标出错", e);
+        }
+    }
+
+    @Override
+    public int[] batchInsert(String statementName, Collection<?> items, int batchSize) {
+        return executeBatch(statementName, items, batchSize, SqlSession::insert);
+    }
+
+    @Override
+    public int[] batchUpdate(String statementName, Collection<?> items, int batchSize) {
+        return executeBatch(statementName, items, batchSize, SqlSession::update);
+    }
+
+    @Override
+    public int[] batchDelete(String statementName, Collection<?> items, int batchSize) {
+        return executeBatch(statementName, items, batchSize, SqlSession::delete);
+    }
 
+    /***每batchSize条flushStatements一次，不在事务中时全部成功后提交，失败时回滚*/
+    private int[] executeBatch(String statementName, Collection<?> items, int batchSize, BatchStatement batchStatement) {
+        if (items == null || items.isEmpty()) {
+            return new int[0];
+        }
+        if (batchSize <= 0) {
+            batchSize = DEFAULT_BATCH_SIZE;
+        }
+
+        SqlSessionFactory sqlSessionFactory = getSqlSessionFactory();
+        PersistenceExceptionTranslator exceptionTranslator = getSqlSessionTemplate().getPersistenceExceptionTranslator();
+        SqlSession batchSession = SqlSessionUtils.getSqlSession(sqlSessionFactory, ExecutorType.BATCH, exceptionTranslator);
+        boolean transactional = SqlSessionUtils.isSqlSessionTransactional(batchSession, sqlSessionFactory);
+        int size = items.size();
+        int[] batchCounts = new int[(size + batchSize - 1) / batchSize];
+        try {
+            int index = 0;
+            for (Object item : items) {
+                batchStatement.execute(batchSession, statementName, item);
+                index++;
+                if (index % batchSize == 0 || index == size) {
+                    batchCounts[(index - 1) / batchSize] = sumUpdateCounts(batchSession.flushStatements());
+                }
+            }
+            if (!transactional) {
+                batchSession.commit(true);
+            }
+            return batchCounts;
+        } catch (RuntimeException e) {
+            if (!transactional) {
+                batchSession.rollback(true);
+            }
+            DataAccessException translated = exceptionTranslator.translateExceptionIfPossible(e);
+            throw translated != null ? translated : e;
+        } finally {
+            SqlSessionUtils.closeSqlSession(batchSession, sqlSessionFactory);
+        }
+    }
+
+    /***驱动返回 Statement.SUCCESS_NO_INFO(如oracle)时按1行计算*/
+    private static int sumUpdateCounts(List<BatchResult> batchResults) {
+        int count = 0;
+        for (BatchResult batchResult : batchResults) {
+            for (int updateCount : batchResult.getUpdateCounts()) {
+                count += updateCount == Statement.SUCCESS_NO_INFO ? 1 : Math.max(updateCount, 0);
+            }
+        }
+        return count;
+    }
+
+}
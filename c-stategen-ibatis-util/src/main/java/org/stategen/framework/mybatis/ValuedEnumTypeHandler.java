@@ -0,0 +1,73 @@
+package org.stategen.framework.mybatis;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.stategen.framework.lite.ValuedEnum;
+import org.stategen.framework.util.ValuedEnumRegistry;
+import org.stategen.framework.util.ValuedEnumRegistry.EnumTable;
+
+/**
+ * mybatis中 ValuedEnum 与数据库值互转，可以注册为 defaultEnumTypeHandler 或在typeHandlers中按javaType注册
+ * value为int的枚举用getObject取值，整数按 ValuedEnumRegistry 中的数组下标查找(小整数装箱有缓存)，存放枚举名称的字符串列仍按名称查找
+ */
+public class ValuedEnumTypeHandler<E extends Enum<E>> extends BaseTypeHandler<E> {
+
+    private final EnumTable<E> table;
+
+    public ValuedEnumTypeHandler(Class<E> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Type argument cannot be null");
+        }
+        this.table = ValuedEnumRegistry.getTable(type);
+        if (table == null) {
+            throw new IllegalArgumentException(type.getName() + " is not a ValuedEnum");
+        }
+    }
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, E parameter, JdbcType jdbcType) throws SQLException {
+        ps.setObject(i, ((ValuedEnum<?>) parameter).getValue());
+    }
+
+    @Override
+    public E getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        if (table.isIntValued()) {
+            Object value = rs.getObject(columnName);
+            if (value == null || value instanceof Number || value instanceof String) {
+                return table.valueOfObject(value);
+            }
+            return table.valueOf(rs.getString(columnName));
+        }
+        return table.valueOf(rs.getString(columnName));
+    }
+
+    @Override
+    public E getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        if (table.isIntValued()) {
+            Object value = rs.getObject(columnIndex);
+            if (value == null || value instanceof Number || value instanceof String) {
+                return table.valueOfObject(value);
+            }
+            return table.valueOf(rs.getString(columnIndex));
+        }
+        return table.valueOf(rs.getString(columnIndex));
+    }
+
+    @Override
+    public E getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        if (table.isIntValued()) {
+            Object value = cs.getObject(columnIndex);
+            if (value == null || value instanceof Number || value instanceof String) {
+                return table.valueOfObject(value);
+            }
+            return table.valueOf(cs.getString(columnIndex));
+        }
+        return table.valueOf(cs.getString(columnIndex));
+    }
+
+}
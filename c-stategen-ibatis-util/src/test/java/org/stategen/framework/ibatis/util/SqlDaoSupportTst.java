@@ -0,0 +1,79 @@
+package org.stategen.framework.ibatis.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/***
+ * SqlDaoSupport 中批量方法的默认实现：逐条执行，按batchSize分组累加
+ */
+public class SqlDaoSupportTst {
+
+    /***只实现了查询的旧实现，没有 insert/update/delete*/
+    static class SelectOnlyDaoSupport implements SqlDaoSupport {
+        @Override
+        public <T> T selectOne(String statementName, Object params) {
+            return null;
+        }
+
+        @Override
+        public <T> List<T> selectList(String statementName, Object params) {
+            return Collections.emptyList();
+        }
+    }
+
+    static class RowByRowDaoSupport extends SelectOnlyDaoSupport {
+        final List<Object> inserted = new ArrayList<Object>();
+
+        @Override
+        public <T> void insert(String statementName, T t) {
+            inserted.add(t);
+        }
+
+        @Override
+        public <T> int update(String statementName, Object params) {
+            return 2;
+        }
+
+        @Override
+        public <T> int delete(String statementName, Object params) {
+            return ((Integer) params) % 2;
+        }
+    }
+
+    @Test
+    public void testBatchFallback() {
+        RowByRowDaoSupport daoSupport = new RowByRowDaoSupport();
+        List<Integer> items = Arrays.asList(1, 2, 3, 4, 5, 6, 7);
+
+        int[] insertCounts = daoSupport.batchInsert("User.insert", items, 3);
+        System.out.println("insertCounts<===========>:" + Arrays.toString(insertCounts));
+        Assert.assertEquals("[3, 3, 1]", Arrays.toString(insertCounts));
+        Assert.assertEquals(items, daoSupport.inserted);
+
+        Assert.assertEquals("[6, 6, 2]", Arrays.toString(daoSupport.batchUpdate("User.update", items, 3)));
+        Assert.assertEquals("[2, 1, 1]", Arrays.toString(daoSupport.batchDelete("User.delete", items, 3)));
+
+        //batchSize<=0时按 DEFAULT_BATCH_SIZE 分组
+        Assert.assertEquals("[4]", Arrays.toString(daoSupport.batchDelete("User.delete", items, 0)));
+        Assert.assertEquals(0, daoSupport.batchInsert("User.insert", null, 3).length);
+        Assert.assertEquals(0, daoSupport.batchInsert("User.insert", Collections.emptyList(), 3).length);
+    }
+
+    @Test
+    public void testSelectOnlyImplementation() {
+        SelectOnlyDaoSupport daoSupport = new SelectOnlyDaoSupport();
+        //没有数据时不调用单条方法
+        Assert.assertEquals(0, daoSupport.batchUpdate("User.update", Collections.emptyList(), 3).length);
+        try {
+            daoSupport.batchInsert("User.insert", Arrays.asList(1), 3);
+            Assert.fail("没有实现insert时应抛出UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            System.out.println("e<===========>:" + e.getMessage());
+        }
+    }
+}
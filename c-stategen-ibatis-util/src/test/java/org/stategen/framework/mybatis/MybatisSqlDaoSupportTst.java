@@ -0,0 +1,184 @@
+package org.stategen.framework.mybatis;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mybatis.spring.SqlSessionTemplate;
+
+/***
+ * MybatisSqlDaoSupport 的批量执行，用记录调用的 SqlSession 代替数据库，不在spring事务中
+ */
+public class MybatisSqlDaoSupportTst {
+
+    /***
+     * 记录调用的SqlSession，flushStatements 时把自上次以来执行的语句作为一个BatchResult返回，每条影响1行
+     * selectCursor 时经过 FetchSizeInterceptor 记录statement上设置的fetchSize，返回rows的游标
+     */
+    static class RecordingSession implements InvocationHandler {
+        final List<String> calls        = new ArrayList<String>();
+        int                pending;
+        Object             failOnParam;
+        List<Object>       rows         = Arrays.asList((Object) 1, 2, 3);
+
+        SqlSession proxy() {
+            return (SqlSession) Proxy.newProxyInstance(SqlSession.class.getClassLoader(), new Class<?>[] { SqlSession.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "insert":
+                case "update":
+                case "delete":
+                    if (args[1] != null && args[1].equals(failOnParam)) {
+                        throw new IllegalStateException("fail on " + args[1]);
+                    }
+                    pending++;
+                    return 0;
+                case "flushStatements":
+                    calls.add("flush:" + pending);
+                    BatchResult batchResult = new BatchResult(null, "sql", null);
+                    int[] updateCounts = new int[pending];
+                    Arrays.fill(updateCounts, 1);
+                    batchResult.setUpdateCounts(updateCounts);
+                    pending = 0;
+                    return Collections.singletonList(batchResult);
+                case "selectCursor":
+                    prepareStatement();
+                    return cursor();
+                case "commit":
+                case "rollback":
+                case "close":
+                    calls.add(name);
+                    return null;
+                case "toString":
+                    return "RecordingSession";
+                default:
+                    throw new UnsupportedOperationException(name);
+            }
+        }
+
+        void prepareStatement() throws Throwable {
+            Statement statement = (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { Statement.class },
+                (proxy, method, args) -> {
+                    if ("setFetchSize".equals(method.getName())) {
+                        calls.add("fetchSize:" + args[0]);
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+            Callable<Statement> prepare = () -> statement;
+            new FetchSizeInterceptor().intercept(new Invocation(prepare, Callable.class.getMethod("call"), null));
+        }
+
+        Cursor<?> cursor() {
+            return (Cursor<?>) Proxy.newProxyInstance(Cursor.class.getClassLoader(), new Class<?>[] { Cursor.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "iterator":
+                        return rows.iterator();
+                    case "close":
+                        calls.add("closeCursor");
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+    }
+
+    static MybatisSqlDaoSupport newDaoSupport(final RecordingSession session, final List<ExecutorType> openedTypes) {
+        SqlSessionFactory sqlSessionFactory = (SqlSessionFactory) Proxy.newProxyInstance(SqlSessionFactory.class.getClassLoader(),
+            new Class<?>[] { SqlSessionFactory.class }, (proxy, method, args) -> {
+                if ("openSession".equals(method.getName()) && args != null && args.length == 1 && args[0] instanceof ExecutorType) {
+                    openedTypes.add((ExecutorType) args[0]);
+                    return session.proxy();
+                }
+                if ("toString".equals(method.getName())) {
+                    return "RecordingSessionFactory";
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+        MybatisSqlDaoSupport daoSupport = new MybatisSqlDaoSupport();
+        daoSupport.setSqlSessionTemplate(new SqlSessionTemplate(sqlSessionFactory, ExecutorType.SIMPLE, e -> null));
+        return daoSupport;
+    }
+
+    @Test
+    public void testBatchInsert() {
+        RecordingSession session = new RecordingSession();
+        List<ExecutorType> openedTypes = new ArrayList<ExecutorType>();
+        MybatisSqlDaoSupport daoSupport = newDaoSupport(session, openedTypes);
+
+        int[] batchCounts = daoSupport.batchInsert("User.insert", Arrays.asList(1, 2, 3, 4, 5, 6, 7), 3);
+        System.out.println("batchCounts<===========>:" + Arrays.toString(batchCounts) + " calls<===========>:" + session.calls);
+        Assert.assertEquals("[3, 3, 1]", Arrays.toString(batchCounts));
+        Assert.assertEquals(Arrays.asList(ExecutorType.BATCH), openedTypes);
+        Assert.assertEquals(Arrays.asList("flush:3", "flush:3", "flush:1", "commit", "close"), session.calls);
+    }
+
+    @Test
+    public void testBatchFailureRollsBack() {
+        RecordingSession session = new RecordingSession();
+        session.failOnParam = 5;
+        MybatisSqlDaoSupport daoSupport = newDaoSupport(session, new ArrayList<ExecutorType>());
+        try {
+            daoSupport.batchUpdate("User.update", Arrays.asList(1, 2, 3, 4, 5, 6, 7), 3);
+            Assert.fail("语句失败时应抛出异常");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("fail on 5", e.getMessage());
+        }
+        Assert.assertEquals(Arrays.asList("flush:3", "rollback", "close"), session.calls);
+        Assert.assertEquals(0, daoSupport.batchDelete("User.delete", Collections.emptyList(), 3).length);
+    }
+
+    @Test
+    public void testSelectStreamClosesCursorWhenConsumerThrows() {
+        RecordingSession session = new RecordingSession();
+        List<ExecutorType> openedTypes = new ArrayList<ExecutorType>();
+        MybatisSqlDaoSupport daoSupport = newDaoSupport(session, openedTypes);
+        List<Object> consumed = new ArrayList<Object>();
+        try {
+            daoSupport.selectStream("User.select", null, MybatisSqlDaoSupport.STREAMING_FETCH_SIZE, row -> {
+                consumed.add(row);
+                if (consumed.size() == 2) {
+                    throw new IllegalStateException("consumer failed");
+                }
+            });
+            Assert.fail("consumer的异常应抛出");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("consumer failed", e.getMessage());
+        }
+        System.out.println("calls<===========>:" + session.calls);
+        Assert.assertEquals(Arrays.asList((Object) 1, 2), consumed);
+        Assert.assertEquals(Arrays.asList(ExecutorType.SIMPLE), openedTypes);
+        Assert.assertEquals(Arrays.asList("fetchSize:" + Integer.MIN_VALUE, "closeCursor", "close"), session.calls);
+    }
+
+    @Test
+    public void testSelectStreamFetchSize() {
+        RecordingSession session = new RecordingSession();
+        MybatisSqlDaoSupport daoSupport = newDaoSupport(session, new ArrayList<ExecutorType>());
+        List<Object> consumed = new ArrayList<Object>();
+        Assert.assertEquals(3, daoSupport.selectStream("User.select", null, 100, consumed::add));
+        //fetchSize为0时不设置
+        Assert.assertEquals(3, daoSupport.selectStream("User.select", null, 0, consumed::add));
+        Assert.assertEquals(Arrays.asList("fetchSize:100", "closeCursor", "close", "closeCursor", "close"), session.calls);
+        Assert.assertEquals(6, consumed.size());
+    }
+}
@@ -17,9 +17,11 @@
 package configs;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.stategen.framework.lite.IResponseStatus;
 import org.stategen.framework.util.NumberUtil;
 import org.stategen.framework.web.cookie.CookieTokenGenerator;
 
@@ -44,6 +46,26 @@ public class Configration {
     
     public static volatile  Integer     MAX_REQUEST_PER_IP_SECOND = 20;
     
+    /***是否在 MultiFilter 中按ip限流，以前该配置没有生效，默认不开启*/
+    public static volatile  boolean     RATE_LIMIT_ENABLED = false;
+    
+    /***同一ip同一路径每秒最大请求数，<=0不限制*/
+    public static volatile  Integer     MAX_REQUEST_PER_IP_PATH_SECOND = 0;
+    
+    /***限流桶的最大数量，超出后先清理空闲的桶，仍然超出时新的key共用溢出桶*/
+    public static volatile  Integer     RATE_LIMIT_MAX_KEYS = 100000;
+    
+    /***
+     * 可信代理(如nginx)的ip，限流默认按remoteAddr，remoteAddr是可信代理时才按x-forwarded-for中的地址，
+     * 见 RequestUtil.getClientAddr
+     */
+    public static volatile  Set<String> RATE_LIMIT_TRUSTED_PROXIES = Collections.emptySet();
+    
+    /***被限流时返回的状态，为空时返回 RATE_LIMIT_MESSAGE*/
+    public static volatile  IResponseStatus RATE_LIMIT_RESPONSE_STATUS = null;
+    
+    public static volatile  String      RATE_LIMIT_MESSAGE = "请求太频繁，请稍后再试";
+    
 //    public static volatile  Boolean     CHECK_COOKIE_FAKE    = true;
 
 //    public static volatile Boolean     STRONG             = true;
@@ -104,6 +126,35 @@ public class Configration {
         }
     }
 
+    public void setMaxRequestPerIpPathSecond(Integer maxRequestPerIpPathSecond) {
+        if (maxRequestPerIpPathSecond != null) {
+            Configration.MAX_REQUEST_PER_IP_PATH_SECOND = maxRequestPerIpPathSecond;
+        }
+    }
+
+    public void setRateLimitEnabled(boolean rateLimitEnabled) {
+        Configration.RATE_LIMIT_ENABLED = rateLimitEnabled;
+    }
+
+    public void setRateLimitMaxKeys(Integer rateLimitMaxKeys) {
+        if (NumberUtil.isGreatZero(rateLimitMaxKeys)) {
+            Configration.RATE_LIMIT_MAX_KEYS = rateLimitMaxKeys;
+        }
+    }
+
+    public void setRateLimitTrustedProxies(Set<String> rateLimitTrustedProxies) {
+        Configration.RATE_LIMIT_TRUSTED_PROXIES = rateLimitTrustedProxies != null ? new HashSet<String>(rateLimitTrustedProxies)
+                : Collections.<String> emptySet();
+    }
+
+    public void setRateLimitResponseStatus(IResponseStatus rateLimitResponseStatus) {
+        Configration.RATE_LIMIT_RESPONSE_STATUS = rateLimitResponseStatus;
+    }
+
+    public void setRateLimitMessage(String rateLimitMessage) {
+        Configration.RATE_LIMIT_MESSAGE = rateLimitMessage;
+    }
+
     public void setTokenAge(Integer tokenAge) {
         if (tokenAge <= 0) {
             logger.warn("输出warn信息： tokenAge设为<=0,设置不成功:" + tokenAge);
@@ -17,13 +17,34 @@
 package org.stategen.framework.response;
 
 import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.beans.factory.Aware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.ReflectionUtils;
 import org.stategen.framework.lite.BaseResponse;
 import org.stategen.framework.lite.IResponseStatus;
 import org.stategen.framework.spring.mvc.SpringContextHolder;
@@ -39,16 +60,157 @@ public class ResponseUtil {
     /***限流类和msg对应关系，TODO 是否返回ResponseStatus更好?*/
     public final static Map<String, String> BLOCK_MAP =new ConcurrentHashMap<String, String>(5);
 
+    /***这些注解需要spring的BeanPostProcessor处理，bean类上有时不能直接用构造函数创建，按名称比较，不依赖这些注解在classpath中*/
+    private final static Set<String> INJECTION_ANNOTATIONS = new HashSet<String>(Arrays.asList(
+        "org.springframework.beans.factory.annotation.Autowired", "org.springframework.beans.factory.annotation.Value",
+        "org.springframework.beans.factory.annotation.Lookup", "org.springframework.beans.factory.annotation.Required",
+        "javax.annotation.Resource", "javax.annotation.PostConstruct", "javax.annotation.PreDestroy", "javax.inject.Inject",
+        "jakarta.annotation.Resource", "jakarta.annotation.PostConstruct", "jakarta.annotation.PreDestroy", "jakarta.inject.Inject",
+        "javax.persistence.PersistenceContext", "javax.persistence.PersistenceUnit"));
+
+    /***
+     * spring自己注册的BeanPostProcessor，只处理上面的注解、Aware接口或ApplicationListener，这些情况已单独判断，
+     * 其它的(比如aop的代理、用户自定义的)可能改变或替换bean，有这些BeanPostProcessor时不直接用构造函数创建
+     */
+    private final static Set<String> INFRASTRUCTURE_POST_PROCESSORS = new HashSet<String>(Arrays.asList(
+        "org.springframework.context.support.ApplicationContextAwareProcessor",
+        "org.springframework.context.support.ApplicationListenerDetector",
+        "org.springframework.context.support.PostProcessorRegistrationDelegate$BeanPostProcessorChecker",
+        "org.springframework.context.annotation.ConfigurationClassPostProcessor$ImportAwareBeanPostProcessor",
+        "org.springframework.context.annotation.CommonAnnotationBeanPostProcessor",
+        "org.springframework.context.weaving.LoadTimeWeaverAwareProcessor",
+        "org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor",
+        "org.springframework.beans.factory.annotation.RequiredAnnotationBeanPostProcessor",
+        "org.springframework.beans.factory.annotation.InitDestroyAnnotationBeanPostProcessor",
+        "org.springframework.orm.jpa.support.PersistenceAnnotationBeanPostProcessor",
+        "org.springframework.web.context.support.ServletContextAwareProcessor",
+        "org.springframework.boot.web.servlet.context.WebApplicationContextServletContextAwareProcessor"));
+
+    /***是否允许initResponseFactory直接用构造函数创建response，默认关闭*/
+    private static volatile boolean constructResponseDirectly = false;
+
+    /***创建BaseResponse的工厂，默认每次从spring容器中取名为response的prototype bean*/
+    private static volatile Supplier<? extends BaseResponse<?>> responseFactory = ResponseUtil::getResponseBean;
+
+    private static BaseResponse<?> getResponseBean() {
+        return SpringContextHolder.getBean(Constant.RESPONSE_NAME);
+    }
+
+    /***自定义BaseResponse的创建方式，比如 Response::new */
+    public static void setResponseFactory(Supplier<? extends BaseResponse<?>> responseFactory) {
+        ResponseUtil.responseFactory = responseFactory != null ? responseFactory : ResponseUtil::getResponseBean;
+    }
+
+    /***
+     * 开启后initResponseFactory在名为response的bean足够简单时直接用构造函数创建，
+     * 开启前确认该bean不依赖spring容器的其它处理，比如BeanFactoryPostProcessor修改了它的定义
+     */
+    public static void setConstructResponseDirectly(boolean constructResponseDirectly) {
+        ResponseUtil.constructResponseDirectly = constructResponseDirectly;
+    }
+
+    /***
+     * 容器启动后调用，开启了constructResponseDirectly，并且名为response的bean只是一个简单的prototype
+     * (没有属性、构造参数、init方法、工厂方法、lookup方法，不自动装配，也不是Aware等回调接口，
+     * 字段、方法、构造函数上也没有@Autowired、@Value、@Resource、@PostConstruct等注解，容器中也没有spring以外的BeanPostProcessor)，
+     * 直接用它的无参构造函数创建，不再每次经过spring的bean工厂
+     */
+    public static void initResponseFactory(ApplicationContext applicationContext) {
+        if (!constructResponseDirectly || !(applicationContext instanceof ConfigurableApplicationContext)) {
+            return;
+        }
+        ConfigurableListableBeanFactory beanFactory = ((ConfigurableApplicationContext) applicationContext).getBeanFactory();
+        if (!beanFactory.containsBean(Constant.RESPONSE_NAME)) {
+            return;
+        }
+        BeanDefinition beanDefinition = beanFactory.getMergedBeanDefinition(Constant.RESPONSE_NAME);
+        Class<?> responseClz = beanFactory.getType(Constant.RESPONSE_NAME);
+        if (!(beanDefinition instanceof AbstractBeanDefinition) || !beanDefinition.isPrototype() || beanDefinition.hasPropertyValues() || beanDefinition.hasConstructorArgumentValues()
+            || beanDefinition.getInitMethodName() != null || beanDefinition.getFactoryMethodName() != null
+            || ((AbstractBeanDefinition) beanDefinition).getAutowireMode() != AbstractBeanDefinition.AUTOWIRE_NO
+            || !((AbstractBeanDefinition) beanDefinition).getMethodOverrides().isEmpty() || hasCustomBeanPostProcessor(beanFactory) || responseClz == null
+            || !BaseResponse.class.isAssignableFrom(responseClz) || !responseClz.getName().equals(beanDefinition.getBeanClassName())
+            || Aware.class.isAssignableFrom(responseClz) || InitializingBean.class.isAssignableFrom(responseClz)
+            || DisposableBean.class.isAssignableFrom(responseClz) || ApplicationListener.class.isAssignableFrom(responseClz)
+            || hasInjectionAnnotation(responseClz)) {
+            if (logger.isInfoEnabled()) {
+                logger.info(new StringBuilder("bean:").append(Constant.RESPONSE_NAME).append(" 不是简单的prototype,仍从spring容器中创建").toString());
+            }
+            return;
+        }
+
+        final Constructor<?> constructor;
+        try {
+            constructor = responseClz.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            return;
+        }
+        ReflectionUtils.makeAccessible(constructor);
+        setResponseFactory(() -> newInstance(constructor));
+        if (logger.isInfoEnabled()) {
+            logger.info(new StringBuilder("bean:").append(Constant.RESPONSE_NAME).append(" 直接由构造函数创建:").append(responseClz).toString());
+        }
+    }
+
+    private static boolean hasCustomBeanPostProcessor(ConfigurableListableBeanFactory beanFactory) {
+        if (!(beanFactory instanceof AbstractBeanFactory)) {
+            return true;
+        }
+        List<BeanPostProcessor> beanPostProcessors = ((AbstractBeanFactory) beanFactory).getBeanPostProcessors();
+        for (BeanPostProcessor beanPostProcessor : beanPostProcessors) {
+            if (!INFRASTRUCTURE_POST_PROCESSORS.contains(beanPostProcessor.getClass().getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasInjectionAnnotation(Class<?> clz) {
+        for (Class<?> current = clz; current != null && current != Object.class; current = current.getSuperclass()) {
+            if (hasInjectionAnnotation(current.getDeclaredFields()) || hasInjectionAnnotation(current.getDeclaredMethods())
+                || hasInjectionAnnotation(current.getDeclaredConstructors())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasInjectionAnnotation(AccessibleObject[] members) {
+        for (AccessibleObject member : members) {
+            for (Annotation annotation : member.getDeclaredAnnotations()) {
+                if (INJECTION_ANNOTATIONS.contains(annotation.annotationType().getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static BaseResponse<?> newInstance(Constructor<?> constructor) {
+        try {
+            return (BaseResponse<?>) constructor.newInstance();
+        } catch (InvocationTargetException e) {
+            ReflectionUtils.rethrowRuntimeException(e.getTargetException());
+        } catch (ReflectiveOperationException e) {
+            ReflectionUtils.handleReflectionException(e);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> BaseResponse<T> newResponse() {
+        return (BaseResponse<T>) responseFactory.get();
+    }
+
     @SuppressWarnings("unchecked")
     public static <T> BaseResponse<T> buildResponse(T data, IResponseStatus responseStatus) {
         BaseResponse<T> resultResponse = null;
         if (data == null) {
-            resultResponse = SpringContextHolder.getBean(Constant.RESPONSE_NAME);
+            resultResponse = newResponse();
             resultResponse.setStatus(responseStatus);
         } else {
-            Class<?> resultClz = data.getClass();
-            if (!BaseResponse.class.isAssignableFrom(resultClz)) {
-                resultResponse = SpringContextHolder.getBean(Constant.RESPONSE_NAME);
+            if (!(data instanceof BaseResponse)) {
+                resultResponse = newResponse();
                 resultResponse.setData(data);
                 resultResponse.setStatus(responseStatus);
             } else {
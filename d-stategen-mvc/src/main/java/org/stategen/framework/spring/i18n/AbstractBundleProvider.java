@@ -24,11 +24,10 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.stategen.framework.cache.LocalCacheNameTaker;
+import org.stategen.framework.cache.LocalCacheStats;
 import org.stategen.framework.util.AssertUtil;
 import org.stategen.framework.util.CollectionUtil;
 import org.stategen.framework.util.StringComparetor;
@@ -52,7 +51,10 @@ public abstract class AbstractBundleProvider implements BundleProvider,Initializ
 
     private LocalCacheNameTaker<Map<Object, SignedResourceBundle>> bundleTaker             = null;
 
-    private  Lock                                                       resourceBundleLock      =  new ReentrantLock();
+    /***为true时，资源被通知改变后先继续使用旧的资源，由后台线程重新加载全部ConfigBean后替换*/
+    private boolean                                                    staleWhileRevalidate    = false;
+
+    private long                                                       maxStaleMillis          = 0L;
 
 //    private AtomicBoolean bundleCreateState =new AtomicBoolean(false);
     private Boolean                                                    useCodeAsDefaultMessage = null;
@@ -126,21 +128,8 @@ public abstract class AbstractBundleProvider implements BundleProvider,Initializ
     }
 
     public Map<Object, SignedResourceBundle> getResourceBundleMap() {
-        Map<Object, SignedResourceBundle> resourceBundleMap = bundleTaker.getCache();
-        if (resourceBundleMap == null) {
-            resourceBundleLock.lock();
-            try {
-                //再获得一次,如果有其它线程设置了这个值，就不用再创建了,通常上面有锁可以保证第一个线程一定能够获得这个值
-                resourceBundleMap = bundleTaker.getCache();
-                if (resourceBundleMap == null) {
-                    resourceBundleMap = createDistributeResourceBundleMap();
-                    bundleTaker.putToCache(resourceBundleMap);
-                } 
-            } finally {
-                resourceBundleLock.unlock();
-            }
-        }
-        return resourceBundleMap;
+        //未命中时 bundleTaker 加锁并二次检查，保证只有一个线程创建
+        return bundleTaker.get(this::createDistributeResourceBundleMap);
     }
     
     protected SignedResourceBundle getSignedResourceBundleIfNullDefault(Locale locale){
@@ -166,6 +155,8 @@ public abstract class AbstractBundleProvider implements BundleProvider,Initializ
     public void createBundleTaker(){
         if (notifyName!=null && tableName!=null){
             bundleTaker = new LocalCacheNameTaker<Map<Object, SignedResourceBundle>>(notifyName,tableName,bundleName);
+            bundleTaker.setStaleWhileRevalidate(staleWhileRevalidate);
+            bundleTaker.setMaxStaleMillis(maxStaleMillis);
         }
     }
     
@@ -216,6 +207,25 @@ public abstract class AbstractBundleProvider implements BundleProvider,Initializ
         createBundleTaker();
     }
 
+    public void setStaleWhileRevalidate(boolean staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        if (bundleTaker != null) {
+            bundleTaker.setStaleWhileRevalidate(staleWhileRevalidate);
+        }
+    }
+
+    public void setMaxStaleMillis(long maxStaleMillis) {
+        this.maxStaleMillis = maxStaleMillis;
+        if (bundleTaker != null) {
+            bundleTaker.setMaxStaleMillis(maxStaleMillis);
+        }
+    }
+
+    /***资源的命中、后台刷新次数与耗时等*/
+    public LocalCacheStats getBundleStats() {
+        return bundleTaker != null ? bundleTaker.getStats() : null;
+    }
+
     @Override
     public void setUseCodeAsDefaultMessage(Boolean useCodeAsDefaultMessage) {
         this.useCodeAsDefaultMessage = useCodeAsDefaultMessage;
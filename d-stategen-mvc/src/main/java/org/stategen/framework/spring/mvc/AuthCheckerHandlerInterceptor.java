@@ -20,6 +20,8 @@ import java.lang.annotation.Annotation;
 import java.lang.annotation.Repeatable;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -27,6 +29,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.http.HttpStatus;
@@ -35,6 +39,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 import org.stategen.framework.annotation.Check;
 import org.stategen.framework.checker.AbstractMethodChecker;
 import org.stategen.framework.lite.CheckExcludeController;
@@ -49,12 +54,22 @@ import org.stategen.framework.util.TagArrayList;
 
 /**
  * The Class AuthCheckerHandlerInterceptor.
+ * 容器启动完成后，为 RequestMappingHandlerMapping 中注册的所有handler方法编译好 CheckPlan，
+ * preHandle 只按方法查表，不再做标注反射
  */
-public class AuthCheckerHandlerInterceptor extends ResponseStatusTypeHandler implements HandlerInterceptor {
-    final static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(AuthCheckerHandlerInterceptor.class);
-
+public class AuthCheckerHandlerInterceptor extends ResponseStatusTypeHandler implements HandlerInterceptor, ApplicationListener<ContextRefreshedEvent> {
+    final static org.slf4j.Logger           logger     = org.slf4j.LoggerFactory.getLogger(AuthCheckerHandlerInterceptor.class);
+
+    /***
+     * @deprecated preHandle不再读取该表，只在编译 CheckPlan 时经 getOrCreateCheckAnnoCache 写入，保留只为兼容，
+     * 请改用 getCheckPlan 取方法的校验标注
+     */
+    @Deprecated
     public static Map<Method, TagArrayList<Annotation>> METHOD_CHECKERS_MAP = new ConcurrentHashMap<Method, TagArrayList<Annotation>>();
 
+    /***启动后只读，未编译过的方法在运行时编译后复制一份新表替换*/
+    private volatile Map<Method, CheckPlan> checkPlans = Collections.emptyMap();
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
         if (!(handler instanceof HandlerMethod)) {
@@ -63,54 +78,101 @@ public class AuthCheckerHandlerInterceptor extends ResponseStatusTypeHandler imp
         final HandlerMethod handlerMethod = (HandlerMethod) handler;
         Method method = handlerMethod.getMethod();
 
-        //不是 RequestMapping的方法不额外处理
-        RequestMapping requestMappingAnn = AnnotationUtil.getAnnotation(method, RequestMapping.class);
-
-        if (requestMappingAnn == null) {
-            //没有requestMapping,不拦截
+        CheckPlan checkPlan = getCheckPlan(method);
+        //没有requestMapping,不拦截
+        if (!checkPlan.isMapped()) {
             return true;
         }
 
-        TagArrayList<Annotation> checkAnnos = getOrCreateCheckAnnoCache(method);
-        if (CollectionUtil.isNotEmpty(checkAnnos)) {
-
-            ResponseBody responseBodyAnno = AnnotationUtil.getMethodOrOwnerAnnotation(method, ResponseBody.class);
-
-            for (Annotation checkAnno : checkAnnos) {
-                Class<? extends Annotation> checkAnnoClz = checkAnno.annotationType();
-                AbstractMethodChecker<Annotation> abstractMethodChecker = AbstractMethodChecker.getChecker(checkAnnoClz);
-                AssertUtil.mustNotNull(abstractMethodChecker, new StringBuilder("标注:").append(checkAnnoClz).append(" 没有找到相应的校验器").toString());
-                IResponseStatus errorResponseStatus = abstractMethodChecker.doCheck(method, checkAnno, getResponseStatus().getRegisterClass());
-                response.setStatus(HttpStatus.UNAUTHORIZED.value());
-                if (errorResponseStatus != null) {
-                    if (responseBodyAnno != null) {
-                        ResponseUtil.writhResponse(true,null, errorResponseStatus);
-                        if (logger.isInfoEnabled()) {
-                            logger.info(new StringBuilder("校验").append(checkAnnoClz).append(" 没有通过，方法执行被拦截!").toString());
-                        }
-                    } else {
-                        ResponseUtil.writeResponsePage(errorResponseStatus);
+        for (int i = 0, size = checkPlan.size(); i < size; i++) {
+            Annotation checkAnno = checkPlan.getCheckAnno(i);
+            AbstractMethodChecker<Annotation> abstractMethodChecker = checkPlan.getChecker(i);
+            if (abstractMethodChecker == null) {
+                AssertUtil.throwException(new StringBuilder("标注:").append(checkAnno.annotationType()).append(" 没有找到相应的校验器").toString());
+            }
+            IResponseStatus errorResponseStatus = abstractMethodChecker.doCheck(method, checkAnno, getResponseStatus().getRegisterClass());
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            if (errorResponseStatus != null) {
+                if (checkPlan.isResponseBody()) {
+                    ResponseUtil.writhResponse(true,null, errorResponseStatus);
+                    if (logger.isInfoEnabled()) {
+                        logger.info(new StringBuilder("校验").append(checkAnno.annotationType()).append(" 没有通过，方法执行被拦截!").toString());
                     }
-                    return false;
+                } else {
+                    ResponseUtil.writeResponsePage(errorResponseStatus);
                 }
+                return false;
             }
         }
         return true;
     }
 
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        Map<String, RequestMappingHandlerMapping> handlerMappings = event.getApplicationContext().getBeansOfType(RequestMappingHandlerMapping.class);
+        Map<Method, CheckPlan> compiledPlans = new HashMap<Method, CheckPlan>();
+        int checkedCount = 0;
+        for (RequestMappingHandlerMapping handlerMapping : handlerMappings.values()) {
+            for (HandlerMethod handlerMethod : handlerMapping.getHandlerMethods().values()) {
+                Method method = handlerMethod.getMethod();
+                if (!compiledPlans.containsKey(method)) {
+                    CheckPlan checkPlan = compileCheckPlan(method);
+                    compiledPlans.put(method, checkPlan);
+                    if (checkPlan.size() > 0) {
+                        checkedCount++;
+                    }
+                    if (!checkPlan.isResolved() && logger.isWarnEnabled()) {
+                        logger.warn(new StringBuilder("方法:").append(method).append(" 上的校验标注还没有注册相应的校验器").toString());
+                    }
+                }
+            }
+        }
+        this.checkPlans = Collections.unmodifiableMap(compiledPlans);
+        if (logger.isInfoEnabled()) {
+            logger.info(new StringBuilder("编译校验计划,handler方法数:").append(compiledPlans.size()).append(" 需要校验的方法数:").append(checkedCount).toString());
+        }
+    }
+
+    protected CheckPlan getCheckPlan(Method method) {
+        CheckPlan checkPlan = checkPlans.get(method);
+        if (checkPlan == null) {
+            //不是由RequestMappingHandlerMapping注册的方法，或者容器还没有刷新完
+            checkPlan = compileCheckPlan(method);
+            synchronized (this) {
+                Map<Method, CheckPlan> newPlans = new HashMap<Method, CheckPlan>(checkPlans);
+                newPlans.put(method, checkPlan);
+                this.checkPlans = Collections.unmodifiableMap(newPlans);
+            }
+        }
+        return checkPlan;
+    }
+
+    protected CheckPlan compileCheckPlan(Method method) {
+        //不是 RequestMapping的方法不额外处理
+        RequestMapping requestMappingAnn = AnnotationUtil.getAnnotation(method, RequestMapping.class);
+        if (requestMappingAnn == null) {
+            return CheckPlan.NOT_MAPPED;
+        }
+
+        TagArrayList<Annotation> checkAnnos = getOrCreateCheckAnnoCache(method);
+        ResponseBody responseBodyAnno = AnnotationUtil.getMethodOrOwnerAnnotation(method, ResponseBody.class);
+        return CheckPlan.compile(responseBodyAnno != null, checkAnnos);
+    }
+
+    /***
+     * @deprecated 只在编译 CheckPlan 时调用一次，已覆盖该方法的子类仍然有效，新的扩展请覆盖 compileCheckPlan
+     */
+    @Deprecated
     protected TagArrayList<Annotation> getOrCreateCheckAnnoCache(Method method) {
         GetOrCreateWrap<TagArrayList<Annotation>> annoWrap = CollectionUtil.getOrCreateList(method, METHOD_CHECKERS_MAP, TagArrayList.class);
         TagArrayList<Annotation> checkAnnos = annoWrap.getValue();
-        if (annoWrap.isNew()) {
-            synchronized (checkAnnos) {
-                if (!checkAnnos.isTagged()) {
-                    scanCheckAnnos(method, checkAnnos);
-                    Class<?> declaringClass = method.getDeclaringClass();
-                    if (AnnotationUtils.getAnnotation(method, CheckExcludeController.class) == null) {
-                        scanCheckAnnos(declaringClass, checkAnnos);
-                    }
-                    checkAnnos.setTagged(true);
+        synchronized (checkAnnos) {
+            if (!checkAnnos.isTagged()) {
+                scanCheckAnnos(method, checkAnnos);
+                if (AnnotationUtils.getAnnotation(method, CheckExcludeController.class) == null) {
+                    scanCheckAnnos(method.getDeclaringClass(), checkAnnos);
                 }
+                checkAnnos.setTagged(true);
             }
         }
         return checkAnnos;
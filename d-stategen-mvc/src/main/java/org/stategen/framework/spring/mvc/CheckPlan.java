@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.spring.mvc;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+import org.stategen.framework.checker.AbstractMethodChecker;
+
+/***
+ * 一个handler方法的校验计划，启动时由 AuthCheckerHandlerInterceptor 根据方法和所在Controller上的标注编译好，运行时只读
+ * preHandle 按下标依次取出标注和校验器，不再做标注反射，也不创建对象
+ */
+public final class CheckPlan {
+
+    private static final Annotation[]                CHECK_ANNOS_EMPTY = new Annotation[0];
+
+    @SuppressWarnings("unchecked")
+    private static final AbstractMethodChecker<Annotation>[] CHECKERS_EMPTY = new AbstractMethodChecker[0];
+
+    /***不是RequestMapping的方法，不拦截*/
+    public static final CheckPlan                    NOT_MAPPED        = new CheckPlan(false, false, CHECK_ANNOS_EMPTY, CHECKERS_EMPTY);
+
+    private final boolean                            mapped;
+
+    /***有ResponseBody时校验失败写json,否则写错误页面*/
+    private final boolean                            responseBody;
+
+    private final Annotation[]                       checkAnnos;
+
+    /***与checkAnnos下标对应,编译时校验器还没有注册的为null，运行时再到AbstractMethodChecker中查找*/
+    private final AbstractMethodChecker<Annotation>[] checkers;
+
+    private CheckPlan(boolean mapped, boolean responseBody, Annotation[] checkAnnos, AbstractMethodChecker<Annotation>[] checkers) {
+        this.mapped = mapped;
+        this.responseBody = responseBody;
+        this.checkAnnos = checkAnnos;
+        this.checkers = checkers;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static CheckPlan compile(boolean responseBody, List<Annotation> checkAnnos) {
+        int size = checkAnnos.size();
+        if (size == 0) {
+            return new CheckPlan(true, responseBody, CHECK_ANNOS_EMPTY, CHECKERS_EMPTY);
+        }
+        Annotation[] annos = checkAnnos.toArray(new Annotation[size]);
+        AbstractMethodChecker<Annotation>[] checkers = new AbstractMethodChecker[size];
+        for (int i = 0; i < size; i++) {
+            checkers[i] = AbstractMethodChecker.getChecker(annos[i].annotationType());
+        }
+        return new CheckPlan(true, responseBody, annos, checkers);
+    }
+
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    public boolean isResponseBody() {
+        return responseBody;
+    }
+
+    public int size() {
+        return checkAnnos.length;
+    }
+
+    public Annotation getCheckAnno(int index) {
+        return checkAnnos[index];
+    }
+
+    public AbstractMethodChecker<Annotation> getChecker(int index) {
+        AbstractMethodChecker<Annotation> checker = checkers[index];
+        if (checker == null) {
+            checker = AbstractMethodChecker.getChecker(checkAnnos[index].annotationType());
+        }
+        return checker;
+    }
+
+    /***有校验器在编译时还没有注册，返回false*/
+    public boolean isResolved() {
+        for (AbstractMethodChecker<Annotation> checker : checkers) {
+            if (checker == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -16,16 +16,9 @@
  */
 package org.stategen.framework.spring.mvc;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.TimeZone;
 
-import org.joda.time.DateTime;
 import org.springframework.core.convert.converter.Converter;
 import org.stategen.framework.util.StringUtil;
 
@@ -33,123 +26,171 @@ import org.stategen.framework.util.StringUtil;
 
 /**
  * The Class DateConvertor.
+ * 支持 yyyy-MM-dd, yyyy/MM/dd, yyyy.MM.dd, yyyyMMdd,后面可以跟空白及 HH:mm:ss(分隔符为 : - / . 或没有),再跟 .SSS 或 SSS
+ * 10位数字为unix秒，13位数字为unix毫秒
+ * 按长度和分隔符逐字符解析，不用正则和SimpleDateFormat，线程安全，除返回的Date外不创建对象
+ * 与原SimpleDateFormat(lenient)一致，月、日、时、分、秒超出范围时进位，时间及毫秒部分不匹配时忽略
  */
 public class DateConvertor implements Converter<String, Date> {
 
-    final static org.slf4j.Logger                       logger                  = org.slf4j.LoggerFactory.getLogger(DateConvertor.class);
-    private static final Map<Pattern, SimpleDateFormat> DATE_PATTERN_FORMAT_MAP = new HashMap<Pattern, SimpleDateFormat>();
-    private static final Map<Pattern, SimpleDateFormat> TIME_PATTERN_FORMAT_MAP = new HashMap<Pattern, SimpleDateFormat>();
-    private static final Map<Pattern, SimpleDateFormat> MIC_PATTERN_FORMAT_MAP  = new HashMap<Pattern, SimpleDateFormat>();
-    private static final Pattern UNIX_PATTERN=Pattern.compile("^\\d{10}$");
-    private static final Pattern UNIX_PATTERN_MILLS=Pattern.compile("^\\d{13}$");
-    
-
-    static {
-        genPattern(DATE_PATTERN_FORMAT_MAP, "yyyy-MM-dd", "^\\d{4}-\\d{2}-\\d{2}");
-        genPattern(DATE_PATTERN_FORMAT_MAP, "yyyy/MM/dd", "^\\d{4}/\\d{2}/\\d{2}");
-        genPattern(DATE_PATTERN_FORMAT_MAP, "yyyyMMdd", "^\\d{4}\\d{2}\\d{2}$");
-        genPattern(DATE_PATTERN_FORMAT_MAP, "yyyy.MM.dd", "^\\d{4}\\.\\d{2}\\.\\d{2}");
-
-        genPattern(TIME_PATTERN_FORMAT_MAP, "HH-mm-ss", "^\\d{2}-\\d{2}-\\d{2}");
-        genPattern(TIME_PATTERN_FORMAT_MAP, "HH:mm:ss", "^\\d{2}:\\d{2}:\\d{2}");
-        genPattern(TIME_PATTERN_FORMAT_MAP, "HH/mm/ss", "^\\d{2}/\\d{2}/\\d{2}");
-        genPattern(TIME_PATTERN_FORMAT_MAP, "HHmmss", "^\\d{2}\\d{2}\\d{2}");
-        genPattern(TIME_PATTERN_FORMAT_MAP, "HH.mm.ss", "^\\d{2}\\.\\d{2}\\.\\d{2}");
-
-        genPattern(MIC_PATTERN_FORMAT_MAP, ".SSS", "^\\.\\d{3}$");
-        genPattern(MIC_PATTERN_FORMAT_MAP, "SSS", "^\\d{3}$");
-
-
-        //        genPattern("yyyy-MM-dd","^\\d{4}-\\d{2}-\\d{2}$");
-        //        genPattern("yyyy-MM-dd HH-mm-ss","^\\d{4}-\\d{2}-\\d{2} \\d{2}-\\d{2}-\\d{2}$");
-        //        genPattern("yyyy-MM-dd HH-mm-ss.SSS","^\\d{4}-\\d{2}-\\d{2} \\d{2}-\\d{2}-\\d{2}.\\d{3}$");
-        //        genPattern("yyyy-MM-dd HH:mm:ss","^\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}$");
-        //        genPattern("yyyy-MM-dd HH:mm:ss.SSS","^\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}.\\d{3}$");
-        //        genPattern("yyyy/MM/dd","^\\d{4}/\\d{2}/\\d{2}$");
-        //        genPattern("yyyy/MM/dd HH/mm/ss","^\\d{4}/\\d{2}/\\d{2} \\d{2}/\\d{2}/\\d{2}$");
-        //        genPattern("yyyy/MM/dd HH/mm/ss.SSS","^\\d{4}/\\d{2}/\\d{2} \\d{2}/\\d{2}/\\d{2}.\\d{3}$");
-        //        genPattern("yyyyMMdd","^\\d{4}\\d{2}\\d{2}$");
-        //        genPattern("yyyyMMdd HHmmss","^\\d{4}\\d{2}\\d{2} \\d{2}\\d{2}\\d{2}$");
-        //        genPattern("yyyyMMdd HHmmss.SSS","^\\d{4}\\d{2}\\d{2} \\d{2}\\d{2}\\d{2}.\\d{3}$");
-        //        genPattern("yyyy.MM.dd","^\\d{4}\\.\\d{2}\\.\\d{2}$");
-        //        genPattern("yyyy.MM.dd HH.mm.ss","^\\d{4}\\.\\d{2}\\.\\d{2} \\d{2}\\.\\d{2}\\.\\d{2}$");
-        //        genPattern("yyyy.MM.dd HH.mm.ss.SSS","^\\d{4}\\.\\d{2}\\.\\d{2} \\d{2}\\.\\d{2}\\.\\d{2}.\\d{3}$");
-        //        //1473048265
-        //        genPattern("SSSSSSSSSS","");
-        //        genPattern("SSSSSSSSSSSSS","^\\d{13}$");
-    }
+    final static org.slf4j.Logger logger            = org.slf4j.LoggerFactory.getLogger(DateConvertor.class);
 
-    private static void genPattern(Map<Pattern, SimpleDateFormat> datePatternFormatMap, String format, String reg) {
-        datePatternFormatMap.put(Pattern.compile(reg), new SimpleDateFormat(format));
-    }
+    /** 与原来静态的SimpleDateFormat一样，使用类加载时的缺省时区 */
+    private static final TimeZone TIME_ZONE         = TimeZone.getDefault();
+
+    /** 不能解析时返回 */
+    static final long             NOT_DATE          = Long.MIN_VALUE;
+
+    private static final long     MILLIS_PER_SECOND = 1000L;
+    private static final long     MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+    private static final long     MILLIS_PER_HOUR   = 60 * MILLIS_PER_MINUTE;
+    private static final long     MILLIS_PER_DAY    = 24 * MILLIS_PER_HOUR;
+    /** 0000-03-01 至 1970-01-01 的天数 */
+    private static final long     DAYS_0000_TO_1970 = 719468L;
 
     public Date convert(String source) {
         if (StringUtil.isEmpty(source)) {
             return null;
         }
+        long millis = parseMillis(source);
+        return millis != NOT_DATE ? new Date(millis) : null;
+    }
 
-        source = source.trim();
-        if (StringUtil.isNotEmpty(source)){
-            int length = source.length();
-            if (length==10){
-                if (UNIX_PATTERN.matcher(source).find()){
-                    return new Date(Long.parseLong(source)*1000);
-                }
+    /***解析为unix毫秒，不能解析时返回 NOT_DATE*/
+    static long parseMillis(String source) {
+        int begin = 0;
+        int end = source.length();
+        while (begin < end && source.charAt(begin) <= ' ') {
+            begin++;
+        }
+        while (end > begin && source.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        int length = end - begin;
+        if ((length == 10 || length == 13) && isDigits(source, begin, end)) {
+            long value = parseDigits(source, begin, end);
+            return length == 10 ? value * MILLIS_PER_SECOND : value;
+        }
+
+        if (length < 8 || !isDigits(source, begin, begin + 4)) {
+            return NOT_DATE;
+        }
+
+        int year = (int) parseDigits(source, begin, begin + 4);
+        int month;
+        int day;
+        int pos;
+        char separator = source.charAt(begin + 4);
+        if (separator == '-' || separator == '/' || separator == '.') {
+            if (length < 10 || source.charAt(begin + 7) != separator || !isDigits(source, begin + 5, begin + 7)
+                || !isDigits(source, begin + 8, begin + 10)) {
+                return NOT_DATE;
             }
-            
-            if (length==13){
-                if (UNIX_PATTERN_MILLS.matcher(source).find()){
-                    return new Date(Long.parseLong(source));
-                }
+            month = (int) parseDigits(source, begin + 5, begin + 7);
+            day = (int) parseDigits(source, begin + 8, begin + 10);
+            pos = begin + 10;
+        } else {
+            //yyyyMMdd 后面只能是空白加时间
+            if (!isDigits(source, begin + 4, begin + 8) || (length > 8 && source.charAt(begin + 8) > ' ')) {
+                return NOT_DATE;
             }
-    
-            for (Entry<Pattern, SimpleDateFormat> dateEntry : DATE_PATTERN_FORMAT_MAP.entrySet()) {
-                Pattern datePattern = dateEntry.getKey();
-                Matcher dateMatcher = datePattern.matcher(source);
-                if (dateMatcher.find()) {
-                    String dateStr = dateMatcher.group();
-                    try {
-                        SimpleDateFormat yearFormat = dateEntry.getValue();
-                        Date date = yearFormat.parse(dateStr);
-                        DateTime dateTime = new DateTime(date);
-                        String timeStr = source.substring(dateMatcher.end());
-                        dateTime = parserMills(dateTime, timeStr, 0, TIME_PATTERN_FORMAT_MAP, MIC_PATTERN_FORMAT_MAP);
-                        return dateTime.toDate();
-                    } catch (ParseException e) {
-                        logger.error("", e);
-                    }
-                    break;
-                }
+            month = (int) parseDigits(source, begin + 4, begin + 6);
+            day = (int) parseDigits(source, begin + 6, begin + 8);
+            pos = begin + 8;
+        }
+
+        long localMillis = epochDay(year, month, day) * MILLIS_PER_DAY + parseTimeMillis(source, pos, end);
+        return toUtcMillis(localMillis);
+    }
+
+    /***时间部分，HH?mm?ss 的两个分隔符相同，可以没有分隔符，之后为 .SSS 或 SSS，不匹配的部分忽略*/
+    private static long parseTimeMillis(String source, int pos, int end) {
+        while (pos < end && source.charAt(pos) <= ' ') {
+            pos++;
+        }
+        if (end - pos < 6 || !isDigits(source, pos, pos + 2)) {
+            return 0;
+        }
+
+        long hour = parseDigits(source, pos, pos + 2);
+        long minute;
+        long second;
+        char separator = source.charAt(pos + 2);
+        if (separator == ':' || separator == '-' || separator == '/' || separator == '.') {
+            if (end - pos < 8 || source.charAt(pos + 5) != separator || !isDigits(source, pos + 3, pos + 5)
+                || !isDigits(source, pos + 6, pos + 8)) {
+                return 0;
             }
+            minute = parseDigits(source, pos + 3, pos + 5);
+            second = parseDigits(source, pos + 6, pos + 8);
+            pos += 8;
+        } else {
+            if (!isDigits(source, pos + 2, pos + 6)) {
+                return 0;
+            }
+            minute = parseDigits(source, pos + 2, pos + 4);
+            second = parseDigits(source, pos + 4, pos + 6);
+            pos += 6;
+        }
+        long millis = hour * MILLIS_PER_HOUR + minute * MILLIS_PER_MINUTE + second * MILLIS_PER_SECOND;
+
+        while (pos < end && source.charAt(pos) <= ' ') {
+            pos++;
+        }
+        if (end - pos == 4 && source.charAt(pos) == '.' && isDigits(source, pos + 1, end)) {
+            millis += parseDigits(source, pos + 1, end);
+        } else if (end - pos == 3 && isDigits(source, pos, end)) {
+            millis += parseDigits(source, pos, end);
         }
-        return null;
+        return millis;
     }
 
-    @SafeVarargs
-    private static DateTime parserMills(DateTime dateTime, String timeStr, int mapIdx, Map<Pattern, SimpleDateFormat>... maps) throws ParseException {
-        DateTime result = dateTime;
-        if (timeStr != null) {
-            timeStr = timeStr.trim();
-            if (StringUtil.isNotEmpty(timeStr)) {
-                for (Entry<Pattern, SimpleDateFormat> entry : maps[mapIdx].entrySet()) {
-                    Pattern pattern = entry.getKey();
-                    Matcher matcher = pattern.matcher(timeStr);
-                    if (matcher.find()) {
-                        String matcherGroup = matcher.group();
-                        SimpleDateFormat format = entry.getValue();
-                        Date date = format.parse(matcherGroup);
-                        DateTime timeDateTime = new DateTime(date);
-                        result = result.plusMillis(timeDateTime.getMillisOfDay());
-                        timeStr = timeStr.substring(matcher.end());
-                        mapIdx++;
-                        if (mapIdx < maps.length) {
-                            result = parserMills(result, timeStr, mapIdx, maps);
-                        }
-                        break;
-                    }
-                }
+    private static boolean isDigits(String source, int begin, int end) {
+        for (int i = begin; i < end; i++) {
+            char c = source.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
             }
         }
+        return true;
+    }
+
+    private static long parseDigits(String source, int begin, int end) {
+        long result = 0;
+        for (int i = begin; i < end; i++) {
+            result = result * 10 + (source.charAt(i) - '0');
+        }
         return result;
     }
+
+    /***公历日期距1970-01-01的天数，月份、日期超出范围时进位*/
+    static long epochDay(long year, int month, int day) {
+        long monthIndex = year * 12 + month - 1;
+        long y = Math.floorDiv(monthIndex, 12);
+        int m = (int) Math.floorMod(monthIndex, 12) + 1;
+        if (m <= 2) {
+            y--;
+        }
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (m > 2 ? m - 3 : m + 9) + 2) / 5;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - DAYS_0000_TO_1970 + day - 1;
+    }
+
+    /***本地时间转为utc毫秒，与ZonedDateTime一致：重叠时取切换前的偏移，不存在的时间按切换前的偏移向后推*/
+    private static long toUtcMillis(long localMillis) {
+        int earlyOffset = TIME_ZONE.getOffset(localMillis - MILLIS_PER_DAY);
+        long earlyMillis = localMillis - earlyOffset;
+        if (TIME_ZONE.getOffset(earlyMillis) == earlyOffset) {
+            return earlyMillis;
+        }
+        int lateOffset = TIME_ZONE.getOffset(localMillis + MILLIS_PER_DAY);
+        long lateMillis = localMillis - lateOffset;
+        if (TIME_ZONE.getOffset(lateMillis) == lateOffset) {
+            return lateMillis;
+        }
+        return earlyMillis;
+    }
 }
@@ -12,12 +12,11 @@
  */
 package org.stategen.framework.spring.mvc;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Writer;
 import java.lang.reflect.Type;
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 import org.springframework.beans.factory.InitializingBean;
@@ -28,15 +27,25 @@ import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.http.converter.HttpMessageNotWritableException;
 import org.stategen.framework.response.FastJsonResponseUtil;
+import org.stategen.framework.util.BytesPool;
 import org.stategen.framework.util.OptionalUtil;
 
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.JSONPObject;
+import com.alibaba.fastjson.serializer.JSONSerializer;
+import com.alibaba.fastjson.serializer.SerializeFilter;
+import com.alibaba.fastjson.serializer.SerializeWriter;
+import com.alibaba.fastjson.serializer.SerializerFeature;
 import com.alibaba.fastjson.support.config.FastJsonConfig;
+import com.alibaba.fastjson.support.spring.FastJsonContainer;
+import com.alibaba.fastjson.support.spring.MappingFastJsonValue;
 import com.alibaba.fastjson.util.IOUtils;
 
-import lombok.Cleanup;
-
 /**
  * The Class FastJsonHttpMessageConverter.
+ * utf-8时，json和plainString直接编码进线程内缓存的byte[](BytesPool)，不超过BytesPool.MAX_SIZE时一次写入并带上Content-Length，
+ * 超过后边序列化边写入body;读取String时按Content-Length一次读完
  */
 public class FastJsonHttpMessageConverter extends com.alibaba.fastjson.support.spring.FastJsonHttpMessageConverter
         implements InitializingBean {
@@ -70,24 +79,23 @@ public class FastJsonHttpMessageConverter extends com.alibaba.fastjson.support.s
         return result;
     }
     
+    protected Charset getCharset() {
+        return OptionalUtil.ifNull(getFastJsonConfig().getCharset(), IOUtils.UTF8);
+    }
+    
     @Override
     protected void writeInternal(
             Object obj,
             HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
         
+        Charset charset = getCharset();
         //fastjson设置为plainString时，直接写入String 张三 =>张三 而不是 "张三"
         if (plainString && obj != null && obj instanceof String) {
             //string 直接写入string,不加双引号
-            FastJsonConfig fastJsonConfig = getFastJsonConfig();
-            
-            String                text   = (String) obj;
-            @Cleanup
-            ByteArrayOutputStream outnew = new ByteArrayOutputStream();
-            
-            outnew.write(text.getBytes(fastJsonConfig.getCharset()));
+            String text = (String) obj;
             
             //headers先获得
-            HttpHeaders  headers = outputMessage.getHeaders();
+            HttpHeaders headers = outputMessage.getHeaders();
             
             //1.2.70中不设置，让它自己计算，更准确,否则不能在swagger中显示
             //if (fastJsonConfig.isWriteContentLength()) {
@@ -97,8 +105,19 @@ public class FastJsonHttpMessageConverter extends com.alibaba.fastjson.support.s
             headers.setContentType(MediaType.TEXT_PLAIN);
             
             //chrome中的response可以看到,swagger2中不展示，应该不是bug 
-            OutputStream body = outputMessage.getBody();
-            outnew.writeTo(body);
+            OutputStream body;
+            if (IOUtils.UTF8.equals(charset)) {
+                Utf8BodyWriter bodyWriter = new Utf8BodyWriter(outputMessage);
+                try {
+                    bodyWriter.write(text);
+                    body = bodyWriter.finish(false);
+                } finally {
+                    bodyWriter.close();
+                }
+            } else {
+                body = outputMessage.getBody();
+                body.write(text.getBytes(charset));
+            }
             //显示调用关闭 ，不然在 swagger中，显示 {"error": "no response from server" }
             body.close();
             if (logger.isDebugEnabled()) {
@@ -111,26 +130,96 @@ public class FastJsonHttpMessageConverter extends com.alibaba.fastjson.support.s
             return;
         }
         
+        if (IOUtils.UTF8.equals(charset) && isPlainValue(obj)) {
+            writeJson(obj, outputMessage);
+            return;
+        }
+        
         super.writeInternal(obj, outputMessage);
         
     }
     
-    private ByteBuffer getByteBuffer(InputStream is) throws IOException {
-        byte[] bytes  = new byte[1024 * 64];
-        int    offset = 0;
-        for (;;) {
-            int readCount = is.read(bytes, offset, bytes.length - offset);
-            if (readCount == -1) {
-                break;
+    /***jsonp等需要fastjson特殊处理的值仍交给父类*/
+    protected boolean isPlainValue(Object obj) {
+        return !(obj instanceof JSONPObject || obj instanceof MappingFastJsonValue || obj instanceof FastJsonContainer
+                 || (obj != null && "com.fasterxml.jackson.databind.node.ObjectNode".equals(obj.getClass().getName())));
+    }
+    
+    /***同父类用JSON.writeJSONString序列化，但SerializeWriter写满后直接交给Utf8BodyWriter,不经过ByteArrayOutputStream*/
+    protected void writeJson(Object obj, HttpOutputMessage outputMessage) throws IOException {
+        FastJsonConfig fastJsonConfig = getFastJsonConfig();
+        Utf8BodyWriter bodyWriter = new Utf8BodyWriter(outputMessage);
+        try {
+            SerializeWriter out = new SerializeWriter(bodyWriter, JSON.DEFAULT_GENERATE_FEATURE, fastJsonConfig.getSerializerFeatures());
+            try {
+                JSONSerializer serializer = new JSONSerializer(out, fastJsonConfig.getSerializeConfig());
+                String dateFormat = fastJsonConfig.getDateFormat();
+                if (dateFormat != null && dateFormat.length() != 0) {
+                    serializer.setDateFormat(dateFormat);
+                    serializer.config(SerializerFeature.WriteDateUseDateFormat, true);
+                }
+                SerializeFilter[] serializeFilters = fastJsonConfig.getSerializeFilters();
+                if (serializeFilters != null) {
+                    for (SerializeFilter serializeFilter : serializeFilters) {
+                        serializer.addFilter(serializeFilter);
+                    }
+                }
+                serializer.write(obj);
+                out.flush();
+            } finally {
+                out.close();
             }
-            offset += readCount;
-            if (offset == bytes.length) {
-                byte[] newBytes = new byte[bytes.length * 3 / 2];
-                System.arraycopy(bytes, 0, newBytes, 0, bytes.length);
-                bytes = newBytes;
+            bodyWriter.finish(fastJsonConfig.isWriteContentLength());
+        } catch (JSONException ex) {
+            throw new HttpMessageNotWritableException("Could not write JSON: " + ex.getMessage(), ex);
+        } finally {
+            bodyWriter.close();
+        }
+    }
+    
+    /***有Content-Length时一次读完，不超过BytesPool.MAX_SIZE的用线程内缓存的byte[]*/
+    protected String readString(HttpInputMessage inputMessage, Charset charset) throws IOException {
+        InputStream is            = inputMessage.getBody();
+        long        contentLength = inputMessage.getHeaders().getContentLength();
+        byte[]      bytes;
+        int         offset        = 0;
+        if (contentLength >= 0 && contentLength < Integer.MAX_VALUE) {
+            int length = (int) contentLength;
+            bytes = BytesPool.acquire(length);
+            try {
+                while (offset < length) {
+                    int readCount = is.read(bytes, offset, length - offset);
+                    if (readCount == -1) {
+                        break;
+                    }
+                    offset += readCount;
+                }
+                return new String(bytes, 0, offset, charset);
+            } finally {
+                BytesPool.release(bytes);
+            }
+        }
+        
+        //chunked,不知道长度
+        bytes = BytesPool.acquire(BytesPool.MIN_SIZE);
+        try {
+            for (;;) {
+                if (offset == bytes.length) {
+                    byte[] newBytes = bytes.length < BytesPool.MAX_SIZE ? BytesPool.acquire(bytes.length + 1) : new byte[bytes.length * 3 / 2];
+                    System.arraycopy(bytes, 0, newBytes, 0, offset);
+                    BytesPool.release(bytes);
+                    bytes = newBytes;
+                }
+                int readCount = is.read(bytes, offset, bytes.length - offset);
+                if (readCount == -1) {
+                    break;
+                }
+                offset += readCount;
             }
+            return new String(bytes, 0, offset, charset);
+        } finally {
+            BytesPool.release(bytes);
         }
-        return ByteBuffer.wrap(bytes, 0, offset);
     }
     
     @Override
@@ -142,13 +231,7 @@ public class FastJsonHttpMessageConverter extends com.alibaba.fastjson.support.s
         
         //fastjson直接读取String
         if (type == String.class) {
-            InputStream    is             = inputMessage.getBody();
-            FastJsonConfig fastJsonConfig = getFastJsonConfig();
-            Charset        charset        = fastJsonConfig.getCharset();
-            charset = OptionalUtil.ifNull(charset, IOUtils.UTF8);
-            ByteBuffer byteBuffer = getByteBuffer(is);
-            
-            String result = new String(byteBuffer.array(), byteBuffer.arrayOffset(), byteBuffer.limit(), charset);
+            String result = readString(inputMessage, getCharset());
             if (logger.isDebugEnabled()) {
                 logger.debug(new StringBuilder("==>fastjson read plain text:\n").append(result).toString());
             }
@@ -157,4 +240,162 @@ public class FastJsonHttpMessageConverter extends com.alibaba.fastjson.support.s
         return super.read(type, contextClass, inputMessage);
     }
     
+    /***
+     * 把字符按utf-8编码进BytesPool的byte[]，写满后升到下一级，超过BytesPool.MAX_SIZE后写入body再复用同一个byte[],
+     * 与String.getBytes一样，不成对的surrogate写成'?'
+     */
+    static final class Utf8BodyWriter extends Writer {
+        private final HttpOutputMessage outputMessage;
+        
+        private byte[]                  bytes         = BytesPool.acquire(BytesPool.MIN_SIZE);
+        
+        private int                     count;
+        
+        private char                    highSurrogate;
+        
+        private OutputStream            body;
+        
+        Utf8BodyWriter(HttpOutputMessage outputMessage) {
+            this.outputMessage = outputMessage;
+        }
+        
+        @Override
+        public void write(int c) throws IOException {
+            if (count + 4 > bytes.length) {
+                makeRoom();
+            }
+            encode((char) c);
+        }
+        
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            int end = off + len;
+            while (off < end) {
+                if (count + 4 > bytes.length) {
+                    makeRoom();
+                }
+                //每个字符最多4个字节，这一段内不用再检查长度
+                int safeEnd = Math.min(end, off + ((bytes.length - count) >> 2));
+                byte[] bytes = this.bytes;
+                int count = this.count;
+                for (; off < safeEnd; off++) {
+                    char c = cbuf[off];
+                    if (c < 0x80 && highSurrogate == 0) {
+                        bytes[count++] = (byte) c;
+                    } else {
+                        this.count = count;
+                        encode(c);
+                        count = this.count;
+                    }
+                }
+                this.count = count;
+            }
+        }
+        
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            int end = off + len;
+            while (off < end) {
+                if (count + 4 > bytes.length) {
+                    makeRoom();
+                }
+                int safeEnd = Math.min(end, off + ((bytes.length - count) >> 2));
+                byte[] bytes = this.bytes;
+                int count = this.count;
+                for (; off < safeEnd; off++) {
+                    char c = str.charAt(off);
+                    if (c < 0x80 && highSurrogate == 0) {
+                        bytes[count++] = (byte) c;
+                    } else {
+                        this.count = count;
+                        encode(c);
+                        count = this.count;
+                    }
+                }
+                this.count = count;
+            }
+        }
+        
+        private void encode(char c) {
+            byte[] bytes = this.bytes;
+            if (highSurrogate != 0) {
+                char high = highSurrogate;
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(high, c);
+                    bytes[count++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[count++] = (byte) (0x80 | (codePoint & 0x3F));
+                    return;
+                }
+                //预留的4个字节够写'?'再加一个3字节的字符
+                bytes[count++] = '?';
+            }
+            
+            if (c < 0x80) {
+                bytes[count++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[count++] = (byte) (0xC0 | (c >> 6));
+                bytes[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                bytes[count++] = '?';
+            } else {
+                bytes[count++] = (byte) (0xE0 | (c >> 12));
+                bytes[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        
+        private void makeRoom() throws IOException {
+            if (bytes.length < BytesPool.MAX_SIZE) {
+                byte[] newBytes = BytesPool.acquire(bytes.length + 1);
+                System.arraycopy(bytes, 0, newBytes, 0, count);
+                BytesPool.release(bytes);
+                bytes = newBytes;
+                return;
+            }
+            //超过缓存大小，不再计算Content-Length，先写入body
+            if (body == null) {
+                body = outputMessage.getBody();
+            }
+            body.write(bytes, 0, count);
+            count = 0;
+        }
+        
+        /***写完剩下的字节，返回body;没有写过body时可以设置Content-Length*/
+        OutputStream finish(boolean writeContentLength) throws IOException {
+            if (highSurrogate != 0) {
+                highSurrogate = 0;
+                if (count + 1 > bytes.length) {
+                    makeRoom();
+                }
+                bytes[count++] = '?';
+            }
+            if (body == null) {
+                if (writeContentLength) {
+                    outputMessage.getHeaders().setContentLength(count);
+                }
+                body = outputMessage.getBody();
+            }
+            body.write(bytes, 0, count);
+            count = 0;
+            return body;
+        }
+        
+        /***fastjson每写满一次缓冲区调用一次，这里不需要处理*/
+        @Override
+        public void flush() throws IOException {
+        }
+        
+        /***只归还byte[]，不关闭body*/
+        @Override
+        public void close() {
+            BytesPool.release(bytes);
+            bytes = null;
+        }
+    }
+    
 }
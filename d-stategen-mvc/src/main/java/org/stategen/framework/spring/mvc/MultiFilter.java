@@ -27,7 +27,11 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.filter.GenericFilterBean;
+import org.stategen.framework.lite.BaseResponse;
+import org.stategen.framework.lite.IResponseStatus;
+import org.stategen.framework.response.ResponseUtil;
 import org.stategen.framework.spring.util.RequestUtil;
 import org.stategen.framework.util.ThreadLocalUtil;
 import org.stategen.framework.web.cookie.AntiCookieFakeResponseWrapper;
@@ -45,6 +49,13 @@ public class MultiFilter extends GenericFilterBean {
 
     final static Logger logger             = LoggerFactory.getLogger(MultiFilter.class);
 
+    private static volatile RequestRateLimiter rateLimiter;
+
+    /***限流器，可读取计数，未开启限流时为null*/
+    public static RequestRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
     /**
      * 
      * @see javax.servlet.Filter#doFilter(javax.servlet.ServletRequest, javax.servlet.ServletResponse, javax.servlet.FilterChain)
@@ -67,16 +78,23 @@ public class MultiFilter extends GenericFilterBean {
         
         
             if (needCheck){
+                //DDOS防范
+                if (Configration.RATE_LIMIT_ENABLED && !tryAcquire(httpServletRequest, requestMapping)) {
+                    HttpServletResponse httpServletResponse = (HttpServletResponse) response;
+                    ServletContextUtil.setResponse(httpServletResponse);
+                    writeRateLimitResponse(httpServletResponse);
+                    if (logger.isDebugEnabled()) {
+                        logger.debug(new StringBuilder(requestMapping).append("被限流").toString());
+                    }
+                    return;
+                }
+
                 AntiCookieFakeResponseWrapper httpServletResponse = new AntiCookieFakeResponseWrapper((HttpServletResponse) response);
                 response =httpServletResponse;
                 ServletContextUtil.setResponse(httpServletResponse); 
                 httpServletResponse.filterRequestCookies();
                 //前后将线程池中的refMap设为null
         
-                /*
-                 * //DDOS防范 TODO if (NumberUtil.isGreatZero(Configration.MAX_REQUEST_PER_IP_SECOND)) { //该实现可以减少恶意的大批量的访问请求，暂时没实现该功能 }
-                 */
-        
                 //cookie或令牌伪造，生成的都是json
                 boolean passed =httpServletResponse.checkTokens();              
                 if (passed==false) {
@@ -97,6 +115,47 @@ public class MultiFilter extends GenericFilterBean {
         }
     }
 
+    /***按客户端地址限流，地址不取可伪造的请求头，见 RequestUtil.getClientAddr*/
+    private static boolean tryAcquire(HttpServletRequest request, String requestMapping) {
+        RequestRateLimiter limiter = rateLimiter;
+        if (limiter == null) {
+            synchronized (MultiFilter.class) {
+                limiter = rateLimiter;
+                if (limiter == null) {
+                    limiter = new RequestRateLimiter(Configration.RATE_LIMIT_MAX_KEYS);
+                    rateLimiter = limiter;
+                }
+            }
+        }
+
+        String ip = RequestUtil.getClientAddr(request, Configration.RATE_LIMIT_TRUSTED_PROXIES);
+        if (ip == null) {
+            return true;
+        }
+        Integer perIp = Configration.MAX_REQUEST_PER_IP_SECOND;
+        if (perIp != null && !limiter.tryAcquire(ip, perIp)) {
+            return false;
+        }
+        Integer perIpPath = Configration.MAX_REQUEST_PER_IP_PATH_SECOND;
+        if (perIpPath != null && perIpPath > 0) {
+            return limiter.tryAcquire(new StringBuilder(ip.length() + 1 + requestMapping.length()).append(ip).append('|').append(requestMapping)
+                .toString(), perIpPath);
+        }
+        return true;
+    }
+
+    /***与 cookie令牌被拦截时一样，输出json*/
+    private static void writeRateLimitResponse(HttpServletResponse httpServletResponse) {
+        IResponseStatus responseStatus = Configration.RATE_LIMIT_RESPONSE_STATUS;
+        BaseResponse<Object> errorResponse = ResponseUtil.buildResponse(null, responseStatus);
+        if (responseStatus == null) {
+            errorResponse.setSuccess(false);
+            errorResponse.setMessage(Configration.RATE_LIMIT_MESSAGE);
+        }
+        httpServletResponse.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        ResponseUtil.writhResponse(true, errorResponse);
+    }
+
     @Override
     protected void initFilterBean() throws ServletException {
         super.initFilterBean();
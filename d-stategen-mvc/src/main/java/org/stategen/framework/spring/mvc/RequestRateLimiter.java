@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.spring.mvc;
+
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * 按key(ip或ip+path)限流的令牌桶,由 MultiFilter 调用
+ * 每个桶只有一个long,记录桶"下次放满"的理论时间(GCRA)，取令牌只用CAS，不加锁
+ * 桶分在 SHARD_COUNT 个分片中，每个分片有上限，满了时最多每 SWEEP_INTERVAL_NANOS 清理一次已经放满的桶(与新桶等价)，
+ * 还是满时，新的key共用该分片的溢出桶，防止伪造大量ip绕过限流
+ * 分片满过之后的 PRESSURE_NANOS 内，新建的桶只有一个令牌(之后仍按正常速率补充)，桶至少要1秒才能放满被清理，
+ * 不停换key的请求每个分片每秒最多通过约 maxKeysPerShard 个，而不是每次清理都放进一批满桶
+ * 分片一直被占满时，没有桶的正常用户也只能与其它新key共用溢出桶，maxKeys应大于正常的并发客户端数
+ */
+public class RequestRateLimiter {
+
+    private static final int                                  SHARD_COUNT          = 64;
+
+    /***同一分片两次清理的最小间隔*/
+    private static final long                                 SWEEP_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /***分片满过之后，新桶只给一个令牌的时长*/
+    private static final long                                 PRESSURE_NANOS       = TimeUnit.SECONDS.toNanos(1);
+
+    private final Shard[]                                     shards;
+
+    private final int                                         maxKeysPerShard;
+
+    private final LongAdder                                   allowedCount         = new LongAdder();
+
+    private final LongAdder                                   rejectedCount        = new LongAdder();
+
+    private final LongAdder                                   evictedCount         = new LongAdder();
+
+    /***分片满了，使用溢出桶的请求数*/
+    private final LongAdder                                   overflowCount        = new LongAdder();
+
+    /***值为桶放满的理论时间(nanoTime)，不大于当前时间表示桶是满的*/
+    @SuppressWarnings("serial")
+    static final class Bucket extends AtomicLong {
+        Bucket(long fullAt) {
+            super(fullAt);
+        }
+    }
+
+    static final class Shard {
+        final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<String, Bucket>();
+
+        /***分片满时所有新key共用*/
+        final Bucket                            overflow;
+
+        /***下次允许清理的时间(nanoTime)*/
+        final AtomicLong                        nextSweepAt;
+
+        /***在该时间(nanoTime)之前新建的桶只有一个令牌*/
+        volatile long                           pressureUntil;
+
+        Shard(long now) {
+            this.overflow = new Bucket(now);
+            this.nextSweepAt = new AtomicLong(now);
+            this.pressureUntil = now;
+        }
+    }
+
+    public RequestRateLimiter(int maxKeys) {
+        this.maxKeysPerShard = Math.max(1, maxKeys / SHARD_COUNT);
+        this.shards = new Shard[SHARD_COUNT];
+        long now = System.nanoTime();
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new Shard(now);
+        }
+    }
+
+    /***
+     * 每秒permitsPerSecond个令牌，桶容量也是permitsPerSecond，即空闲后可以瞬间通过一秒的量
+     */
+    public boolean tryAcquire(String key, int permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        long interval = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        long capacity = interval * permitsPerSecond;
+        Shard shard = shard(key);
+        ConcurrentHashMap<String, Bucket> buckets = shard.buckets;
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeysPerShard) {
+                shard.pressureUntil = now + PRESSURE_NANOS;
+                sweep(shard, now);
+                if (buckets.size() >= maxKeysPerShard) {
+                    overflowCount.increment();
+                    bucket = shard.overflow;
+                }
+            }
+            if (bucket == null) {
+                //分片满过不久，只给一个令牌
+                Bucket newBucket = new Bucket(shard.pressureUntil - now > 0 ? now + capacity - interval : now);
+                bucket = buckets.putIfAbsent(key, newBucket);
+                if (bucket == null) {
+                    bucket = newBucket;
+                }
+            }
+        }
+
+        for (;;) {
+            long fullAt = bucket.get();
+            long newFullAt = (fullAt - now > 0 ? fullAt : now) + interval;
+            if (newFullAt - now > capacity) {
+                rejectedCount.increment();
+                return false;
+            }
+            if (bucket.compareAndSet(fullAt, newFullAt)) {
+                allowedCount.increment();
+                return true;
+            }
+        }
+    }
+
+    private Shard shard(String key) {
+        int h = key.hashCode();
+        return shards[(h ^ (h >>> 16)) & (SHARD_COUNT - 1)];
+    }
+
+    /***分片满时，每个分片每 SWEEP_INTERVAL_NANOS 只由一个线程清理一次，避免每个新key都扫描整个分片*/
+    private void sweep(Shard shard, long now) {
+        long sweepAt = shard.nextSweepAt.get();
+        if (now - sweepAt >= 0 && shard.nextSweepAt.compareAndSet(sweepAt, now + SWEEP_INTERVAL_NANOS)) {
+            evictIdle(shard.buckets, now);
+        }
+    }
+
+    /***已经放满的桶与新建的桶等价，可以直接删除*/
+    private void evictIdle(ConcurrentHashMap<String, Bucket> buckets, long now) {
+        for (Iterator<Entry<String, Bucket>> iterator = buckets.entrySet().iterator(); iterator.hasNext();) {
+            Entry<String, Bucket> entry = iterator.next();
+            if (entry.getValue().get() - now <= 0) {
+                iterator.remove();
+                evictedCount.increment();
+            }
+        }
+    }
+
+    /***清掉所有已经放满的桶，可由定时任务调用*/
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Shard shard : shards) {
+            evictIdle(shard.buckets, now);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.buckets.size();
+        }
+        return size;
+    }
+
+    public long getAllowedCount() {
+        return allowedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.sum();
+    }
+
+    public long getOverflowCount() {
+        return overflowCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("RequestRateLimiter{keys:").append(size()).append(", allowed:").append(getAllowedCount()).append(", rejected:")
+            .append(getRejectedCount()).append(", evicted:").append(getEvictedCount()).append(", overflow:").append(getOverflowCount())
+            .append('}').toString();
+    }
+
+}
@@ -18,11 +18,14 @@ package org.stategen.framework.spring.mvc;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -36,6 +39,8 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
 import org.stategen.framework.annotation.Wrap;
 import org.stategen.framework.lite.IResponseStatus;
@@ -46,11 +51,14 @@ import org.stategen.framework.util.CollectionUtil;
 
 /**
  * 该类将返回结果包装成response.
+ * 容器启动完成后，为所有注册的handler方法算好是否包装，运行时只查表
  */
 @ControllerAdvice(annotations = { Controller.class, RestController.class })
-public class ResponseBodyAdviceWrapper extends ResponseStatusTypeHandler implements ResponseBodyAdvice<Object>, InitializingBean {
+public class ResponseBodyAdviceWrapper extends ResponseStatusTypeHandler implements ResponseBodyAdvice<Object>, InitializingBean,
+                                       ApplicationListener<ContextRefreshedEvent> {
     final static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ResponseBodyAdviceWrapper.class);
-    private static Map<Method, Boolean> needWrapMethodsCache = new ConcurrentHashMap<Method, Boolean>();
+    /***启动后只读，未算过的方法(如progen中调用)算好后复制一份新表替换*/
+    private static volatile Map<Method, Boolean> needWrapMethods = Collections.emptyMap();
 
     //如果不设置，会把所有controller都包装，显示一些jar包中的controller有自己的返回值
     public static Set<String> packages = null;
@@ -66,6 +74,13 @@ public class ResponseBodyAdviceWrapper extends ResponseStatusTypeHandler impleme
         }
     }
 
+    /***为true时response bean足够简单则直接用构造函数创建，见 ResponseUtil.initResponseFactory*/
+    public void setConstructResponseDirectly(Boolean constructResponseDirectly) {
+        if (constructResponseDirectly != null) {
+            ResponseUtil.setConstructResponseDirectly(constructResponseDirectly);
+        }
+    }
+
     protected static boolean checkMethodPath(Method method) {
         if (CollectionUtil.isNotEmpty(packages)) {
             Class<?> declaringClass = method.getDeclaringClass();
@@ -94,44 +109,60 @@ public class ResponseBodyAdviceWrapper extends ResponseStatusTypeHandler impleme
     }
 
     public static boolean supportMethod(Method method) {
-        Boolean needWrapFlag;
-        needWrapFlag = needWrapMethodsCache.get(method);
+        Boolean needWrapFlag = needWrapMethods.get(method);
         if (needWrapFlag != null) {
             return needWrapFlag;
         }
 
-        needWrapFlag = false;
-        try {
-            if (!checkMethodPath(method)) {
-                return needWrapFlag;
-            }
-            //不是 RequestMapping的方法不额外处理
-            RequestMapping requestMappingAnn = AnnotationUtil.getAnnotation(method, RequestMapping.class);
-            if (requestMappingAnn == null) {
-                return needWrapFlag;
-            }
+        needWrapFlag = needWrap(method);
+        synchronized (ResponseBodyAdviceWrapper.class) {
+            Map<Method, Boolean> newNeedWrapMethods = new HashMap<Method, Boolean>(needWrapMethods);
+            newNeedWrapMethods.put(method, needWrapFlag);
+            needWrapMethods = Collections.unmodifiableMap(newNeedWrapMethods);
+        }
+        return needWrapFlag;
+    }
 
-            ResponseBody responseBodyAnno = AnnotationUtil.getMethodOrOwnerAnnotation(method, ResponseBody.class);
-            if (responseBodyAnno == null) {
-                return needWrapFlag;
-            }
-            
-           
-            Wrap wrapAnno = AnnotationUtil.getMethodOrOwnerAnnotation(method, Wrap.class);
-            if (wrapAnno==null){
-                return needWrapFlag;
-            }
-            
-            boolean exclude = wrapAnno.value() == false;
-            if (exclude){
-                return needWrapFlag;
+    protected static boolean needWrap(Method method) {
+        if (!checkMethodPath(method)) {
+            return false;
+        }
+        //不是 RequestMapping的方法不额外处理
+        RequestMapping requestMappingAnn = AnnotationUtil.getAnnotation(method, RequestMapping.class);
+        if (requestMappingAnn == null) {
+            return false;
+        }
+
+        ResponseBody responseBodyAnno = AnnotationUtil.getMethodOrOwnerAnnotation(method, ResponseBody.class);
+        if (responseBodyAnno == null) {
+            return false;
+        }
+
+        Wrap wrapAnno = AnnotationUtil.getMethodOrOwnerAnnotation(method, Wrap.class);
+        if (wrapAnno == null) {
+            return false;
+        }
+
+        boolean exclude = wrapAnno.value() == false;
+        return !exclude;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        Map<String, RequestMappingHandlerMapping> handlerMappings = event.getApplicationContext().getBeansOfType(RequestMappingHandlerMapping.class);
+        Map<Method, Boolean> newNeedWrapMethods = new HashMap<Method, Boolean>();
+        for (RequestMappingHandlerMapping handlerMapping : handlerMappings.values()) {
+            for (HandlerMethod handlerMethod : handlerMapping.getHandlerMethods().values()) {
+                Method method = handlerMethod.getMethod();
+                if (!newNeedWrapMethods.containsKey(method)) {
+                    newNeedWrapMethods.put(method, needWrap(method));
+                }
             }
-            
-            needWrapFlag = true;
-            return needWrapFlag;
-        } finally {
-            needWrapMethodsCache.put(method, needWrapFlag);
         }
+        synchronized (ResponseBodyAdviceWrapper.class) {
+            needWrapMethods = Collections.unmodifiableMap(newNeedWrapMethods);
+        }
+        ResponseUtil.initResponseFactory(event.getApplicationContext());
     }
 
     @Override
@@ -165,10 +196,12 @@ public class ResponseBodyAdviceWrapper extends ResponseStatusTypeHandler impleme
 
     public void setPackages(Set<String> packages) {
         ResponseBodyAdviceWrapper.packages = packages;
+        needWrapMethods = Collections.emptyMap();
     }
 
     public void setAnnotations(Set<Class<? extends Annotation>> annotations) {
         ResponseBodyAdviceWrapper.annotations = annotations;
+        needWrapMethods = Collections.emptyMap();
     }
 
     @Override
@@ -17,6 +17,7 @@
 package org.stategen.framework.spring.util;
 
 import java.util.Locale;
+import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -96,6 +97,42 @@ public class RequestUtil {
         return ipAdd;
     }
 
+    /**
+     * 获得可用于限流等安全判断的客户端地址
+     * <pre>请求头可以被客户端伪造，默认只取remoteAddr，
+     * 只有remoteAddr是可信代理时，才从x-forwarded-for的最右边往左取第一个不是可信代理的地址，
+     * 全部是可信代理时取最左边的地址
+     * </pre>
+     *
+     * @param request the request
+     * @param trustedProxies 可信代理(如nginx)的ip,按字符串精确比较
+     * @return the client addr
+     */
+    public static String getClientAddr(HttpServletRequest request, Set<String> trustedProxies) {
+        String remoteAddr = request.getRemoteAddr();
+        if (trustedProxies == null || trustedProxies.isEmpty() || !trustedProxies.contains(remoteAddr)) {
+            return remoteAddr;
+        }
+        String forwardedFor = request.getHeader("x-forwarded-for");
+        if (StringUtil.isBlank(forwardedFor)) {
+            return remoteAddr;
+        }
+        String clientAddr = remoteAddr;
+        int end = forwardedFor.length();
+        while (end >= 0) {
+            int start = forwardedFor.lastIndexOf(',', end - 1);
+            String addr = forwardedFor.substring(start + 1, end).trim();
+            if (!addr.isEmpty()) {
+                clientAddr = addr;
+                if (!trustedProxies.contains(addr)) {
+                    return addr;
+                }
+            }
+            end = start;
+        }
+        return clientAddr;
+    }
+
 
 
     /**
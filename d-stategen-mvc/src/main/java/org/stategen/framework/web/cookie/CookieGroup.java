@@ -31,6 +31,7 @@ import org.stategen.framework.spring.util.RequestUtil;
 import org.stategen.framework.util.AssertUtil;
 import org.stategen.framework.util.CollectionUtil;
 import org.stategen.framework.util.GetOrCreateWrap;
+import org.stategen.framework.util.HexUtil;
 
 import configs.Configration;
 
@@ -189,7 +190,7 @@ public class CookieGroup<E extends Enum<E>> extends ResponseStatusTypeHandler {
             } else if (calcuToken != null) {
                 if (tokenCookie != null) {
                     cookieToken = tokenCookie.getValue();
-                    result = calcuToken.equals(cookieToken);
+                    result = HexUtil.equalsConstantTime(calcuToken, cookieToken);
                 }
             }
 
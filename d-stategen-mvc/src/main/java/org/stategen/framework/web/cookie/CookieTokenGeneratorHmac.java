@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2018  niaoge<78493244@qq.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.stategen.framework.web.cookie;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.Cookie;
+
+import org.stategen.framework.util.CollectionUtil;
+import org.stategen.framework.util.HexUtil;
+import org.stategen.framework.util.NumberUtil;
+
+import configs.Configration;
+
+/***
+ * 以 Configration.COOKIE_TOKEN_MIX 为密钥，对cookie值做 HmacSHA256 算出令牌，替换 CookieTokenGeneratorDefault 配置到spring中即可
+ * Mac按线程复用，cookie值逐个写入Mac，不再拼接成一个大字符串
+ * 生成的令牌与 CookieTokenGeneratorDefault 不同，切换后旧的令牌cookie会校验失败
+ */
+public class CookieTokenGeneratorHmac extends CookieTokenGeneratorDefault {
+
+    private static final String                  HMAC_SHA256 = "HmacSHA256";
+
+    private static final ThreadLocal<MacHolder> MAC_HOLDERS = new ThreadLocal<MacHolder>();
+
+    /***每个线程一份，COOKIE_TOKEN_MIX 变化后重新初始化密钥*/
+    static final class MacHolder {
+        final Mac    mac;
+        final byte[] buffer = new byte[256];
+        final byte[] result;
+        String       mix;
+
+        MacHolder() throws GeneralSecurityException {
+            this.mac = Mac.getInstance(HMAC_SHA256);
+            this.result = new byte[mac.getMacLength()];
+        }
+
+        Mac initMac(String tokenMix) throws GeneralSecurityException {
+            if (!tokenMix.equals(mix)) {
+                mac.init(new SecretKeySpec(tokenMix.getBytes(StandardCharsets.UTF_8), HMAC_SHA256));
+                mix = tokenMix;
+            } else {
+                mac.reset();
+            }
+            return mac;
+        }
+
+        /***cookie值一般已经url编码，都是ascii,直接写入buffer;每个值后加0分隔，防止 "ab"+"c" 与 "a"+"bc" 相同*/
+        void update(String value) {
+            int pos = 0;
+            if (value != null) {
+                int len = value.length();
+                for (int i = 0; i < len; i++) {
+                    char c = value.charAt(i);
+                    if (c >= 0x80) {
+                        mac.update(buffer, 0, pos);
+                        mac.update(value.substring(i).getBytes(StandardCharsets.UTF_8));
+                        pos = 0;
+                        break;
+                    }
+                    if (pos == buffer.length) {
+                        mac.update(buffer, 0, pos);
+                        pos = 0;
+                    }
+                    buffer[pos++] = (byte) c;
+                }
+            }
+            if (pos == buffer.length) {
+                mac.update(buffer, 0, pos);
+                pos = 0;
+            }
+            buffer[pos++] = 0;
+            mac.update(buffer, 0, pos);
+        }
+    }
+
+    @Override
+    public String genToken(Map<String, Cookie> reuestCookieMap) {
+        if (CollectionUtil.isEmpty(reuestCookieMap)) {
+            return null;
+        }
+        try {
+            MacHolder macHolder = null;
+            for (Cookie cookie : reuestCookieMap.values()) {
+                int cookieMaxAge = cookie.getMaxAge();
+                if (NumberUtil.isNullOrZero(cookieMaxAge)) {
+                    continue;
+                }
+                if (macHolder == null) {
+                    macHolder = getMacHolder();
+                    macHolder.initMac(Configration.COOKIE_TOKEN_MIX);
+                }
+                macHolder.update(cookie.getValue());
+            }
+
+            if (macHolder != null) {
+                byte[] result = macHolder.result;
+                macHolder.mac.doFinal(result, 0);
+                return HexUtil.toHex(result);
+            }
+        } catch (GeneralSecurityException e) {
+            //算不出令牌时请求不能通过，也不能输出令牌cookie
+            MAC_HOLDERS.remove();
+            throw new IllegalStateException(new StringBuilder("生成cookie令牌出错:").append(e.getMessage()).toString(), e);
+        }
+
+        //没有带令牌，由到method方法根绝CookieCheck看是否请求合
+        return null;
+    }
+
+    private static MacHolder getMacHolder() throws GeneralSecurityException {
+        MacHolder macHolder = MAC_HOLDERS.get();
+        if (macHolder == null) {
+            macHolder = new MacHolder();
+            MAC_HOLDERS.set(macHolder);
+        }
+        return macHolder;
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.stategen.framework.response;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.context.support.GenericApplicationContext;
+import org.stategen.framework.lite.BaseResponse;
+import org.stategen.framework.spring.mvc.SpringContextHolder;
+
+import configs.Constant;
+
+/***
+ * ResponseUtil.initResponseFactory 的选择：只有开启constructResponseDirectly且response bean足够简单时才直接用构造函数创建，
+ * 否则每次从spring容器中取
+ */
+public class ResponseUtilTst {
+
+    public static class SimpleResponse<T> extends BaseResponse<T> {
+    }
+
+    public static class InitResponse<T> extends BaseResponse<T> {
+        boolean inited;
+
+        @PostConstruct
+        public void init() {
+            inited = true;
+        }
+    }
+
+    /***记录从spring容器中取response的次数*/
+    final AtomicInteger springCreated = new AtomicInteger();
+
+    @After
+    public void reset() {
+        ResponseUtil.setConstructResponseDirectly(false);
+        ResponseUtil.setResponseFactory(null);
+    }
+
+    GenericApplicationContext newContext(Class<?> responseClz, String scope, int autowireMode) {
+        GenericApplicationContext applicationContext = new GenericApplicationContext();
+        AnnotationConfigUtils.registerAnnotationConfigProcessors(applicationContext);
+        RootBeanDefinition beanDefinition = new RootBeanDefinition(responseClz);
+        beanDefinition.setScope(scope);
+        beanDefinition.setAutowireMode(autowireMode);
+        applicationContext.registerBeanDefinition(Constant.RESPONSE_NAME, beanDefinition);
+        applicationContext.refresh();
+        return applicationContext;
+    }
+
+    /***初始化工厂后创建一个response，返回是否从spring容器中创建*/
+    boolean createdBySpring(GenericApplicationContext applicationContext) {
+        final ApplicationContext countingContext = (ApplicationContext) Proxy.newProxyInstance(ApplicationContext.class.getClassLoader(),
+            new Class<?>[] { ApplicationContext.class }, (proxy, method, args) -> {
+                if ("getBean".equals(method.getName())) {
+                    springCreated.incrementAndGet();
+                }
+                return method.invoke(applicationContext, args);
+            });
+        new SpringContextHolder().setApplicationContext(countingContext);
+
+        ResponseUtil.initResponseFactory(applicationContext);
+        int before = springCreated.get();
+        BaseResponse<Object> response = ResponseUtil.newResponse();
+        Assert.assertNotNull(response);
+        ResponseUtil.setResponseFactory(null);
+        return springCreated.get() > before;
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        Assert.assertTrue(createdBySpring(newContext(SimpleResponse.class, "prototype", AbstractBeanDefinition.AUTOWIRE_NO)));
+    }
+
+    @Test
+    public void testFactoryChoice() {
+        ResponseUtil.setConstructResponseDirectly(true);
+        Assert.assertFalse("简单的prototype直接创建", createdBySpring(newContext(SimpleResponse.class, "prototype", AbstractBeanDefinition.AUTOWIRE_NO)));
+
+        Assert.assertTrue("singleton", createdBySpring(newContext(SimpleResponse.class, "singleton", AbstractBeanDefinition.AUTOWIRE_NO)));
+        Assert.assertTrue("byType", createdBySpring(newContext(SimpleResponse.class, "prototype", AbstractBeanDefinition.AUTOWIRE_BY_TYPE)));
+        Assert.assertTrue("@PostConstruct", createdBySpring(newContext(InitResponse.class, "prototype", AbstractBeanDefinition.AUTOWIRE_NO)));
+
+        GenericApplicationContext withPostProcessor = newContext(SimpleResponse.class, "prototype", AbstractBeanDefinition.AUTOWIRE_NO);
+        withPostProcessor.getDefaultListableBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+        });
+        Assert.assertTrue("自定义BeanPostProcessor", createdBySpring(withPostProcessor));
+        System.out.println("springCreated<===========>:" + springCreated);
+    }
+}
@@ -1,11 +1,22 @@
 package org.stategen.framework.spring.component;
 
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.junit.Assert;
 import org.junit.Test;
 import org.stategen.framework.spring.mvc.DateConvertor;
 
 public class DateConvertorTst {
+
+    static final String[] DATE_SEPARATORS = { "-", "/", ".", "" };
+    static final String[] TIME_SEPARATORS = { ":", "-", "/", ".", "" };
     
     
     @Test
@@ -26,4 +37,124 @@ public class DateConvertorTst {
         System.out.println(sdf.format(dateConvertor.convert("1473048265123")));
     }
 
+    /***1901~2100每一天，每种日期、时间分隔符，与java.time的结果比较(1901年前java.util.TimeZone与java.time的LMT偏移不同)*/
+    @Test
+    public void testAllDays() {
+        DateConvertor dateConvertor = new DateConvertor();
+        int checked = 0;
+        for (LocalDate day = LocalDate.of(1901, 1, 1); day.getYear() <= 2100; day = day.plusDays(1)) {
+            int seed = (int) day.toEpochDay() & 0x7fffffff;
+            LocalDateTime time = day.atTime(seed % 24, seed * 7 % 60, seed * 13 % 60, seed % 1000 * 1000000);
+            for (String dateSeparator : DATE_SEPARATORS) {
+                String dateStr = formatDate(day, dateSeparator);
+                assertDate(day.atStartOfDay(), dateConvertor.convert(dateStr), dateStr);
+
+                String timeSeparator = TIME_SEPARATORS[seed % TIME_SEPARATORS.length];
+                String timeStr = dateStr + " " + formatTime(time, timeSeparator);
+                assertDate(time.withNano(0), dateConvertor.convert(timeStr), timeStr);
+
+                String millisStr = timeStr + (seed % 2 == 0 ? "." : " ") + pad(time.getNano() / 1000000, 3);
+                assertDate(time, dateConvertor.convert(millisStr), millisStr);
+                checked += 3;
+            }
+        }
+        System.out.println("checked<===========>:" + checked);
+    }
+
+    @Test
+    public void testSpecial() {
+        DateConvertor dateConvertor = new DateConvertor();
+        Assert.assertEquals(1473048265000L, dateConvertor.convert(" 1473048265 ").getTime());
+        Assert.assertEquals(1473048265123L, dateConvertor.convert("1473048265123").getTime());
+        //与SimpleDateFormat的lenient一致，超出范围时进位
+        assertDate(LocalDateTime.of(2019, 1, 1, 0, 0), dateConvertor.convert("2018-13-01"), "2018-13-01");
+        assertDate(LocalDateTime.of(2018, 3, 3, 1, 0), dateConvertor.convert("2018-02-30 25:00:00"), "2018-02-30 25:00:00");
+        //不匹配的时间、毫秒部分忽略
+        assertDate(LocalDateTime.of(2018, 1, 26, 0, 0), dateConvertor.convert("2018-01-26T03:20:16"), "2018-01-26T03:20:16");
+        assertDate(LocalDateTime.of(2018, 1, 26, 3, 20, 16), dateConvertor.convert("2018-01-26 03:20:16.5"), "2018-01-26 03:20:16.5");
+
+        String[] invalids = { "", "  ", "abc", "2018-1-26", "2018-01/26", "2018012", "20180126x", "147304826", "14730482651234", "2018_01_26" };
+        for (String invalid : invalids) {
+            Assert.assertNull(invalid, dateConvertor.convert(invalid));
+        }
+    }
+
+    /***多线程同时解析，结果必须与单线程一致*/
+    @Test
+    public void testConcurrent() throws InterruptedException {
+        final DateConvertor dateConvertor = new DateConvertor();
+        final String[] sources = { "2018-01-26 03:20:16.555", "1999/12/31 23/59/59", "20000229 120000 001", "1473048265123" };
+        final long[] expecteds = new long[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            expecteds[i] = dateConvertor.convert(sources[i]).getTime();
+        }
+        final AtomicInteger wrongs = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(16);
+        for (int t = 0; t < 16; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < 100000; i++) {
+                    int idx = i % sources.length;
+                    if (dateConvertor.convert(sources[idx]).getTime() != expecteds[idx]) {
+                        wrongs.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        System.out.println("wrongs<===========>:" + wrongs.get());
+        Assert.assertEquals(0, wrongs.get());
+    }
+
+    /***没有引入jmh,用简单的预热+计时代替，数值只做相对比较*/
+    @Test
+    public void testParseBench() throws ParseException {
+        DateConvertor dateConvertor = new DateConvertor();
+        ThreadLocal<SimpleDateFormat> formatHolder = ThreadLocal.withInitial(() -> new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS"));
+        String source = "2018-01-26 03:20:16.555";
+        int count = 1000000;
+        for (int round = 0; round < 5; round++) {
+            long begin = System.nanoTime();
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += formatHolder.get().parse(source).getTime();
+            }
+            long formatNanos = System.nanoTime() - begin;
+
+            begin = System.nanoTime();
+            long convertSum = 0;
+            for (int i = 0; i < count; i++) {
+                convertSum += dateConvertor.convert(source).getTime();
+            }
+            long convertNanos = System.nanoTime() - begin;
+            Assert.assertEquals(sum, convertSum);
+            System.out.println("round:" + round + " SimpleDateFormat ns/op<===========>:" + formatNanos / count + " DateConvertor ns/op<===========>:"
+                               + convertNanos / count);
+        }
+    }
+
+    private static void assertDate(LocalDateTime expected, Date actual, String source) {
+        Assert.assertNotNull(source, actual);
+        long expectedMillis = expected.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (expectedMillis != actual.getTime()) {
+            Assert.fail(source + " expected:" + expected + " but:" + actual);
+        }
+    }
+
+    private static String formatDate(LocalDate day, String separator) {
+        return pad(day.getYear(), 4) + separator + pad(day.getMonthValue(), 2) + separator + pad(day.getDayOfMonth(), 2);
+    }
+
+    private static String formatTime(LocalDateTime time, String separator) {
+        return pad(time.getHour(), 2) + separator + pad(time.getMinute(), 2) + separator + pad(time.getSecond(), 2);
+    }
+
+    private static String pad(int value, int length) {
+        StringBuilder sb = new StringBuilder(String.valueOf(value));
+        while (sb.length() < length) {
+            sb.insert(0, '0');
+        }
+        return sb.toString();
+    }
+
 }
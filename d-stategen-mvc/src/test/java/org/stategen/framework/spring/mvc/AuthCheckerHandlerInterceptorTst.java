@@ -0,0 +1,234 @@
+package org.stategen.framework.spring.mvc;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.stategen.framework.annotation.Check;
+import org.stategen.framework.checker.AbstractMethodChecker;
+import org.stategen.framework.lite.CheckExcludeController;
+import org.stategen.framework.lite.IResponseStatus;
+
+/***
+ * AuthCheckerHandlerInterceptor 启动时编译 CheckPlan，运行时查表；
+ * 不在表中的方法第一次使用时编译并复制一份新表，启动后才注册的校验器在运行时查找
+ */
+public class AuthCheckerHandlerInterceptorTst {
+
+    @Check
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ ElementType.METHOD, ElementType.TYPE })
+    public @interface LoginCheck {
+    }
+
+    @Check
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ ElementType.METHOD, ElementType.TYPE })
+    public @interface AdminCheck {
+    }
+
+    public enum CheckStatus implements IResponseStatus {
+        FAIL;
+
+        @Override
+        public Class<? extends IResponseStatus> getRegisterClass() {
+            return CheckStatus.class;
+        }
+
+        @Override
+        public Integer getStatus() {
+            return 401;
+        }
+
+        @Override
+        public String getMessage() {
+            return name();
+        }
+
+        @Override
+        public Boolean getSuccess() {
+            return false;
+        }
+
+        @Override
+        public String getErrorPage() {
+            return null;
+        }
+
+        @Override
+        public boolean isRedirect() {
+            return false;
+        }
+    }
+
+    /***总是通过，记录被调用的方法*/
+    public static class RecordingChecker<A extends java.lang.annotation.Annotation> extends AbstractMethodChecker<A> {
+        final Class<A>     checkAnnoClz;
+        final List<String> checked = new ArrayList<String>();
+
+        RecordingChecker(Class<A> checkAnnoClz) {
+            this.checkAnnoClz = checkAnnoClz;
+        }
+
+        @Override
+        public <T extends Enum<T> & IResponseStatus> T doCheck(Method method, A checkAnno,
+                                                               Class<? extends IResponseStatus> defaultResponseStatusTypeClzOfCheckFail) {
+            checked.add(method.getName());
+            return null;
+        }
+
+        @Override
+        public Class<A> getCheckAnnoClz() {
+            return checkAnnoClz;
+        }
+    }
+
+    @LoginCheck
+    public static class UserController {
+        @RequestMapping
+        @ResponseBody
+        @AdminCheck
+        public String admin() {
+            return null;
+        }
+
+        @RequestMapping
+        @ResponseBody
+        public String login() {
+            return null;
+        }
+
+        @RequestMapping
+        @CheckExcludeController
+        public String open() {
+            return null;
+        }
+
+        @RequestMapping
+        public String notRegistered() {
+            return null;
+        }
+
+        public String notMapped() {
+            return null;
+        }
+    }
+
+    static final HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+        new Class<?>[] { HttpServletResponse.class }, (proxy, method, args) -> null);
+
+    @After
+    public void reset() {
+        AbstractMethodChecker.CHECKER_CACHE.remove(LoginCheck.class);
+        AbstractMethodChecker.CHECKER_CACHE.remove(AdminCheck.class);
+    }
+
+    static Method method(String name) throws NoSuchMethodException {
+        return UserController.class.getMethod(name);
+    }
+
+    static AuthCheckerHandlerInterceptor refreshedInterceptor(String... handlerMethodNames) throws NoSuchMethodException {
+        UserController controller = new UserController();
+        final RequestMappingHandlerMapping handlerMapping = new RequestMappingHandlerMapping();
+        for (String name : handlerMethodNames) {
+            handlerMapping.registerMapping(RequestMappingInfo.paths("/" + name).build(), controller, method(name));
+        }
+        ApplicationContext applicationContext = (ApplicationContext) Proxy.newProxyInstance(ApplicationContext.class.getClassLoader(),
+            new Class<?>[] { ApplicationContext.class }, (proxy, m, args) -> {
+                if ("getBeansOfType".equals(m.getName()) && args[0] == RequestMappingHandlerMapping.class) {
+                    return Collections.singletonMap("requestMappingHandlerMapping", handlerMapping);
+                }
+                throw new UnsupportedOperationException(m.getName());
+            });
+        AuthCheckerHandlerInterceptor interceptor = new AuthCheckerHandlerInterceptor();
+        interceptor.setResponseStatusOfCheckFailDefault(CheckStatus.FAIL);
+        interceptor.onApplicationEvent(new ContextRefreshedEvent(applicationContext));
+        return interceptor;
+    }
+
+    static boolean preHandle(AuthCheckerHandlerInterceptor interceptor, String name) throws Exception {
+        return interceptor.preHandle(null, response, new HandlerMethod(new UserController(), method(name)));
+    }
+
+    @Test
+    public void testCompileCheckPlan() throws Exception {
+        AuthCheckerHandlerInterceptor interceptor = refreshedInterceptor("admin", "login", "open");
+
+        CheckPlan adminPlan = interceptor.getCheckPlan(method("admin"));
+        Assert.assertTrue(adminPlan.isMapped());
+        Assert.assertTrue(adminPlan.isResponseBody());
+        //方法上的在前，Controller上的在后
+        Assert.assertEquals(2, adminPlan.size());
+        Assert.assertEquals(AdminCheck.class, adminPlan.getCheckAnno(0).annotationType());
+        Assert.assertEquals(LoginCheck.class, adminPlan.getCheckAnno(1).annotationType());
+
+        Assert.assertEquals(1, interceptor.getCheckPlan(method("login")).size());
+        CheckPlan openPlan = interceptor.getCheckPlan(method("open"));
+        Assert.assertEquals(0, openPlan.size());
+        Assert.assertFalse(openPlan.isResponseBody());
+        Assert.assertSame(CheckPlan.NOT_MAPPED, interceptor.compileCheckPlan(method("notMapped")));
+
+        //启动时已编译好，查表返回同一个计划
+        Assert.assertSame(adminPlan, interceptor.getCheckPlan(method("admin")));
+        Assert.assertNotNull(AuthCheckerHandlerInterceptor.METHOD_CHECKERS_MAP.get(method("admin")));
+    }
+
+    @Test
+    public void testLazyCompile() throws Exception {
+        AuthCheckerHandlerInterceptor interceptor = refreshedInterceptor("admin");
+        CheckPlan adminPlan = interceptor.getCheckPlan(method("admin"));
+
+        //不是由RequestMappingHandlerMapping注册的方法，第一次使用时编译，之后查表
+        CheckPlan lazyPlan = interceptor.getCheckPlan(method("notRegistered"));
+        Assert.assertTrue(lazyPlan.isMapped());
+        Assert.assertEquals(1, lazyPlan.size());
+        Assert.assertSame(lazyPlan, interceptor.getCheckPlan(method("notRegistered")));
+        Assert.assertSame(adminPlan, interceptor.getCheckPlan(method("admin")));
+
+        Assert.assertTrue(preHandle(interceptor, "notMapped"));
+        Assert.assertSame(CheckPlan.NOT_MAPPED, interceptor.getCheckPlan(method("notMapped")));
+    }
+
+    @Test
+    public void testCheckerRegisteredAfterRefresh() throws Exception {
+        RecordingChecker<LoginCheck> loginChecker = new RecordingChecker<LoginCheck>(LoginCheck.class);
+        loginChecker.afterPropertiesSet();
+        AuthCheckerHandlerInterceptor interceptor = refreshedInterceptor("admin", "login");
+        Assert.assertTrue(interceptor.getCheckPlan(method("login")).isResolved());
+        Assert.assertFalse(interceptor.getCheckPlan(method("admin")).isResolved());
+
+        try {
+            preHandle(interceptor, "admin");
+            Assert.fail("没有注册校验器时应抛出异常");
+        } catch (IllegalArgumentException e) {
+            System.out.println("e<===========>:" + e.getMessage());
+        }
+
+        //容器刷新后才注册的校验器，运行时查找
+        RecordingChecker<AdminCheck> adminChecker = new RecordingChecker<AdminCheck>(AdminCheck.class);
+        adminChecker.afterPropertiesSet();
+        Assert.assertTrue(preHandle(interceptor, "admin"));
+        Assert.assertTrue(preHandle(interceptor, "login"));
+        Assert.assertTrue(preHandle(interceptor, "open"));
+        Assert.assertEquals(Collections.singletonList("admin"), adminChecker.checked);
+        Assert.assertEquals(java.util.Arrays.asList("admin", "login"), loginChecker.checked);
+    }
+}
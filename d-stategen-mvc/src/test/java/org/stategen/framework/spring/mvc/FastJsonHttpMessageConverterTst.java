@@ -0,0 +1,244 @@
+package org.stategen.framework.spring.mvc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+
+/***
+ * 比较 FastJsonHttpMessageConverter 直接编码进 BytesPool 的写法与 fastjson 原来经过 ByteArrayOutputStream 的写法，
+ * 以及读String时按Content-Length读取与原来每次创建64K byte[]的读法
+ * 没有引入jmh,用简单的预热+计时代替，分配字节数用 ThreadMXBean 统计，数值只做相对比较
+ */
+public class FastJsonHttpMessageConverterTst {
+
+    static final int[] PAYLOAD_SIZES = { 100, 1024, 32 * 1024, 60 * 1024, 256 * 1024 };
+
+    static class OutputMessage implements HttpOutputMessage {
+        HttpHeaders  headers = new HttpHeaders();
+        OutputStream body;
+
+        OutputMessage(OutputStream body) {
+            this.body = body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+    }
+
+    static class InputMessage implements HttpInputMessage {
+        HttpHeaders headers = new HttpHeaders();
+        InputStream body;
+
+        InputMessage(byte[] bytes, boolean withContentLength) {
+            body = new ByteArrayInputStream(bytes);
+            if (withContentLength) {
+                headers.setContentLength(bytes.length);
+            }
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+    }
+
+    /***只计数，不保存，用来测分配*/
+    static class CountOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    static String text(int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            int kind = random.nextInt(10);
+            if (kind < 6) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            } else if (kind < 8) {
+                sb.append((char) (0x4E00 + random.nextInt(0x5000)));
+            } else if (kind < 9) {
+                sb.append((char) (0x80 + random.nextInt(0x700)));
+            } else {
+                sb.appendCodePoint(0x1F600 + random.nextInt(0x50));
+            }
+        }
+        return sb.toString();
+    }
+
+    static Map<String, Object> payload(int length) {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        List<String> items = new ArrayList<String>();
+        int itemLength = Math.max(16, Math.min(length, 512));
+        for (int i = 0, size = 0; size < length; i++) {
+            String item = text(itemLength, i);
+            items.add(item);
+            size += item.length();
+        }
+        map.put("code", 0);
+        map.put("items", items);
+        return map;
+    }
+
+    static FastJsonHttpMessageConverter converter(boolean plainString) {
+        FastJsonHttpMessageConverter converter = new FastJsonHttpMessageConverter();
+        converter.setPlainString(plainString);
+        return converter;
+    }
+
+    @Test
+    public void testWriteJson() throws IOException {
+        FastJsonHttpMessageConverter converter = converter(false);
+        com.alibaba.fastjson.support.spring.FastJsonHttpMessageConverter origin = new com.alibaba.fastjson.support.spring.FastJsonHttpMessageConverter();
+        for (int size : PAYLOAD_SIZES) {
+            Map<String, Object> payload = payload(size);
+            OutputMessage expected = new OutputMessage(new ByteArrayOutputStream());
+            origin.write(payload, MediaType.APPLICATION_JSON, expected);
+            OutputMessage actual = new OutputMessage(new ByteArrayOutputStream());
+            converter.write(payload, MediaType.APPLICATION_JSON, actual);
+            byte[] expectedBytes = ((ByteArrayOutputStream) expected.body).toByteArray();
+            byte[] actualBytes = ((ByteArrayOutputStream) actual.body).toByteArray();
+            Assert.assertArrayEquals(expectedBytes, actualBytes);
+            long contentLength = actual.headers.getContentLength();
+            System.out.println("json bytes<===========>:" + actualBytes.length + " Content-Length<===========>:" + contentLength);
+            if (actualBytes.length <= 64 * 1024) {
+                Assert.assertEquals(actualBytes.length, contentLength);
+            } else {
+                Assert.assertEquals(-1, contentLength);
+            }
+        }
+    }
+
+    @Test
+    public void testWritePlainString() throws IOException {
+        FastJsonHttpMessageConverter converter = converter(true);
+        List<String> texts = new ArrayList<String>(Arrays.asList("", "abc", "张三", "😀", "\uD800x", "x\uDC00", "a\uD83D", "\uD83D😀"));
+        for (int boundary : new int[] { 4096, 16384, 65536 }) {
+            for (int shift = -3; shift <= 1; shift++) {
+                StringBuilder sb = new StringBuilder();
+                while (sb.length() < boundary / 3 + shift) {
+                    sb.append('中');
+                }
+                texts.add(sb.append("😀").append(text(boundary, shift)).toString());
+            }
+        }
+        texts.add(text(300 * 1024, 7));
+        for (String text : texts) {
+            OutputMessage actual = new OutputMessage(new ByteArrayOutputStream());
+            converter.write(text, MediaType.TEXT_PLAIN, actual);
+            Assert.assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), ((ByteArrayOutputStream) actual.body).toByteArray());
+        }
+    }
+
+    @Test
+    public void testReadString() throws IOException {
+        FastJsonHttpMessageConverter converter = converter(false);
+        for (int size : new int[] { 0, 100, 5000, 70000, 300 * 1024 }) {
+            String text = text(size, size);
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(text, converter.read(String.class, null, new InputMessage(bytes, true)));
+            Assert.assertEquals(text, converter.read(String.class, null, new InputMessage(bytes, false)));
+        }
+    }
+
+    interface Op {
+        void run() throws IOException;
+    }
+
+    @Test
+    public void testBench() throws IOException {
+        final FastJsonHttpMessageConverter converter = converter(false);
+        final FastJsonHttpMessageConverter plainConverter = converter(true);
+        final com.alibaba.fastjson.support.spring.FastJsonHttpMessageConverter origin = new com.alibaba.fastjson.support.spring.FastJsonHttpMessageConverter();
+        final OutputMessage outputMessage = new OutputMessage(new CountOutputStream());
+        for (int size : new int[] { 1024, 32 * 1024, 256 * 1024 }) {
+            final Map<String, Object> payload = payload(size);
+            final String text = text(size, size);
+            final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            final int count = 20 * 1024 * 1024 / size;
+            for (int round = 0; round < 2; round++) {
+                bench("size:" + size + " origin json", count, () -> origin.write(payload, MediaType.APPLICATION_JSON, outputMessage));
+                bench("size:" + size + " pooled json", count, () -> converter.write(payload, MediaType.APPLICATION_JSON, outputMessage));
+                bench("size:" + size + " origin plain", count, () -> {
+                    ByteArrayOutputStream outnew = new ByteArrayOutputStream();
+                    outnew.write(text.getBytes(StandardCharsets.UTF_8));
+                    outnew.writeTo(outputMessage.body);
+                });
+                bench("size:" + size + " pooled plain", count, () -> plainConverter.write(text, MediaType.TEXT_PLAIN, outputMessage));
+                bench("size:" + size + " origin read", count, () -> readOrigin(new ByteArrayInputStream(bytes)));
+                bench("size:" + size + " pooled read", count, () -> converter.read(String.class, null, new InputMessage(bytes, true)));
+            }
+        }
+    }
+
+    /***原来的读法:每次创建64K的byte[]，不够时按1.5倍扩容*/
+    private static String readOrigin(InputStream is) throws IOException {
+        byte[] bytes = new byte[1024 * 64];
+        int offset = 0;
+        for (;;) {
+            int readCount = is.read(bytes, offset, bytes.length - offset);
+            if (readCount == -1) {
+                break;
+            }
+            offset += readCount;
+            if (offset == bytes.length) {
+                byte[] newBytes = new byte[bytes.length * 3 / 2];
+                System.arraycopy(bytes, 0, newBytes, 0, bytes.length);
+                bytes = newBytes;
+            }
+        }
+        return new String(bytes, 0, offset, StandardCharsets.UTF_8);
+    }
+
+    private static void bench(String name, int count, Op op) throws IOException {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long beginBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            op.run();
+        }
+        long nanos = System.nanoTime() - begin;
+        long bytes = threadMXBean.getThreadAllocatedBytes(threadId) - beginBytes;
+        System.out.println(name + " us/op<===========>:" + nanos / count / 1000.0 + " bytes/op<===========>:" + bytes / count);
+    }
+
+}
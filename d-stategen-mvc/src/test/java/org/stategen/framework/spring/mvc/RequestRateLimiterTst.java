@@ -0,0 +1,172 @@
+package org.stategen.framework.spring.mvc;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/***
+ * RequestRateLimiter 的限流语义、并发正确性、桶数量上限及单次调用耗时
+ * 没有引入jmh,用简单的预热+计时代替，数值只做相对比较
+ */
+public class RequestRateLimiterTst {
+
+    @Test
+    public void testRate() throws InterruptedException {
+        RequestRateLimiter limiter = new RequestRateLimiter(1024);
+        int allowed = 0;
+        for (int i = 0; i < 100; i++) {
+            if (limiter.tryAcquire("127.0.0.1", 20)) {
+                allowed++;
+            }
+        }
+        System.out.println("burst allowed<===========>:" + allowed);
+        Assert.assertEquals(20, allowed);
+        Assert.assertTrue(limiter.tryAcquire("127.0.0.2", 20));
+
+        //50ms补充一个令牌
+        Thread.sleep(120);
+        Assert.assertTrue(limiter.tryAcquire("127.0.0.1", 20));
+        Assert.assertTrue(limiter.tryAcquire("127.0.0.1", 20));
+
+        Assert.assertTrue(limiter.tryAcquire("127.0.0.1", 0));
+        System.out.println("limiter<===========>:" + limiter);
+    }
+
+    @Test
+    public void testConcurrent() throws InterruptedException {
+        final RequestRateLimiter limiter = new RequestRateLimiter(1024);
+        final int threadCount = 16;
+        final AtomicInteger allowed = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 10000; i++) {
+                        if (limiter.tryAcquire("10.0.0.1", 1000)) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsedMillis = (System.nanoTime() - begin) / 1000000L;
+        System.out.println("concurrent allowed<===========>:" + allowed.get() + " elapsed ms<===========>:" + elapsedMillis);
+        //容量1000,加上运行期间补充的令牌
+        Assert.assertTrue(allowed.get() >= 1000);
+        Assert.assertTrue(allowed.get() <= 1000 + elapsedMillis + 2);
+        Assert.assertEquals(threadCount * 10000L, limiter.getAllowedCount() + limiter.getRejectedCount());
+    }
+
+    @Test
+    public void testEviction() throws InterruptedException {
+        RequestRateLimiter limiter = new RequestRateLimiter(64 * 4);
+        for (int i = 0; i < 10000; i++) {
+            limiter.tryAcquire("192.168.0." + i, 1000);
+        }
+        System.out.println("limiter<===========>:" + limiter);
+        Assert.assertTrue(limiter.size() <= 64 * 4);
+        Assert.assertEquals(10000L, limiter.getAllowedCount() + limiter.getRejectedCount());
+        Assert.assertTrue(limiter.getOverflowCount() > 0);
+
+        //分片满后新建的桶只有一个令牌，要1秒才放满
+        Thread.sleep(1100);
+        limiter.evictIdle();
+        Assert.assertEquals(0, limiter.size());
+    }
+
+    /***伪造大量ip时，分片满了后新的key共用溢出桶，仍然被限流*/
+    @Test
+    public void testRotatingKeys() {
+        int maxKeys = 64 * 100;
+        RequestRateLimiter limiter = new RequestRateLimiter(maxKeys);
+        //跨过多个清理间隔(100ms)，每个key用2次，50ms补充一个令牌后就能被清理，清理出的位置不能每次都放进一批满桶
+        long runNanos = TimeUnit.MILLISECONDS.toNanos(1200);
+        long begin = System.nanoTime();
+        int requests = 0;
+        while (System.nanoTime() - begin < runNanos) {
+            for (int j = 0; j < 1000; j++, requests++) {
+                int k = requests >> 1;
+                limiter.tryAcquire("10." + ((k >> 16) & 255) + '.' + ((k >> 8) & 255) + '.' + (k & 255), 20);
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - begin) / 1000000L;
+        System.out.println("limiter<===========>:" + limiter + " requests<===========>:" + requests + " elapsed ms<===========>:" + elapsedMillis);
+        Assert.assertTrue(limiter.size() <= maxKeys);
+        Assert.assertTrue(limiter.getEvictedCount() > 0);
+        //每个位置:第一个key最多用2次,之后的新桶只有1个令牌且至少1秒才能被清理；每个分片的溢出桶20加上运行期间补充的令牌
+        //不限制新桶时,每次清理出的位置都能再通过2次,约为 maxKeys*2*10/秒
+        long seconds = elapsedMillis / 1000 + 1;
+        long maxAllowed = maxKeys * (2 + seconds + 1) + 64 * (20 + 20 * seconds);
+        Assert.assertTrue(limiter.getAllowedCount() <= maxAllowed);
+        Assert.assertTrue(limiter.getRejectedCount() >= requests - maxAllowed);
+    }
+
+    /***分片满过之后新建的桶只有一个令牌，之后按正常速率补充*/
+    @Test
+    public void testSlowStartUnderPressure() throws InterruptedException {
+        RequestRateLimiter limiter = new RequestRateLimiter(64);
+        String first = null;
+        String second = null;
+        //找两个落在同一分片的key
+        for (int i = 0; second == null; i++) {
+            String key = "10.1.0." + i;
+            if (first == null) {
+                first = key;
+            } else if (sameShard(first, key)) {
+                second = key;
+            }
+        }
+        int firstAllowed = 0;
+        for (int i = 0; i < 30; i++) {
+            if (limiter.tryAcquire(first, 20)) {
+                firstAllowed++;
+            }
+        }
+        Assert.assertEquals(20, firstAllowed);
+        Thread.sleep(1100);
+        //first已放满，被清理后second新建的桶只有一个令牌
+        Assert.assertTrue(limiter.tryAcquire(second, 20));
+        Assert.assertFalse(limiter.tryAcquire(second, 20));
+        Assert.assertEquals(1, limiter.getEvictedCount());
+        Thread.sleep(60);
+        Assert.assertTrue(limiter.tryAcquire(second, 20));
+    }
+
+    static boolean sameShard(String a, String b) {
+        int ha = a.hashCode();
+        int hb = b.hashCode();
+        return ((ha ^ (ha >>> 16)) & 63) == ((hb ^ (hb >>> 16)) & 63);
+    }
+
+    @Test
+    public void testBench() {
+        RequestRateLimiter limiter = new RequestRateLimiter(100000);
+        String[] keys = new String[1024];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "172.16." + (i >> 8) + '.' + (i & 255);
+        }
+        int loops = 5000000;
+        //预热
+        for (int i = 0; i < loops; i++) {
+            limiter.tryAcquire(keys[i & 1023], 20);
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < loops; i++) {
+            limiter.tryAcquire(keys[i & 1023], 20);
+        }
+        long elapsed = System.nanoTime() - begin;
+        System.out.println("tryAcquire ns/op<===========>:" + elapsed / loops);
+    }
+}
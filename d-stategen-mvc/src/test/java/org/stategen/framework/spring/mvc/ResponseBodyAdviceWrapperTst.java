@@ -0,0 +1,100 @@
+package org.stategen.framework.spring.mvc;
+
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.stategen.framework.annotation.Wrap;
+
+/***
+ * ResponseBodyAdviceWrapper 是否包装返回值的判断：在packages或annotations范围内，有@RequestMapping、@ResponseBody，
+ * 方法或类上有@Wrap且不为false
+ */
+public class ResponseBodyAdviceWrapperTst {
+
+    @Wrap
+    @ResponseBody
+    public static class WrapController {
+        @RequestMapping
+        public String wrapped() {
+            return null;
+        }
+
+        @RequestMapping
+        @Wrap(false)
+        public String excluded() {
+            return null;
+        }
+
+        public String notMapped() {
+            return null;
+        }
+    }
+
+    @Controller
+    public static class PlainController {
+        @RequestMapping
+        @ResponseBody
+        public String noWrap() {
+            return null;
+        }
+
+        @RequestMapping
+        @ResponseBody
+        @Wrap
+        public String wrapped() {
+            return null;
+        }
+
+        @RequestMapping
+        @Wrap
+        public String noResponseBody() {
+            return null;
+        }
+    }
+
+    @After
+    public void reset() {
+        ResponseBodyAdviceWrapper wrapper = new ResponseBodyAdviceWrapper();
+        wrapper.setPackages(null);
+        wrapper.setAnnotations(null);
+    }
+
+    static boolean supportMethod(Class<?> clz, String methodName) throws NoSuchMethodException {
+        return ResponseBodyAdviceWrapper.supportMethod(clz.getMethod(methodName));
+    }
+
+    @Test
+    public void testNeedWrapByPackage() throws NoSuchMethodException {
+        ResponseBodyAdviceWrapper wrapper = new ResponseBodyAdviceWrapper();
+        wrapper.setPackages(Collections.singleton(ResponseBodyAdviceWrapperTst.class.getPackage().getName()));
+
+        Assert.assertTrue(supportMethod(WrapController.class, "wrapped"));
+        Assert.assertFalse(supportMethod(WrapController.class, "excluded"));
+        Assert.assertFalse(supportMethod(WrapController.class, "notMapped"));
+        Assert.assertFalse(supportMethod(PlainController.class, "noWrap"));
+        Assert.assertTrue(supportMethod(PlainController.class, "wrapped"));
+        Assert.assertFalse(supportMethod(PlainController.class, "noResponseBody"));
+        //查表的结果与第一次一致
+        Assert.assertTrue(supportMethod(WrapController.class, "wrapped"));
+        Assert.assertFalse(supportMethod(WrapController.class, "excluded"));
+    }
+
+    @Test
+    public void testNeedWrapByAnnotation() throws NoSuchMethodException {
+        ResponseBodyAdviceWrapper wrapper = new ResponseBodyAdviceWrapper();
+        wrapper.setPackages(Collections.singleton("not.this.package"));
+        Assert.assertFalse(supportMethod(PlainController.class, "wrapped"));
+
+        //修改范围后清空已算好的表
+        wrapper.setAnnotations(Collections.<Class<? extends Annotation>> singleton(Controller.class));
+        Assert.assertTrue(supportMethod(PlainController.class, "wrapped"));
+        Assert.assertFalse(supportMethod(PlainController.class, "noWrap"));
+        Assert.assertFalse(supportMethod(WrapController.class, "wrapped"));
+    }
+}
@@ -0,0 +1,50 @@
+package org.stategen.framework.spring.util;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/***
+ * RequestUtil.getClientAddr 只在remoteAddr是可信代理时才取x-forwarded-for中的地址
+ */
+public class RequestUtilTst {
+
+    static HttpServletRequest request(final String remoteAddr, final String forwardedFor) {
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(), new Class<?>[] { HttpServletRequest.class },
+            (proxy, method, args) -> {
+                if ("getRemoteAddr".equals(method.getName())) {
+                    return remoteAddr;
+                }
+                if ("getHeader".equals(method.getName()) && "x-forwarded-for".equals(args[0])) {
+                    return forwardedFor;
+                }
+                return null;
+            });
+    }
+
+    @Test
+    public void testGetClientAddr() {
+        Set<String> trustedProxies = new HashSet<String>(Arrays.asList("10.0.0.1", "10.0.0.2"));
+
+        //没有配置可信代理，或remoteAddr不是可信代理时，请求头不可信
+        Assert.assertEquals("1.2.3.4", RequestUtil.getClientAddr(request("1.2.3.4", "5.6.7.8"), Collections.<String> emptySet()));
+        Assert.assertEquals("1.2.3.4", RequestUtil.getClientAddr(request("1.2.3.4", "5.6.7.8"), trustedProxies));
+
+        //客户端伪造的地址在左边，取最右边一个不是可信代理的地址
+        Assert.assertEquals("5.6.7.8", RequestUtil.getClientAddr(request("10.0.0.1", "9.9.9.9, 5.6.7.8"), trustedProxies));
+        Assert.assertEquals("5.6.7.8", RequestUtil.getClientAddr(request("10.0.0.1", "9.9.9.9,5.6.7.8 , 10.0.0.2"), trustedProxies));
+        Assert.assertEquals("5.6.7.8", RequestUtil.getClientAddr(request("10.0.0.1", "5.6.7.8,,"), trustedProxies));
+
+        //全部是可信代理时取最左边的，没有请求头时取remoteAddr
+        Assert.assertEquals("10.0.0.2", RequestUtil.getClientAddr(request("10.0.0.1", "10.0.0.2, 10.0.0.1"), trustedProxies));
+        Assert.assertEquals("10.0.0.1", RequestUtil.getClientAddr(request("10.0.0.1", null), trustedProxies));
+        Assert.assertEquals("10.0.0.1", RequestUtil.getClientAddr(request("10.0.0.1", " "), trustedProxies));
+    }
+}
@@ -0,0 +1,166 @@
+package org.stategen.framework.web.cookie;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.Cookie;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.stategen.framework.util.HexUtil;
+import org.stategen.framework.util.MD5Util;
+
+import configs.Configration;
+
+/***
+ * CookieTokenGeneratorHmac 的正确性，以及与原 md5 拼接实现的耗时、分配对比
+ * 没有引入jmh,用简单的预热+计时代替，分配字节数用 ThreadMXBean 统计，数值只做相对比较
+ */
+public class CookieTokenGeneratorHmacTst {
+
+    interface Op {
+        String run();
+    }
+
+    private static Map<String, Cookie> cookieMap(String... values) {
+        Map<String, Cookie> cookieMap = new LinkedHashMap<String, Cookie>();
+        for (int i = 0; i < values.length; i++) {
+            Cookie cookie = new Cookie("_ck_" + i, values[i]);
+            cookie.setMaxAge(3600);
+            cookieMap.put(cookie.getName(), cookie);
+        }
+        return cookieMap;
+    }
+
+    /***直接拼接后计算，作为对照*/
+    private static String expectHmac(String mix, String... values) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(mix.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        for (String value : values) {
+            mac.update(value.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+        }
+        return HexUtil.toHex(mac.doFinal());
+    }
+
+    /***原 MD5Util.md5 实现*/
+    private static String oldMd5(String dest) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("MD5");
+        md.update(dest.getBytes("UTF-8"));
+        byte[] digest = md.digest();
+        StringBuilder md5 = new StringBuilder();
+        for (int i = 0; i < digest.length; i++) {
+            md5.append(Character.forDigit((digest[i] & 0xF0) >> 4, 16));
+            md5.append(Character.forDigit((digest[i] & 0xF), 16));
+        }
+        return md5.toString();
+    }
+
+    @Test
+    public void testGenToken() throws Exception {
+        CookieTokenGeneratorHmac generator = new CookieTokenGeneratorHmac();
+        String mix = Configration.COOKIE_TOKEN_MIX;
+        StringBuilder longValue = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            longValue.append("abcdef");
+        }
+        String[][] cases = { { "1001" }, { "1001", "%E5%BC%A0%E4%B8%89", "" }, { longValue.toString(), "x" }, { "中文值", "a" },
+                             { longValue.substring(0, 255) }, { longValue.substring(0, 256) } };
+        for (String[] values : cases) {
+            String token = generator.genToken(cookieMap(values));
+            Assert.assertEquals(expectHmac(mix, values), token);
+        }
+        System.out.println("token<===========>:" + generator.genToken(cookieMap("1001")));
+
+        Assert.assertFalse(generator.genToken(cookieMap("ab", "c")).equals(generator.genToken(cookieMap("a", "bc"))));
+
+        Map<String, Cookie> noAge = cookieMap("1001");
+        noAge.values().iterator().next().setMaxAge(0);
+        Assert.assertNull(generator.genToken(noAge));
+        Assert.assertNull(generator.genToken(new LinkedHashMap<String, Cookie>()));
+
+        //混淆码修改后重新初始化密钥
+        Configration.COOKIE_TOKEN_MIX = "another-mix";
+        try {
+            Assert.assertEquals(expectHmac("another-mix", "1001"), generator.genToken(cookieMap("1001")));
+        } finally {
+            Configration.COOKIE_TOKEN_MIX = mix;
+        }
+        Assert.assertEquals(expectHmac(mix, "1001"), generator.genToken(cookieMap("1001")));
+
+        //算不出令牌时抛出异常，不返回可以被匹配的令牌
+        Configration.COOKIE_TOKEN_MIX = "";
+        try {
+            generator.genToken(cookieMap("1001"));
+            Assert.fail("空的混淆码不能生成令牌");
+        } catch (RuntimeException e) {
+            System.out.println("e<===========>:" + e);
+        } finally {
+            Configration.COOKIE_TOKEN_MIX = mix;
+        }
+        Assert.assertEquals(expectHmac(mix, "1001"), generator.genToken(cookieMap("1001")));
+    }
+
+    @Test
+    public void testHexUtil() throws Exception {
+        Assert.assertEquals(oldMd5("1001343f212b"), MD5Util.md5("1001343f212b"));
+        Assert.assertEquals(oldMd5("中文"), MD5Util.md5("中文"));
+
+        Assert.assertTrue(HexUtil.equalsConstantTime("0a1b", "0a1b"));
+        Assert.assertFalse(HexUtil.equalsConstantTime("0a1b", "0a1c"));
+        Assert.assertFalse(HexUtil.equalsConstantTime("0a1b", "0a1"));
+        Assert.assertFalse(HexUtil.equalsConstantTime("0a1", "0a1b"));
+        Assert.assertFalse(HexUtil.equalsConstantTime("0a1b", null));
+        Assert.assertFalse(HexUtil.equalsConstantTime(null, null));
+        Assert.assertFalse(HexUtil.equalsConstantTime("", ""));
+        Assert.assertFalse(HexUtil.equalsConstantTime("", "0a1b"));
+    }
+
+    @Test
+    public void testBench() throws Exception {
+        final Map<String, Cookie> cookieMap = cookieMap("1001", "%E5%BC%A0%E4%B8%89", "1589600000000", "admin");
+        final CookieTokenGeneratorDefault md5Generator = new CookieTokenGeneratorDefault();
+        final CookieTokenGeneratorHmac hmacGenerator = new CookieTokenGeneratorHmac();
+        Op oldOp = () -> {
+            try {
+                StringBuilder sb = new StringBuilder(512);
+                for (Cookie cookie : cookieMap.values()) {
+                    sb.append(cookie.getValue());
+                }
+                sb.append(Configration.COOKIE_TOKEN_MIX);
+                return oldMd5(sb.toString());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        };
+        Op md5Op = () -> md5Generator.genToken(cookieMap);
+        Op hmacOp = () -> hmacGenerator.genToken(cookieMap);
+
+        int count = 200000;
+        for (int i = 0; i < 2; i++) {
+            bench("old md5", count, oldOp);
+            bench("md5", count, md5Op);
+            bench("hmac", count, hmacOp);
+        }
+    }
+
+    private static void bench(String name, int count, Op op) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long beginBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += op.run().length();
+        }
+        long nanos = System.nanoTime() - begin;
+        long bytes = threadMXBean.getThreadAllocatedBytes(threadId) - beginBytes;
+        System.out.println(name + " us/op<===========>:" + nanos / count / 1000.0 + " bytes/op<===========>:" + bytes / count + " " + sum);
+    }
+
+}